@@ -1,6 +1,7 @@
 package com.bemobi.aicontrol;
 
 import com.bemobi.aicontrol.integration.github.GitHubCopilotApiClient;
+import com.bemobi.aicontrol.integration.github.GitHubIdentityResolver;
 import com.bemobi.aicontrol.integration.github.GitHubApiProperties;
 import com.bemobi.aicontrol.integration.google.GoogleWorkspaceClient;
 import com.bemobi.aicontrol.integration.google.GoogleWorkspaceProperties;
@@ -37,8 +38,10 @@ public class DiagnoseGitNameMatching {
             GitHubCopilotApiClient githubClient = new GitHubCopilotApiClient(
                 WebClient.builder(),
                 githubProps,
-                null, // Don't use Workspace yet
-                new ObjectMapper()
+                new GitHubIdentityResolver(null), // Don't use Workspace yet
+                new ObjectMapper(),
+                null,
+                null
             );
 
             List<UserData> githubUsers = githubClient.fetchUsers();
@@ -1,6 +1,7 @@
 package com.bemobi.aicontrol;
 
 import com.bemobi.aicontrol.integration.github.GitHubCopilotApiClient;
+import com.bemobi.aicontrol.integration.github.GitHubIdentityResolver;
 import com.bemobi.aicontrol.integration.github.GitHubApiProperties;
 import com.bemobi.aicontrol.integration.common.UserData;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -46,8 +47,10 @@ public class TestGitHubFetch {
             GitHubCopilotApiClient client = new GitHubCopilotApiClient(
                 WebClient.builder(),
                 props,
-                null, // No Google Workspace for this test
-                new ObjectMapper()
+                new GitHubIdentityResolver(null), // No Google Workspace for this test
+                new ObjectMapper(),
+                null,
+                null
             );
 
             // Fetch users
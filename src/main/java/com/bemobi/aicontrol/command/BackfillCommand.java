@@ -0,0 +1,54 @@
+package com.bemobi.aicontrol.command;
+
+import com.bemobi.aicontrol.config.BackfillProperties;
+import com.bemobi.aicontrol.service.BackfillService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Command to backfill historical usage into the local record store.
+ *
+ * Enable with: -Dai-control.backfill.enabled=true (requires ai-control.storage.enabled=true).
+ * Safe to rerun: completed days are read from the checkpoint and skipped.
+ */
+@Component
+@ConditionalOnProperty(prefix = "ai-control.backfill", name = "enabled", havingValue = "true")
+public class BackfillCommand implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(BackfillCommand.class);
+
+    private final BackfillService backfillService;
+    private final BackfillProperties properties;
+
+    public BackfillCommand(BackfillService backfillService, BackfillProperties properties) {
+        this.backfillService = backfillService;
+        this.properties = properties;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        log.info("=== Backfill Histórico ===");
+
+        // Período padrão: 365 dias até ontem
+        LocalDate endDate = properties.getEndDate() != null ? properties.getEndDate() : LocalDate.now().minusDays(1);
+        LocalDate startDate = properties.getStartDate() != null ? properties.getStartDate() : endDate.minusDays(364);
+
+        log.info("Período: {} até {}", startDate, endDate);
+        BackfillService.BackfillResult result = backfillService.backfill(startDate, endDate);
+
+        System.out.println("\n✅ Backfill concluído");
+        System.out.println("  - Unidades concluídas: " + result.completedUnits());
+        System.out.println("  - Unidades já existentes (checkpoint): " + result.skippedUnits());
+        System.out.println("  - Unidades com falha: " + result.failedUnits());
+        System.out.printf("  - Throughput: %.1f dias/min%n", result.daysPerMinute());
+        if (result.failedUnits() > 0) {
+            System.out.println("\n⚠️  Execute novamente para retomar as unidades com falha.");
+        }
+        System.out.println();
+    }
+}
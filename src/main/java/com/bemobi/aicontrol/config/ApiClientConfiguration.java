@@ -5,24 +5,23 @@ import com.bemobi.aicontrol.integration.cursor.CursorApiProperties;
 import com.bemobi.aicontrol.integration.github.GitHubApiProperties;
 import com.bemobi.aicontrol.integration.google.GoogleWorkspaceProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.reactive.function.client.WebClient;
 
 /**
  * Configuration class for API clients.
+ *
+ * The shared HTTP client and WebClient builder are defined in {@link HttpClientConfiguration}.
  */
 @Configuration
 @EnableConfigurationProperties({
+    CollectionProperties.class,
+    HttpClientProperties.class,
+    StorageProperties.class,
+    BackfillProperties.class,
     ClaudeApiProperties.class,
     GitHubApiProperties.class,
     CursorApiProperties.class,
     GoogleWorkspaceProperties.class
 })
 public class ApiClientConfiguration {
-
-    @Bean
-    public WebClient.Builder webClientBuilder() {
-        return WebClient.builder();
-    }
 }
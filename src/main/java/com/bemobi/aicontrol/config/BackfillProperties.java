@@ -0,0 +1,110 @@
+package com.bemobi.aicontrol.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Configuration properties for the historical backfill command.
+ *
+ * The range is split into work units of {@code window-days} per tool, aligned on
+ * fixed boundaries; the days each unit stores are checkpointed, so a rerun (even
+ * over a range shifted by a few days) resumes where the previous one stopped.
+ */
+@ConfigurationProperties(prefix = "ai-control.backfill")
+@Validated
+public class BackfillProperties {
+
+    /**
+     * Run the backfill command on startup.
+     */
+    private boolean enabled = false;
+
+    /**
+     * First day to backfill (default: 365 days before end-date).
+     */
+    private LocalDate startDate;
+
+    /**
+     * Last day to backfill (default: yesterday).
+     */
+    private LocalDate endDate;
+
+    /**
+     * Tool ids to backfill (e.g. github-copilot, cursor).
+     */
+    private List<String> tools = List.of("github-copilot", "cursor");
+
+    /**
+     * Days per work unit.
+     */
+    private int windowDays = 7;
+
+    /**
+     * Work units of the same tool running at the same time.
+     */
+    private int concurrency = 2;
+
+    /**
+     * Checkpoint file listing the completed days per tool.
+     */
+    private String checkpointFile = "./data/backfill-checkpoint.json";
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public List<String> getTools() {
+        return tools;
+    }
+
+    public void setTools(List<String> tools) {
+        this.tools = tools;
+    }
+
+    public int getWindowDays() {
+        return windowDays;
+    }
+
+    public void setWindowDays(int windowDays) {
+        this.windowDays = windowDays;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public String getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    public void setCheckpointFile(String checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+}
@@ -0,0 +1,68 @@
+package com.bemobi.aicontrol.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Configuration properties for the concurrent collection engine.
+ *
+ * Controls how many collectors run at the same time, how long each one
+ * may take before it is cancelled and reported with empty results, and
+ * whether user data is fetched from all API clients in parallel.
+ */
+@ConfigurationProperties(prefix = "ai-control.collection")
+@Validated
+public class CollectionProperties {
+
+    /**
+     * Maximum number of collectors running concurrently (1 = sequential).
+     */
+    private int parallelism = 4;
+
+    /**
+     * Deadline in milliseconds for each collector call (usage or spending).
+     */
+    private int collectorTimeout = 600000;
+
+    /**
+     * Fetch users from all enabled API clients concurrently (UserCollectionService).
+     */
+    private boolean parallelUsers = true;
+
+    /**
+     * Global deadline in milliseconds for the parallel user collection.
+     */
+    private int usersDeadline = 1800000;
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getCollectorTimeout() {
+        return collectorTimeout;
+    }
+
+    public void setCollectorTimeout(int collectorTimeout) {
+        this.collectorTimeout = collectorTimeout;
+    }
+
+    public boolean isParallelUsers() {
+        return parallelUsers;
+    }
+
+    public void setParallelUsers(boolean parallelUsers) {
+        this.parallelUsers = parallelUsers;
+    }
+
+    public int getUsersDeadline() {
+        return usersDeadline;
+    }
+
+    public void setUsersDeadline(int usersDeadline) {
+        this.usersDeadline = usersDeadline;
+    }
+}
@@ -0,0 +1,92 @@
+package com.bemobi.aicontrol.config;
+
+import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.http.HttpTransport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Scope;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+
+/**
+ * Shared HTTP client infrastructure for all integrations.
+ *
+ * Every {@link WebClient} built by the API clients runs on the same Reactor Netty
+ * {@link HttpClient}, so connections (and TLS sessions) are pooled per host and reused
+ * across requests, days and clients. Google Workspace uses a single shared
+ * {@link HttpTransport}.
+ */
+@Configuration
+public class HttpClientConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpClientConfiguration.class);
+
+    @Bean
+    public HttpPoolMetrics httpPoolMetrics() {
+        return new HttpPoolMetrics();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider aiControlConnectionProvider(HttpClientProperties properties,
+                                                          HttpPoolMetrics poolMetrics) {
+        log.info("Creating shared HTTP connection pool (maxConnections per host: {}, maxIdleTime: {} ms)",
+                properties.getMaxConnections(), properties.getMaxIdleTime());
+
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("ai-control")
+                .maxConnections(properties.getMaxConnections())
+                .maxIdleTime(Duration.ofMillis(properties.getMaxIdleTime()))
+                .maxLifeTime(Duration.ofMillis(properties.getMaxLifeTime()))
+                .pendingAcquireTimeout(Duration.ofMillis(properties.getPendingAcquireTimeout()))
+                .metrics(properties.isMetricsEnabled(), () -> poolMetrics);
+
+        if (properties.getEvictionInterval() > 0) {
+            builder.evictInBackground(Duration.ofMillis(properties.getEvictionInterval()));
+        }
+
+        return builder.build();
+    }
+
+    @Bean
+    public HttpClient aiControlHttpClient(ConnectionProvider aiControlConnectionProvider,
+                                          HttpClientProperties properties) {
+        HttpClient httpClient = HttpClient.create(aiControlConnectionProvider)
+                .keepAlive(true)
+                .compress(properties.isCompression());
+
+        if (properties.isHttp2()) {
+            // HTTP/2 is negotiated via ALPN on TLS connections; plain HTTP stays on HTTP/1.1
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        return httpClient;
+    }
+
+    /**
+     * WebClient builder backed by the shared HTTP client.
+     *
+     * Prototype scoped: each API client customizes its own copy (base URL, default
+     * headers, codecs), so settings no longer leak between clients.
+     */
+    @Bean
+    @Scope("prototype")
+    public WebClient.Builder webClientBuilder(HttpClient aiControlHttpClient) {
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(aiControlHttpClient));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "ai-control.api.google-workspace", name = "enabled", havingValue = "true")
+    public HttpTransport googleHttpTransport() throws GeneralSecurityException, IOException {
+        return GoogleNetHttpTransport.newTrustedTransport();
+    }
+}
@@ -0,0 +1,119 @@
+package com.bemobi.aicontrol.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Configuration properties for the shared HTTP client used by all API clients.
+ *
+ * Reactor Netty keeps one connection pool per remote host; these limits apply
+ * to each of those pools. Durations are in milliseconds.
+ */
+@ConfigurationProperties(prefix = "ai-control.http")
+@Validated
+public class HttpClientProperties {
+
+    /**
+     * Maximum number of connections per remote host.
+     */
+    private int maxConnections = 50;
+
+    /**
+     * Time a connection may stay idle in the pool before it is closed.
+     */
+    private int maxIdleTime = 30000;
+
+    /**
+     * Maximum lifetime of a pooled connection.
+     */
+    private int maxLifeTime = 300000;
+
+    /**
+     * Maximum time to wait for a free connection when the pool is exhausted.
+     */
+    private int pendingAcquireTimeout = 45000;
+
+    /**
+     * Interval of the background eviction of idle and expired connections (0 = disabled).
+     */
+    private int evictionInterval = 60000;
+
+    /**
+     * Request gzip-compressed responses and decompress them transparently.
+     */
+    private boolean compression = true;
+
+    /**
+     * Negotiate HTTP/2 over TLS (ALPN), falling back to HTTP/1.1.
+     */
+    private boolean http2 = true;
+
+    /**
+     * Track connection pool metrics (active, idle and pending connections per host).
+     */
+    private boolean metricsEnabled = false;
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getMaxIdleTime() {
+        return maxIdleTime;
+    }
+
+    public void setMaxIdleTime(int maxIdleTime) {
+        this.maxIdleTime = maxIdleTime;
+    }
+
+    public int getMaxLifeTime() {
+        return maxLifeTime;
+    }
+
+    public void setMaxLifeTime(int maxLifeTime) {
+        this.maxLifeTime = maxLifeTime;
+    }
+
+    public int getPendingAcquireTimeout() {
+        return pendingAcquireTimeout;
+    }
+
+    public void setPendingAcquireTimeout(int pendingAcquireTimeout) {
+        this.pendingAcquireTimeout = pendingAcquireTimeout;
+    }
+
+    public int getEvictionInterval() {
+        return evictionInterval;
+    }
+
+    public void setEvictionInterval(int evictionInterval) {
+        this.evictionInterval = evictionInterval;
+    }
+
+    public boolean isCompression() {
+        return compression;
+    }
+
+    public void setCompression(boolean compression) {
+        this.compression = compression;
+    }
+
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    public void setHttp2(boolean http2) {
+        this.http2 = http2;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+}
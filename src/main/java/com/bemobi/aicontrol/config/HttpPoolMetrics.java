@@ -0,0 +1,75 @@
+package com.bemobi.aicontrol.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the Reactor Netty connection pools of the shared HTTP client.
+ *
+ * Registered as the pool's {@link ConnectionProvider.MeterRegistrar} when
+ * {@code ai-control.http.metrics-enabled} is set. Reactor Netty creates one pool
+ * per remote host; each one is exposed here by its address, so the pool state
+ * can be logged or inspected without a metrics backend.
+ */
+public class HttpPoolMetrics implements ConnectionProvider.MeterRegistrar {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpPoolMetrics.class);
+
+    private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress,
+                                ConnectionPoolMetrics metrics) {
+        log.debug("Connection pool '{}' created for {}", poolName, remoteAddress);
+        pools.put(remoteAddress.toString(), metrics);
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        log.debug("Connection pool '{}' disposed for {}", poolName, remoteAddress);
+        pools.remove(remoteAddress.toString());
+    }
+
+    /**
+     * Returns the current state of every pool, keyed by remote address.
+     *
+     * @return map of remote address to pool snapshot, sorted by address
+     */
+    public Map<String, PoolSnapshot> snapshot() {
+        Map<String, PoolSnapshot> snapshot = new TreeMap<>();
+        pools.forEach((address, metrics) -> snapshot.put(address, new PoolSnapshot(
+                metrics.acquiredSize(),
+                metrics.idleSize(),
+                metrics.allocatedSize(),
+                metrics.pendingAcquireSize(),
+                metrics.maxAllocatedSize())));
+        return snapshot;
+    }
+
+    /**
+     * Logs the current state of every pool at INFO level (nothing is tracked unless metrics are enabled).
+     */
+    public void logSnapshot() {
+        Map<String, PoolSnapshot> snapshot = snapshot();
+        if (snapshot.isEmpty()) {
+            log.debug("HTTP connection pools: no metrics registered");
+            return;
+        }
+        snapshot.forEach((address, pool) -> log.info(
+                "HTTP connection pool {}: active={}, idle={}, allocated={}/{}, pending={}",
+                address, pool.active(), pool.idle(), pool.allocated(), pool.maxAllocated(), pool.pending()));
+    }
+
+    /**
+     * Point-in-time state of one connection pool.
+     */
+    public record PoolSnapshot(int active, int idle, int allocated, int pending, int maxAllocated) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.bemobi.aicontrol.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Configuration properties for the local record store.
+ *
+ * When enabled, collected usage, spending and user records are kept on disk,
+ * partitioned by tool and day, so later runs can read history instead of
+ * fetching it again from the APIs. In incremental mode, report runs only fetch the
+ * days that are not stored yet or are still recent enough to change.
+ */
+@ConfigurationProperties(prefix = "ai-control.storage")
+@Validated
+public class StorageProperties {
+
+    /**
+     * Persist collected records in the local store.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Root directory of the store.
+     */
+    private String directory = "./data";
+
+    /**
+     * Collect only the days missing from the store (plus the re-fetch window) and read the rest from it.
+     */
+    private boolean incremental = true;
+
+    /**
+     * Most recent days always fetched again in incremental mode, since the APIs may still revise them.
+     */
+    private int refetchDays = 3;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public int getRefetchDays() {
+        return refetchDays;
+    }
+
+    public void setRefetchDays(int refetchDays) {
+        this.refetchDays = refetchDays;
+    }
+}
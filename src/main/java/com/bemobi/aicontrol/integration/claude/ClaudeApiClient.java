@@ -1,15 +1,16 @@
 package com.bemobi.aicontrol.integration.claude;
 
 import com.bemobi.aicontrol.integration.ToolApiClient;
+import com.bemobi.aicontrol.integration.claude.dto.ClaudeCodeRecord;
 import com.bemobi.aicontrol.integration.claude.dto.ClaudeCodeUsageReport;
 import com.bemobi.aicontrol.integration.claude.dto.ClaudeMember;
-import com.bemobi.aicontrol.integration.claude.dto.ClaudeMembersResponse;
 import com.bemobi.aicontrol.integration.claude.dto.CostReportResponse;
 import com.bemobi.aicontrol.integration.claude.dto.UsageReportResponse;
 import com.bemobi.aicontrol.integration.common.ApiClientException;
 import com.bemobi.aicontrol.integration.common.ConnectionTestResult;
+import com.bemobi.aicontrol.integration.common.RawPayload;
+import com.bemobi.aicontrol.integration.common.RawPayloadReader;
 import com.bemobi.aicontrol.integration.common.UserData;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,14 +21,16 @@ import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDate;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -44,6 +47,11 @@ public class ClaudeApiClient implements ToolApiClient {
 
     private static final Logger log = LoggerFactory.getLogger(ClaudeApiClient.class);
 
+    /**
+     * Page size requested from the Claude Code usage report.
+     */
+    private static final int CLAUDE_CODE_PAGE_SIZE = 100;
+
     private final WebClient webClient;
     private final ClaudeApiProperties properties;
     private final ObjectMapper objectMapper;
@@ -81,7 +89,8 @@ public class ClaudeApiClient implements ToolApiClient {
         log.info("Fetching users from Claude Code Admin API");
 
         try {
-            ClaudeMembersResponse response = webClient.get()
+            // Raw body: each member keeps a slice of it as rawJson instead of a re-serialized copy
+            byte[] body = webClient.get()
                 .uri(uriBuilder -> uriBuilder
                     .path("/v1/organizations/users")
                     .queryParam("limit", 100)
@@ -89,23 +98,28 @@ public class ClaudeApiClient implements ToolApiClient {
                 .retrieve()
                 .onStatus(HttpStatusCode::is4xxClientError, this::handle4xxError)
                 .onStatus(HttpStatusCode::is5xxServerError, this::handle5xxError)
-                .bodyToMono(ClaudeMembersResponse.class)
+                .bodyToMono(byte[].class)
                 .retryWhen(Retry.backoff(properties.getRetryAttempts(), Duration.ofSeconds(1))
                     .filter(throwable -> throwable instanceof WebClientResponseException.TooManyRequests)
                     .doBeforeRetry(signal ->
                         log.warn("Rate limit hit, retrying request. Attempt: {}", signal.totalRetries() + 1)))
                 .block(Duration.ofMillis(properties.getTimeout()));
 
-            if (response == null || response.data() == null) {
+            List<RawPayloadReader.Element<ClaudeMember>> members =
+                RawPayloadReader.readArray(objectMapper, body, "data", ClaudeMember.class);
+            if (members == null) {
                 throw new ApiClientException("Empty response from Claude Admin API");
             }
 
-            log.info("Successfully fetched {} users from Claude Code", response.data().size());
+            log.info("Successfully fetched {} users from Claude Code", members.size());
 
-            return response.data().stream()
-                .map(this::mapToUserData)
+            return members.stream()
+                .map(member -> mapToUserData(member.value(), member.raw()))
                 .collect(Collectors.toList());
 
+        } catch (IOException e) {
+            log.error("Error parsing users from Claude Code: {}", e.getMessage(), e);
+            throw new ApiClientException("Failed to parse users from Claude Code", e);
         } catch (WebClientException e) {
             log.error("Error fetching users from Claude Code: {}", e.getMessage(), e);
             throw new ApiClientException("Failed to fetch users from Claude Code", e);
@@ -222,8 +236,11 @@ public class ClaudeApiClient implements ToolApiClient {
      * Fetches Claude Code usage report from Claude Admin API.
      * This endpoint provides per-user statistics with email addresses.
      *
+     * <p>All pages are followed and merged into a single report; use
+     * {@link #streamClaudeCodeUsageReport(LocalDate)} to process records as they arrive.</p>
+     *
      * @param startingAt starting date (YYYY-MM-DD format)
-     * @return Claude Code usage report with per-user data
+     * @return Claude Code usage report with per-user data from all pages
      * @throws ApiClientException if API call fails
      */
     public ClaudeCodeUsageReport fetchClaudeCodeUsageReport(LocalDate startingAt)
@@ -231,63 +248,115 @@ public class ClaudeApiClient implements ToolApiClient {
         log.info("Fetching Claude Code usage report from Claude API: starting_at={}", startingAt);
 
         try {
-            ClaudeCodeUsageReport response = webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                    .path("/v1/organizations/usage_report/claude_code")
-                    .queryParam("starting_at", startingAt.toString())
-                    .queryParam("limit", 100)
-                    .build())
-                .retrieve()
-                .onStatus(HttpStatusCode::is4xxClientError, this::handle4xxError)
-                .onStatus(HttpStatusCode::is5xxServerError, this::handle5xxError)
-                .bodyToMono(ClaudeCodeUsageReport.class)
-                .retryWhen(Retry.backoff(properties.getRetryAttempts(), Duration.ofSeconds(1))
-                    .filter(throwable -> throwable instanceof WebClientResponseException.TooManyRequests)
-                    .doBeforeRetry(signal ->
-                        log.warn("Rate limit hit, retrying request. Attempt: {}", signal.totalRetries() + 1)))
-                .block(Duration.ofMillis(properties.getTimeout()));
-
-            if (response == null) {
-                throw new ApiClientException("Empty response from Claude Code usage report API");
-            }
+            List<ClaudeCodeRecord> records = streamClaudeCodeUsageReport(startingAt)
+                .collectList()
+                .block();
 
-            log.info("Successfully fetched Claude Code usage report with {} records, hasMore={}",
-                    response.data() != null ? response.data().size() : 0,
-                    response.hasMore());
+            log.info("Successfully fetched Claude Code usage report with {} records",
+                    records != null ? records.size() : 0);
 
-            return response;
+            return new ClaudeCodeUsageReport(records, false, null);
 
-        } catch (WebClientException e) {
-            log.error("Error fetching Claude Code usage report: {}", e.getMessage(), e);
-            throw new ApiClientException("Failed to fetch Claude Code usage report", e);
+        } catch (RuntimeException e) {
+            Throwable cause = Exceptions.unwrap(e);
+            if (cause instanceof ApiClientException apiClientException) {
+                throw apiClientException;
+            }
+            throw e;
         }
     }
 
-    private UserData mapToUserData(ClaudeMember member) {
-        Map<String, Object> metrics = new HashMap<>();
-        metrics.put("role", member.role());
-        metrics.put("joined_at", member.joinedAt());
-        metrics.put("member_id", member.id());
+    /**
+     * Streams the Claude Code usage report, following {@code next_page} across all pages.
+     *
+     * <p>Each page is requested as soon as the previous one arrives, so the next page is
+     * downloaded while the records of the current one are consumed downstream. Records are
+     * emitted in page order.</p>
+     *
+     * @param startingAt starting date (YYYY-MM-DD format)
+     * @return cold Flux of Claude Code records; failures are signalled as {@link ApiClientException}
+     */
+    public Flux<ClaudeCodeRecord> streamClaudeCodeUsageReport(LocalDate startingAt) {
+        AtomicInteger pages = new AtomicInteger();
+
+        return fetchClaudeCodeUsagePage(startingAt, null)
+            .expand(page -> Boolean.TRUE.equals(page.hasMore()) && page.nextPage() != null
+                ? fetchClaudeCodeUsagePage(startingAt, page.nextPage())
+                : Mono.empty())
+            .doOnNext(page -> log.debug("Received Claude Code usage page {} with {} records, hasMore={}",
+                    pages.incrementAndGet(), page.data() != null ? page.data().size() : 0, page.hasMore()))
+            .concatMapIterable(page -> page.data() != null ? page.data() : List.<ClaudeCodeRecord>of())
+            .doOnComplete(() -> log.info("Claude Code usage report for {} read in {} page(s)",
+                    startingAt, pages.get()))
+            .onErrorMap(e -> !(e instanceof ApiClientException), e -> {
+                log.error("Error fetching Claude Code usage report: {}", e.getMessage(), e);
+                return new ApiClientException("Failed to fetch Claude Code usage report", e);
+            });
+    }
+
+    /**
+     * Streams the Claude Code usage report for every day of a date range.
+     *
+     * <p>The report returns a single day per {@code starting_at}, so the range is split into
+     * per-day requests that run concurrently, up to {@code ai-control.api.claude.daily-concurrency}
+     * days at a time. Each day is paginated as in {@link #streamClaudeCodeUsageReport(LocalDate)}
+     * and the days are merged back in date order.</p>
+     *
+     * @param startDate first day (inclusive)
+     * @param endDate last day (inclusive)
+     * @return cold Flux of Claude Code records for the whole range
+     */
+    public Flux<ClaudeCodeRecord> streamClaudeCodeUsageReport(LocalDate startDate, LocalDate endDate) {
+        List<LocalDate> days = startDate.datesUntil(endDate.plusDays(1)).toList();
+        int concurrency = Math.max(1, properties.getDailyConcurrency());
+        log.info("Fetching Claude Code usage report for {} days ({} to {}), concurrency {}",
+                days.size(), startDate, endDate, concurrency);
+
+        return Flux.fromIterable(days)
+            .flatMapSequential(this::streamClaudeCodeUsageReport, concurrency);
+    }
 
+    /**
+     * Fetches one page of the Claude Code usage report.
+     *
+     * @param startingAt starting date
+     * @param page cursor from the previous page's {@code next_page}, or null for the first page
+     */
+    private Mono<ClaudeCodeUsageReport> fetchClaudeCodeUsagePage(LocalDate startingAt, String page) {
+        return webClient.get()
+            .uri(uriBuilder -> {
+                uriBuilder
+                    .path("/v1/organizations/usage_report/claude_code")
+                    .queryParam("starting_at", startingAt.toString())
+                    .queryParam("limit", CLAUDE_CODE_PAGE_SIZE);
+                if (page != null) {
+                    uriBuilder.queryParam("page", page);
+                }
+                return uriBuilder.build();
+            })
+            .retrieve()
+            .onStatus(HttpStatusCode::is4xxClientError, this::handle4xxError)
+            .onStatus(HttpStatusCode::is5xxServerError, this::handle5xxError)
+            .bodyToMono(ClaudeCodeUsageReport.class)
+            .retryWhen(Retry.backoff(properties.getRetryAttempts(), Duration.ofSeconds(1))
+                .filter(throwable -> throwable instanceof WebClientResponseException.TooManyRequests)
+                .doBeforeRetry(signal ->
+                    log.warn("Rate limit hit, retrying request. Attempt: {}", signal.totalRetries() + 1)))
+            .timeout(Duration.ofMillis(properties.getTimeout()))
+            .switchIfEmpty(Mono.error(new ApiClientException("Empty response from Claude Code usage report API")));
+    }
+
+    private UserData mapToUserData(ClaudeMember member, RawPayload raw) {
         return new UserData(
                 member.email() != null ? member.email().toLowerCase() : null,
                 member.name(),
                 member.status(),
                 member.lastActiveAt(),
-                metrics,
-                toRawJson(member)
+                new ClaudeMemberMetadata(member),
+                raw
         );
     }
 
-    private String toRawJson(Object dto) {
-        try {
-            return objectMapper.writeValueAsString(dto);
-        } catch (JsonProcessingException e) {
-            log.warn("Failed to serialize rawJson", e);
-            return null;
-        }
-    }
-
     private Mono<? extends Throwable> handle4xxError(ClientResponse response) {
         return response.bodyToMono(String.class)
             .flatMap(body -> {
@@ -30,6 +30,11 @@ public class ClaudeApiProperties {
 
     private int retryAttempts = 3;
 
+    /**
+     * Maximum number of days of the Claude Code usage report fetched concurrently.
+     */
+    private int dailyConcurrency = 4;
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -77,4 +82,12 @@ public class ClaudeApiProperties {
     public void setRetryAttempts(int retryAttempts) {
         this.retryAttempts = retryAttempts;
     }
+
+    public int getDailyConcurrency() {
+        return dailyConcurrency;
+    }
+
+    public void setDailyConcurrency(int dailyConcurrency) {
+        this.dailyConcurrency = dailyConcurrency;
+    }
 }
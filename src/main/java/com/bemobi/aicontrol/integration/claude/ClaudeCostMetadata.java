@@ -0,0 +1,45 @@
+package com.bemobi.aicontrol.integration.claude;
+
+import com.bemobi.aicontrol.integration.claude.dto.ClaudeCodeActor;
+import com.bemobi.aicontrol.integration.claude.dto.ClaudeCodeModelBreakdown;
+import com.bemobi.aicontrol.integration.claude.dto.ClaudeCodeRecord;
+import com.bemobi.aicontrol.integration.common.ToolMetadata;
+
+import java.util.List;
+
+/**
+ * Raw metadata of a Claude Code spending record, read from the report fields on demand.
+ */
+final class ClaudeCostMetadata extends ToolMetadata {
+
+    private static final List<String> KEYS = List.of(
+        "organization_id", "actor", "customer_type", "model_breakdown");
+
+    private final String organizationId;
+    private final ClaudeCodeActor actor;
+    private final String customerType;
+    private final List<ClaudeCodeModelBreakdown> modelBreakdown;
+
+    ClaudeCostMetadata(ClaudeCodeRecord record) {
+        this.organizationId = record.organizationId();
+        this.actor = record.actor();
+        this.customerType = record.customerType();
+        this.modelBreakdown = record.modelBreakdown();
+    }
+
+    @Override
+    protected List<String> keys() {
+        return KEYS;
+    }
+
+    @Override
+    protected Object value(String key) {
+        return switch (key) {
+            case "organization_id" -> organizationId;
+            case "actor" -> actor;
+            case "customer_type" -> customerType;
+            case "model_breakdown" -> modelBreakdown;
+            default -> null;
+        };
+    }
+}
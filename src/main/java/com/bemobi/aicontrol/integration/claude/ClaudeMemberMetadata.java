@@ -0,0 +1,35 @@
+package com.bemobi.aicontrol.integration.claude;
+
+import com.bemobi.aicontrol.integration.claude.dto.ClaudeMember;
+import com.bemobi.aicontrol.integration.common.ToolMetadata;
+
+import java.util.List;
+
+/**
+ * Raw metadata of a Claude organization member, read from the member on demand.
+ */
+final class ClaudeMemberMetadata extends ToolMetadata {
+
+    private static final List<String> KEYS = List.of("role", "joined_at", "member_id");
+
+    private final ClaudeMember member;
+
+    ClaudeMemberMetadata(ClaudeMember member) {
+        this.member = member;
+    }
+
+    @Override
+    protected List<String> keys() {
+        return KEYS;
+    }
+
+    @Override
+    protected Object value(String key) {
+        return switch (key) {
+            case "role" -> member.role();
+            case "joined_at" -> member.joinedAt();
+            case "member_id" -> member.id();
+            default -> null;
+        };
+    }
+}
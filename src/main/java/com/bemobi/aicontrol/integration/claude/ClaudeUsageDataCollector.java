@@ -1,24 +1,26 @@
 package com.bemobi.aicontrol.integration.claude;
 
 import com.bemobi.aicontrol.integration.claude.dto.ClaudeCodeRecord;
-import com.bemobi.aicontrol.integration.claude.dto.ClaudeCodeUsageReport;
 import com.bemobi.aicontrol.integration.common.ApiClientException;
 import com.bemobi.aicontrol.integration.common.ToolType;
 import com.bemobi.aicontrol.integration.common.UnifiedSpendingRecord;
 import com.bemobi.aicontrol.integration.common.UnifiedUsageRecord;
+import com.bemobi.aicontrol.integration.common.UsageCollection;
 import com.bemobi.aicontrol.integration.common.UsageDataCollector;
+import com.bemobi.aicontrol.integration.common.UsageRecordBatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Collector for Claude Code usage and spending data.
@@ -45,19 +47,16 @@ public class ClaudeUsageDataCollector implements UsageDataCollector {
             throws ApiClientException {
         log.info("Collecting usage data from Claude Code: {} to {}", startDate, endDate);
 
-        // Claude Code endpoint uses starting_at parameter
-        ClaudeCodeUsageReport response = claudeApiClient.fetchClaudeCodeUsageReport(startDate);
+        // One starting_at request chain per day of the range; records are converted as pages arrive
+        UsageRecordBatch records = await(claudeApiClient.streamClaudeCodeUsageReport(startDate, endDate)
+                .map(this::convertClaudeCodeToUsageRecord)
+                .collect(UsageRecordBatch::new, UsageRecordBatch::add));
 
-        if (response.data() == null || response.data().isEmpty()) {
-            log.info("No usage data found for period starting {}", startDate);
+        if (records == null || records.isEmpty()) {
+            log.info("No usage data found for period {} to {}", startDate, endDate);
             return List.of();
         }
 
-        List<UnifiedUsageRecord> records = new ArrayList<>();
-        for (ClaudeCodeRecord record : response.data()) {
-            records.add(convertClaudeCodeToUsageRecord(record));
-        }
-
         log.info("Converted {} Claude Code records to unified usage records", records.size());
         return records;
     }
@@ -67,26 +66,70 @@ public class ClaudeUsageDataCollector implements UsageDataCollector {
             throws ApiClientException {
         log.info("Collecting spending data from Claude Code: {} to {}", startDate, endDate);
 
-        // Claude Code endpoint uses starting_at parameter
-        ClaudeCodeUsageReport response = claudeApiClient.fetchClaudeCodeUsageReport(startDate);
+        // One starting_at request chain per day of the range; records are converted as pages arrive
+        List<UnifiedSpendingRecord> records = collect(claudeApiClient.streamClaudeCodeUsageReport(startDate, endDate)
+                .mapNotNull(this::convertClaudeCodeToSpendingRecord));
 
-        if (response.data() == null || response.data().isEmpty()) {
-            log.info("No spending data found for period starting {}", startDate);
+        if (records.isEmpty()) {
+            log.info("No spending data found for period {} to {}", startDate, endDate);
             return List.of();
         }
 
-        List<UnifiedSpendingRecord> records = new ArrayList<>();
-        for (ClaudeCodeRecord record : response.data()) {
-            UnifiedSpendingRecord spendingRecord = convertClaudeCodeToSpendingRecord(record);
-            if (spendingRecord != null) {
-                records.add(spendingRecord);
-            }
-        }
-
         log.info("Converted {} Claude Code records to unified spending records", records.size());
         return records;
     }
 
+    /**
+     * Collects usage and spending in a single pass over the Claude Code report.
+     *
+     * <p>Each record is fetched and decoded once and converted to both a usage record and,
+     * when it carries a cost, a spending record.</p>
+     */
+    @Override
+    public UsageCollection collect(LocalDate startDate, LocalDate endDate) throws ApiClientException {
+        log.info("Collecting usage and spending data from Claude Code: {} to {}", startDate, endDate);
+
+        UsageRecordBatch usageRecords = new UsageRecordBatch();
+        List<UnifiedSpendingRecord> spendingRecords = new ArrayList<>();
+
+        await(claudeApiClient.streamClaudeCodeUsageReport(startDate, endDate)
+                .doOnNext(record -> {
+                    usageRecords.add(convertClaudeCodeToUsageRecord(record));
+                    UnifiedSpendingRecord spendingRecord = convertClaudeCodeToSpendingRecord(record);
+                    if (spendingRecord != null) {
+                        spendingRecords.add(spendingRecord);
+                    }
+                })
+                .then());
+
+        log.info("Converted Claude Code records to {} usage and {} spending records",
+                usageRecords.size(), spendingRecords.size());
+        return new UsageCollection(usageRecords, spendingRecords);
+    }
+
+    /**
+     * Blocks until the stream completes and returns its records, unwrapping API failures.
+     */
+    private static <T> List<T> collect(Flux<T> records) throws ApiClientException {
+        List<T> result = await(records.collectList());
+        return result != null ? result : List.of();
+    }
+
+    /**
+     * Blocks until the publisher completes, unwrapping API failures.
+     */
+    private static <T> T await(Mono<T> publisher) throws ApiClientException {
+        try {
+            return publisher.block();
+        } catch (RuntimeException e) {
+            Throwable cause = Exceptions.unwrap(e);
+            if (cause instanceof ApiClientException apiClientException) {
+                throw apiClientException;
+            }
+            throw e;
+        }
+    }
+
     @Override
     public ToolType getToolType() {
         return ToolType.CLAUDE;
@@ -140,22 +183,6 @@ public class ClaudeUsageDataCollector implements UsageDataCollector {
             }
         }
 
-        Map<String, Object> rawMetadata = new HashMap<>();
-        rawMetadata.put("organization_id", record.organizationId());
-        rawMetadata.put("actor", record.actor());
-        rawMetadata.put("customer_type", record.customerType());
-        rawMetadata.put("terminal_type", record.terminalType());
-        rawMetadata.put("subscription_type", record.subscriptionType());
-        if (record.coreMetrics() != null) {
-            rawMetadata.put("commits_by_claude_code", record.coreMetrics().commitsByClaudeCode());
-            rawMetadata.put("num_sessions", record.coreMetrics().numSessions());
-            rawMetadata.put("pull_requests_by_claude_code", record.coreMetrics().pullRequestsByClaudeCode());
-            if (record.coreMetrics().linesOfCode() != null) {
-                rawMetadata.put("lines_added", record.coreMetrics().linesOfCode().added());
-                rawMetadata.put("lines_removed", record.coreMetrics().linesOfCode().removed());
-            }
-        }
-
         return new UnifiedUsageRecord(
                 email,
                 ToolType.CLAUDE,
@@ -166,7 +193,7 @@ public class ClaudeUsageDataCollector implements UsageDataCollector {
                 null, // linesSuggested - not applicable for Claude Code
                 null, // linesAccepted - not applicable for Claude Code
                 null, // acceptanceRate - not applicable for Claude Code
-                rawMetadata
+                new ClaudeUsageMetadata(record) // read from the record only if exported
         );
     }
 
@@ -218,19 +245,13 @@ public class ClaudeUsageDataCollector implements UsageDataCollector {
             return null;
         }
 
-        Map<String, Object> rawMetadata = new HashMap<>();
-        rawMetadata.put("organization_id", record.organizationId());
-        rawMetadata.put("actor", record.actor());
-        rawMetadata.put("customer_type", record.customerType());
-        rawMetadata.put("model_breakdown", record.modelBreakdown());
-
         return new UnifiedSpendingRecord(
                 email,
                 ToolType.CLAUDE,
                 period,
                 totalCost,
                 "USD",
-                rawMetadata
+                new ClaudeCostMetadata(record)
         );
     }
 }
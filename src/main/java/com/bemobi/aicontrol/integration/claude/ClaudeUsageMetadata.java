@@ -0,0 +1,70 @@
+package com.bemobi.aicontrol.integration.claude;
+
+import com.bemobi.aicontrol.integration.claude.dto.ClaudeCodeActor;
+import com.bemobi.aicontrol.integration.claude.dto.ClaudeCodeCoreMetrics;
+import com.bemobi.aicontrol.integration.claude.dto.ClaudeCodeRecord;
+import com.bemobi.aicontrol.integration.common.ToolMetadata;
+
+import java.util.List;
+
+/**
+ * Raw metadata of a Claude Code usage record, read from the report fields on demand.
+ *
+ * <p>Keeps references to the fields it exposes, not to the whole record, so the model breakdown
+ * and tool actions are not retained with the usage records.</p>
+ */
+final class ClaudeUsageMetadata extends ToolMetadata {
+
+    private static final List<String> BASE_KEYS = List.of(
+        "organization_id", "actor", "customer_type", "terminal_type", "subscription_type");
+
+    private static final List<String> CORE_KEYS = List.of(
+        "organization_id", "actor", "customer_type", "terminal_type", "subscription_type",
+        "commits_by_claude_code", "num_sessions", "pull_requests_by_claude_code");
+
+    private static final List<String> ALL_KEYS = List.of(
+        "organization_id", "actor", "customer_type", "terminal_type", "subscription_type",
+        "commits_by_claude_code", "num_sessions", "pull_requests_by_claude_code",
+        "lines_added", "lines_removed");
+
+    private final String organizationId;
+    private final ClaudeCodeActor actor;
+    private final String customerType;
+    private final String terminalType;
+    private final String subscriptionType;
+    private final ClaudeCodeCoreMetrics coreMetrics;
+
+    ClaudeUsageMetadata(ClaudeCodeRecord record) {
+        this.organizationId = record.organizationId();
+        this.actor = record.actor();
+        this.customerType = record.customerType();
+        this.terminalType = record.terminalType();
+        this.subscriptionType = record.subscriptionType();
+        this.coreMetrics = record.coreMetrics();
+    }
+
+    @Override
+    protected List<String> keys() {
+        if (coreMetrics == null) {
+            return BASE_KEYS;
+        }
+        return coreMetrics.linesOfCode() == null ? CORE_KEYS : ALL_KEYS;
+    }
+
+    @Override
+    protected Object value(String key) {
+        return switch (key) {
+            case "organization_id" -> organizationId;
+            case "actor" -> actor;
+            case "customer_type" -> customerType;
+            case "terminal_type" -> terminalType;
+            case "subscription_type" -> subscriptionType;
+            case "commits_by_claude_code" -> coreMetrics.commitsByClaudeCode();
+            case "num_sessions" -> coreMetrics.numSessions();
+            case "pull_requests_by_claude_code" -> coreMetrics.pullRequestsByClaudeCode();
+            case "lines_added" -> coreMetrics.linesOfCode().added();
+            case "lines_removed" -> coreMetrics.linesOfCode().removed();
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,250 @@
+package com.bemobi.aicontrol.integration.common;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache com carregamento assíncrono, coalescência por chave e tamanho limitado.
+ *
+ * <p>Cada entrada é um {@link CompletableFuture}. A primeira chamada que pede uma chave
+ * ausente registra o futuro e faz o carregamento fora de qualquer lock: {@link #get} carrega na
+ * própria thread (que ficaria bloqueada esperando de qualquer forma) e {@link #getAsync} agenda
+ * no {@code executor}. As demais chamadas para a mesma chave recebem esse futuro, sem disparar
+ * uma segunda chamada (single-flight). Chaves diferentes carregam em paralelo.</p>
+ *
+ * <p>As entradas ficam em um {@code LinkedHashMap} em ordem de inserção, protegido pelo lock do
+ * cache. Ao exceder {@code maximumSize}, as entradas concluídas mais antigas são descartadas;
+ * entradas ainda em carregamento nunca são descartadas, para não quebrar o single-flight.
+ * Carregamentos que lançam exceção não são armazenados: a próxima chamada tenta novamente
+ * e a entrada recriada entra no fim da ordem.</p>
+ *
+ * @param <K> tipo da chave
+ * @param <V> tipo do valor (não nulo)
+ */
+public final class AsyncLoadingCache<K, V> {
+
+    private final Function<K, V> loader;
+    private final int maximumSize;
+    private final Executor executor;
+
+    /**
+     * Entradas em ordem de inserção; acesso sempre sob {@code synchronized (this)}.
+     */
+    private final LinkedHashMap<K, CompletableFuture<V>> entries = new LinkedHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong totalLoadTimeNanos = new AtomicLong();
+
+    /**
+     * @param loader função de carregamento; exceções contam como falha e não são armazenadas
+     * @param maximumSize número máximo de entradas mantidas
+     * @param executor onde rodam os carregamentos de {@link #getAsync} (o MDC da chamada que causou
+     *                 o miss é propagado)
+     */
+    public AsyncLoadingCache(Function<K, V> loader, int maximumSize, Executor executor) {
+        this.loader = loader;
+        this.maximumSize = Math.max(1, maximumSize);
+        this.executor = executor;
+    }
+
+    /**
+     * Retorna o valor da chave, carregando-o se necessário, e aguarda o resultado.
+     *
+     * <p>Um miss é carregado na thread chamadora, sem ocupar uma thread do {@code executor}.
+     * Se outra chamada já estiver carregando a mesma chave, aguarda o resultado dela.</p>
+     *
+     * @param key chave
+     * @return valor carregado ou em cache
+     * @throws CompletionException se o carregamento falhar
+     */
+    public V get(K key) {
+        CompletableFuture<V> existing;
+        CompletableFuture<V> created = null;
+        synchronized (this) {
+            existing = entries.get(key);
+            if (existing == null) {
+                created = register(key);
+            }
+        }
+
+        // A espera fica fora do lock: fail() precisa dele, e as demais chaves não aguardam esta
+        if (existing != null) {
+            hits.incrementAndGet();
+            return existing.join();
+        }
+        misses.incrementAndGet();
+        load(key, created, loader);
+        return created.join();
+    }
+
+    /**
+     * Retorna o futuro do valor da chave, agendando o carregamento se a chave estiver ausente.
+     *
+     * <p>Retorna sem esperar o carregamento; chamadas concorrentes para a mesma chave recebem o
+     * mesmo futuro.</p>
+     *
+     * @param key chave
+     * @return futuro do valor
+     */
+    public CompletableFuture<V> getAsync(K key) {
+        CompletableFuture<V> created;
+        synchronized (this) {
+            CompletableFuture<V> existing = entries.get(key);
+            if (existing != null) {
+                hits.incrementAndGet();
+                return existing;
+            }
+            created = register(key);
+        }
+
+        misses.incrementAndGet();
+        Function<K, V> task = MdcPropagation.wrap(loader);
+        try {
+            executor.execute(() -> load(key, created, task));
+        } catch (RuntimeException e) {
+            // Executor recusou a tarefa: falha como um carregamento
+            fail(key, created, e);
+        }
+        return created;
+    }
+
+    /**
+     * Retorna o valor da chave se já estiver carregado, sem disparar carregamento.
+     *
+     * @param key chave
+     * @return valor, ou null se ausente, em carregamento ou com falha
+     */
+    public V getIfPresent(K key) {
+        CompletableFuture<V> future;
+        synchronized (this) {
+            future = entries.get(key);
+        }
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return null;
+        }
+        hits.incrementAndGet();
+        return future.join();
+    }
+
+    /**
+     * Armazena um valor obtido por outro caminho (por exemplo, uma consulta em lote).
+     *
+     * @param key chave
+     * @param value valor (não nulo)
+     */
+    public void put(K key, V value) {
+        CompletableFuture<V> previous;
+        synchronized (this) {
+            previous = entries.put(key, CompletableFuture.completedFuture(value));
+            evictIfNeeded();
+        }
+        if (previous != null && !previous.isDone()) {
+            // Quem aguardava o carregamento em andamento recebe o mesmo valor
+            previous.complete(value);
+        }
+    }
+
+    /**
+     * Remove todas as entradas. Carregamentos em andamento terminam, mas não são armazenados.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Retorna as estatísticas acumuladas desde a criação do cache.
+     *
+     * @return snapshot das estatísticas
+     */
+    public Stats stats() {
+        return new Stats(hits.get(), misses.get(), loadFailures.get(), evictions.get(),
+                totalLoadTimeNanos.get(), size());
+    }
+
+    /**
+     * Registra o futuro de uma chave ausente. Chamado sob o lock.
+     */
+    private CompletableFuture<V> register(K key) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        entries.put(key, created);
+        evictIfNeeded();
+        return created;
+    }
+
+    private void load(K key, CompletableFuture<V> future, Function<K, V> task) {
+        long start = System.nanoTime();
+        try {
+            V value = task.apply(key);
+            if (value == null) {
+                throw new IllegalStateException("Loader returned null for key " + key);
+            }
+            future.complete(value);
+        } catch (RuntimeException e) {
+            fail(key, future, e);
+        } finally {
+            totalLoadTimeNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    private void fail(K key, CompletableFuture<V> future, RuntimeException e) {
+        loadFailures.incrementAndGet();
+        synchronized (this) {
+            entries.remove(key, future);
+        }
+        future.completeExceptionally(e);
+    }
+
+    /**
+     * Descarta as entradas concluídas mais antigas até respeitar o limite. Chamado sob o lock.
+     */
+    private void evictIfNeeded() {
+        Iterator<CompletableFuture<V>> it = entries.values().iterator();
+        while (entries.size() > maximumSize && it.hasNext()) {
+            if (it.next().isDone()) {
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Estatísticas do cache.
+     *
+     * @param hits consultas atendidas por entradas existentes (inclusive em carregamento)
+     * @param misses consultas que dispararam carregamento
+     * @param loadFailures carregamentos que lançaram exceção
+     * @param evictions entradas descartadas pelo limite de tamanho
+     * @param totalLoadTimeNanos tempo total gasto em carregamentos
+     * @param size entradas atuais
+     */
+    public record Stats(long hits, long misses, long loadFailures, long evictions,
+                        long totalLoadTimeNanos, int size) {
+
+        /**
+         * @return fração das consultas atendidas pelo cache (0 sem consultas)
+         */
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+
+        /**
+         * @return tempo médio de carregamento em milissegundos (0 sem carregamentos)
+         */
+        public double averageLoadMillis() {
+            return misses == 0 ? 0.0 : totalLoadTimeNanos / 1_000_000.0 / misses;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.bemobi.aicontrol.integration.common;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * Propaga o MDC do SLF4J para tarefas executadas em outras threads.
+ *
+ * <p>Schedulers do Reactor e executors não herdam o MDC da thread que submeteu a tarefa.
+ * {@link #wrap(Callable)} captura o contexto no momento da chamada e o restaura
+ * durante a execução, preservando campos como {@code toolName} e {@code executionId} nos logs.</p>
+ */
+public final class MdcPropagation {
+
+    private MdcPropagation() {
+    }
+
+    /**
+     * Envolve a tarefa com o MDC atual da thread chamadora.
+     *
+     * @param task tarefa a executar em outra thread
+     * @return tarefa que restaura o MDC capturado durante a execução
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Map<String, String> captured = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            setContext(captured);
+            try {
+                return task.call();
+            } finally {
+                setContext(previous);
+            }
+        };
+    }
+
+    /**
+     * Envolve a função com o MDC atual da thread chamadora, para uso em operadores como
+     * {@code map} executados após um {@code publishOn}.
+     *
+     * @param function função a executar em outra thread
+     * @return função que restaura o MDC capturado durante cada aplicação
+     */
+    public static <T, R> Function<T, R> wrap(Function<T, R> function) {
+        Map<String, String> captured = MDC.getCopyOfContextMap();
+        return value -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            setContext(captured);
+            try {
+                return function.apply(value);
+            } finally {
+                setContext(previous);
+            }
+        };
+    }
+
+    private static void setContext(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.bemobi.aicontrol.integration.common;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Payload bruto de um elemento da resposta de uma API, guardado como referência aos bytes originais.
+ *
+ * <p>Em vez de re-serializar cada DTO para uma {@code String} na coleta, o payload aponta para o
+ * trecho (offset e tamanho) do corpo da resposta onde o elemento está; todos os elementos de uma
+ * resposta compartilham o mesmo buffer. O JSON só é decodificado quando alguém o pede via
+ * {@link #json()}, como a serialização do record store ou um debug.</p>
+ *
+ * <p>Fontes que não têm um JSON de origem (o export CSV do Cursor) usam {@link #deferred(Supplier)},
+ * que adia a geração do JSON para o mesmo momento.</p>
+ */
+public final class RawPayload {
+
+    private final byte[] buffer;
+    private final int offset;
+    private final int length;
+    private final Supplier<String> source;
+
+    private RawPayload(byte[] buffer, int offset, int length, Supplier<String> source) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        this.source = source;
+    }
+
+    /**
+     * Referencia um trecho de um buffer UTF-8, sem copiá-lo.
+     *
+     * @param buffer corpo da resposta; não deve ser alterado depois
+     * @param offset início do elemento no buffer
+     * @param length tamanho do elemento em bytes
+     * @return payload apontando para o trecho
+     */
+    public static RawPayload slice(byte[] buffer, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, buffer.length);
+        return new RawPayload(buffer, offset, length, null);
+    }
+
+    /**
+     * Payload a partir de um JSON já em memória (ex: lido do record store).
+     *
+     * @param json JSON do elemento
+     * @return payload, ou null se o JSON for null
+     */
+    @JsonCreator
+    public static RawPayload ofJson(String json) {
+        if (json == null) {
+            return null;
+        }
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return new RawPayload(bytes, 0, bytes.length, null);
+    }
+
+    /**
+     * Payload gerado sob demanda, para fontes sem JSON de origem.
+     *
+     * @param source gera o JSON a cada chamada de {@link #json()}; pode retornar null
+     * @return payload que delega ao gerador
+     */
+    public static RawPayload deferred(Supplier<String> source) {
+        return new RawPayload(null, 0, 0, Objects.requireNonNull(source));
+    }
+
+    /**
+     * Decodifica o JSON do elemento. Não é cacheado: cada chamada gera uma nova {@code String}.
+     *
+     * @return JSON do elemento
+     */
+    @JsonValue
+    public String json() {
+        if (source != null) {
+            return source.get();
+        }
+        return new String(buffer, offset, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof RawPayload other && Objects.equals(json(), other.json()));
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(json());
+    }
+
+    @Override
+    public String toString() {
+        return json();
+    }
+}
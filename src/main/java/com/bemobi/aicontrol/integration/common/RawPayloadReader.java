@@ -0,0 +1,77 @@
+package com.bemobi.aicontrol.integration.common;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lê um array de objetos de um corpo JSON guardando, junto de cada DTO, o trecho de bytes de origem.
+ *
+ * <p>O corpo é percorrido uma única vez: cada elemento do array é convertido no DTO direto do
+ * parser e o seu intervalo de bytes vira um {@link RawPayload} que aponta para o próprio corpo,
+ * sem re-serialização nem cópia.</p>
+ */
+public final class RawPayloadReader {
+
+    private RawPayloadReader() {
+    }
+
+    /**
+     * Elemento do array com o seu payload bruto.
+     *
+     * @param value DTO do elemento
+     * @param raw trecho do corpo com o JSON original do elemento
+     */
+    public record Element<T>(T value, RawPayload raw) {
+    }
+
+    /**
+     * Lê o array de um campo de primeiro nível do corpo.
+     *
+     * @param objectMapper mapper usado para converter os elementos
+     * @param body corpo da resposta em UTF-8; é retido pelos payloads e não deve ser alterado
+     * @param arrayField nome do campo com o array (ex: "data")
+     * @param type tipo do DTO de cada elemento
+     * @return elementos na ordem do array, ou null se o corpo for vazio ou o campo ausente/null
+     * @throws IOException se o corpo não for um JSON válido ou um elemento não puder ser convertido
+     */
+    public static <T> List<Element<T>> readArray(ObjectMapper objectMapper, byte[] body, String arrayField,
+                                                 Class<T> type) throws IOException {
+        if (body == null || body.length == 0) {
+            return null;
+        }
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!arrayField.equals(field) || value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                return readElements(objectMapper, parser, body, type);
+            }
+            return null;
+        }
+    }
+
+    private static <T> List<Element<T>> readElements(ObjectMapper objectMapper, JsonParser parser, byte[] body,
+                                                     Class<T> type) throws IOException {
+        List<Element<T>> elements = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            int start = (int) parser.currentTokenLocation().getByteOffset();
+            T value = objectMapper.readValue(parser, type);
+            int end = (int) parser.currentLocation().getByteOffset();
+            elements.add(new Element<>(value, RawPayload.slice(body, start, end - start)));
+        }
+        return elements;
+    }
+}
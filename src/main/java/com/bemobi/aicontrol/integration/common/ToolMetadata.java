@@ -0,0 +1,85 @@
+package com.bemobi.aicontrol.integration.common;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Metadata tipado de uma ferramenta, exposto como {@code Map} imutável e materializado sob demanda.
+ *
+ * <p>Cada ferramenta implementa uma subclasse que guarda uma referência ao DTO de origem e sabe
+ * derivar o valor de cada chave dele. Na ingestão nenhum mapa é criado e nenhum valor é
+ * convertido: {@link #get(Object)}, {@link #containsKey(Object)} e {@link #size()} consultam o DTO
+ * diretamente. O {@code LinkedHashMap} com todas as entradas só é montado (uma vez) quando alguém
+ * itera o mapa, como as abas de dados brutos do XLSX ou a serialização do record store.</p>
+ *
+ * <p>Por ser imutável, os construtores de {@link UnifiedUsageRecord}, {@link UnifiedSpendingRecord}
+ * e {@link UserData} o aceitam sem cópia defensiva.</p>
+ */
+public abstract class ToolMetadata extends AbstractMap<String, Object> {
+
+    private volatile Map<String, Object> materialized;
+
+    /**
+     * Chaves presentes neste metadata, na ordem de exibição.
+     *
+     * <p>Implementações devem retornar listas constantes (compartilhadas entre instâncias).</p>
+     *
+     * @return chaves presentes
+     */
+    protected abstract List<String> keys();
+
+    /**
+     * Valor de uma chave, derivado do DTO de origem.
+     *
+     * @param key chave presente em {@link #keys()}
+     * @return valor (pode ser null mesmo com a chave presente)
+     */
+    protected abstract Object value(String key);
+
+    @Override
+    public Object get(Object key) {
+        return containsKey(key) ? value((String) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String name && keys().contains(name);
+    }
+
+    @Override
+    public int size() {
+        return keys().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return keys().isEmpty();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return materialize().entrySet();
+    }
+
+    /**
+     * Monta (na primeira chamada) o mapa com todas as entradas, na ordem de {@link #keys()}.
+     *
+     * @return mapa imutável com as entradas
+     */
+    public Map<String, Object> materialize() {
+        Map<String, Object> map = materialized;
+        if (map == null) {
+            Map<String, Object> entries = new LinkedHashMap<>();
+            for (String key : keys()) {
+                entries.put(key, value(key));
+            }
+            map = Collections.unmodifiableMap(entries);
+            materialized = map;
+        }
+        return map;
+    }
+}
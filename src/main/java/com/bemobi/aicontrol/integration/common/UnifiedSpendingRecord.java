@@ -23,6 +23,7 @@ import java.util.Map;
  * @param costUsd custo em dólares americanos
  * @param currency moeda original (default: "USD")
  * @param rawMetadata detalhes adicionais específicos da ferramenta — imutável após construção
+ *                    ({@link ToolMetadata} sem cópia)
  */
 public record UnifiedSpendingRecord(
         String email,
@@ -34,8 +35,11 @@ public record UnifiedSpendingRecord(
 ) {
     public UnifiedSpendingRecord {
         currency = currency == null ? "USD" : currency;
-        rawMetadata = rawMetadata == null
-                ? Map.of()
-                : Collections.unmodifiableMap(new HashMap<>(rawMetadata));
+        // ToolMetadata já é imutável e é mantido sem cópia
+        if (rawMetadata == null) {
+            rawMetadata = Map.of();
+        } else if (!(rawMetadata instanceof ToolMetadata)) {
+            rawMetadata = Collections.unmodifiableMap(new HashMap<>(rawMetadata));
+        }
     }
 }
@@ -27,6 +27,7 @@ import java.util.Map;
  * @param linesAccepted linhas de código aceitas (nullable)
  * @param acceptanceRate taxa de aceitação 0.0-1.0 (nullable, calculada quando possível)
  * @param rawMetadata campos específicos da ferramenta — imutável após construção
+ *                    ({@link ToolMetadata} sem cópia)
  */
 public record UnifiedUsageRecord(
         String email,
@@ -41,8 +42,11 @@ public record UnifiedUsageRecord(
         Map<String, Object> rawMetadata
 ) {
     public UnifiedUsageRecord {
-        rawMetadata = rawMetadata == null
-                ? Map.of()
-                : Collections.unmodifiableMap(new HashMap<>(rawMetadata));
+        // ToolMetadata já é imutável e é mantido sem cópia
+        if (rawMetadata == null) {
+            rawMetadata = Map.of();
+        } else if (!(rawMetadata instanceof ToolMetadata)) {
+            rawMetadata = Collections.unmodifiableMap(new HashMap<>(rawMetadata));
+        }
     }
 }
@@ -0,0 +1,62 @@
+package com.bemobi.aicontrol.integration.common;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Resultado da coleta combinada de uso e spending de uma ferramenta no período.
+ *
+ * <p>Uma coleta pode ser parcial: {@code failedDays} lista os dias cujo uso não pôde ser buscado
+ * e {@code spendingFailed} indica que o spending do período falhou. Esses dados não existem na
+ * coleta (não são "dias sem uso") e o armazenamento não deve substituir o que tinha para eles.</p>
+ *
+ * @param usageRecords registros unificados de uso
+ * @param spendingRecords registros unificados de spending
+ * @param failedDays dias do período cujo uso não foi coletado, em ordem
+ * @param spendingFailed true se a coleta de spending do período falhou
+ */
+public record UsageCollection(
+        List<UnifiedUsageRecord> usageRecords,
+        List<UnifiedSpendingRecord> spendingRecords,
+        Set<LocalDate> failedDays,
+        boolean spendingFailed
+) {
+    public UsageCollection {
+        usageRecords = usageRecords == null ? List.of() : usageRecords;
+        spendingRecords = spendingRecords == null ? List.of() : spendingRecords;
+        failedDays = failedDays == null || failedDays.isEmpty()
+            ? Set.of()
+            : Collections.unmodifiableSortedSet(new TreeSet<>(failedDays));
+    }
+
+    /**
+     * Coleta completa, em que todos os dias e o spending foram buscados.
+     *
+     * @param usageRecords registros unificados de uso
+     * @param spendingRecords registros unificados de spending
+     */
+    public UsageCollection(List<UnifiedUsageRecord> usageRecords, List<UnifiedSpendingRecord> spendingRecords) {
+        this(usageRecords, spendingRecords, Set.of(), false);
+    }
+
+    /**
+     * Coleta vazia, usada quando a ferramenta falha ou excede o prazo.
+     *
+     * @return coleta sem registros
+     */
+    public static UsageCollection empty() {
+        return new UsageCollection(List.of(), List.of());
+    }
+
+    /**
+     * Indica se todos os dias e o spending do período foram coletados.
+     *
+     * @return true se não houve falha parcial
+     */
+    public boolean complete() {
+        return failedDays.isEmpty() && !spendingFailed;
+    }
+}
@@ -1,7 +1,16 @@
 package com.bemobi.aicontrol.integration.common;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 /**
  * Interface base para coleta de dados de usage e spending de ferramentas de IA.
@@ -27,6 +36,25 @@ public interface UsageDataCollector {
     List<UnifiedUsageRecord> collectUsageData(LocalDate startDate, LocalDate endDate)
         throws ApiClientException;
 
+    /**
+     * Coleta apenas os registros diários reais de uso no período, sem snapshots de fallback.
+     *
+     * <p>Usado pelo backfill histórico, que grava cada dia no armazenamento local: um snapshot
+     * atual datado no passado seria um dado incorreto. Ferramentas que buscam dia a dia reportam
+     * em {@link UsageCollection#failedDays()} os dias que falharam, para que não sejam gravados
+     * como dias sem uso. A implementação padrão delega para {@link #collectUsageData}, que busca
+     * o período inteiro de uma vez.</p>
+     *
+     * @param startDate data inicial (inclusive)
+     * @param endDate data final (inclusive)
+     * @return registros de uso e dias que falharam (sem spending)
+     * @throws ApiClientException em caso de erro na comunicação
+     */
+    default UsageCollection collectDailyUsage(LocalDate startDate, LocalDate endDate)
+        throws ApiClientException {
+        return new UsageCollection(collectUsageData(startDate, endDate), List.of());
+    }
+
     /**
      * Coleta dados de spending/custo no período especificado.
      *
@@ -38,6 +66,100 @@ public interface UsageDataCollector {
     List<UnifiedSpendingRecord> collectSpendingData(LocalDate startDate, LocalDate endDate)
         throws ApiClientException;
 
+    /**
+     * Coleta uso e spending do período em uma única operação.
+     *
+     * <p>A implementação padrão busca {@link #collectSpendingData} em paralelo (no scheduler
+     * bounded elastic, com o MDC propagado) enquanto {@link #collectUsageData} roda na thread
+     * atual. As duas buscas são isoladas: se uma falhar (com qualquer exceção), os registros da
+     * outra ainda são retornados e a coleta é marcada como parcial (todos os dias em
+     * {@link UsageCollection#failedDays()}, ou {@link UsageCollection#spendingFailed()}); a
+     * exceção só é propagada se ambas falharem. Se a thread for interrompida (por exemplo, pelo
+     * prazo do coletor) ou a coleta terminar com erro, a busca de spending é cancelada. Ferramentas cujo uso e spending
+     * vêm do mesmo payload devem sobrescrever este método para buscar e decodificar cada
+     * resposta uma única vez.</p>
+     *
+     * @param startDate data inicial (inclusive)
+     * @param endDate data final (inclusive)
+     * @return registros de uso e de spending do período, com o que falhou
+     * @throws ApiClientException se a coleta de uso e a de spending falharem
+     */
+    default UsageCollection collect(LocalDate startDate, LocalDate endDate) throws ApiClientException {
+        Logger log = LoggerFactory.getLogger(getClass());
+        String toolId = getToolType().getId();
+
+        CompletableFuture<List<UnifiedSpendingRecord>> spendingFuture =
+            Mono.fromCallable(MdcPropagation.wrap(() -> collectSpendingData(startDate, endDate)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .toFuture();
+
+        try {
+            List<UnifiedUsageRecord> usageRecords;
+            Set<LocalDate> failedDays = Set.of();
+            Exception usageError = null;
+            try {
+                usageRecords = collectUsageData(startDate, endDate);
+            } catch (ApiClientException | RuntimeException e) {
+                log.warn("Falha ao coletar uso de {}: {}", toolId, e.getMessage());
+                usageRecords = List.of();
+                failedDays = startDate.datesUntil(endDate.plusDays(1)).collect(Collectors.toSet());
+                usageError = e;
+            }
+
+            List<UnifiedSpendingRecord> spendingRecords;
+            boolean spendingFailed = false;
+            try {
+                // get(), ao contrário de join(), responde à interrupção do prazo do coletor
+                spendingRecords = spendingFuture.get();
+            } catch (ExecutionException e) {
+                if (usageError instanceof ApiClientException apiClientException) {
+                    throw apiClientException;
+                } else if (usageError != null) {
+                    throw (RuntimeException) usageError;
+                }
+                log.warn("Falha ao coletar spending de {}: {}", toolId, e.getCause().getMessage());
+                spendingRecords = List.of();
+                spendingFailed = true;
+            }
+
+            return new UsageCollection(usageRecords, spendingRecords, failedDays, spendingFailed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiClientException("Coleta de " + toolId + " interrompida", e);
+        } finally {
+            // Sem efeito se o spending já terminou; senão a busca não fica rodando sem ninguém esperar
+            spendingFuture.cancel(true);
+        }
+    }
+
+    /**
+     * Coleta uso e spending do período como {@link #collect}, mas sem snapshots de fallback.
+     *
+     * <p>Usado quando cada dia coletado é gravado no armazenamento local (coleta incremental e
+     * backfill). A implementação padrão delega para {@link #collect}; ferramentas cujo
+     * {@code collect} completa o período com snapshots devem sobrescrever este método.</p>
+     *
+     * @param startDate data inicial (inclusive)
+     * @param endDate data final (inclusive)
+     * @return registros diários de uso e de spending do período, com o que falhou
+     * @throws ApiClientException em caso de erro na comunicação
+     */
+    default UsageCollection collectDaily(LocalDate startDate, LocalDate endDate) throws ApiClientException {
+        return collect(startDate, endDate);
+    }
+
+    /**
+     * Indica se os registros de spending têm granularidade diária (period {@code yyyy-MM-dd}).
+     *
+     * <p>A coleta incremental só reaproveita spending armazenado por dia quando este método retorna
+     * {@code true}; caso contrário o spending é sempre buscado para o período completo.</p>
+     *
+     * @return true se cada registro de spending se refere a um único dia
+     */
+    default boolean reportsDailySpending() {
+        return true;
+    }
+
     /**
      * Nome identificador da ferramenta.
      * @return tool type (CLAUDE, GITHUB_COPILOT, CURSOR)
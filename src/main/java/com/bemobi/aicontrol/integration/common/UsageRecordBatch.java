@@ -0,0 +1,532 @@
+package com.bemobi.aicontrol.integration.common;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.IntPredicate;
+import java.util.stream.Collector;
+
+/**
+ * Lote colunar de registros de uso.
+ *
+ * <p>Armazena os registros de {@link UnifiedUsageRecord} por coluna: métricas em arrays
+ * primitivos com um bitmap de presença por coluna anulável, emails codificados em dicionário
+ * ({@code int} por linha), ferramenta como ordinal ({@code byte}) e data como epoch-day
+ * ({@code int}). Um ano de registros diários deixa de ser um objeto por linha com métricas
+ * boxed e um {@link LocalDate} por linha, e as agregações viram laços sobre arrays.</p>
+ *
+ * <p>O metadata não é mantido por referência, o que prenderia na memória o {@link ToolMetadata}
+ * e o DTO de origem de cada linha: na inserção seus valores são copiados para um array por linha,
+ * com a lista de chaves compartilhada entre as linhas de mesmo formato e valores iguais (login,
+ * data, organização, contagens) reduzidos a uma instância por lote. {@link #rawMetadata(int)}
+ * devolve uma visão imutável sobre esse array.</p>
+ *
+ * <p>É também uma {@link List} de {@link UnifiedUsageRecord}: {@link #get(int)} materializa o
+ * registro da linha, de modo que código que só conhece a lista continua funcionando. Os coletores
+ * ainda criam um {@link UnifiedUsageRecord} transitório por linha antes de {@link #add}; ele não
+ * é retido. Não é thread-safe; cada coletor preenche o seu lote em uma única thread.</p>
+ */
+public final class UsageRecordBatch extends AbstractList<UnifiedUsageRecord> implements RandomAccess {
+
+    private static final ToolType[] TOOLS = ToolType.values();
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private final Map<String, Integer> emailIds = new HashMap<>();
+    private final List<String> dictionary = new ArrayList<>();
+
+    // Formatos de metadata (listas de chaves); o id 0 é o metadata vazio
+    private final Map<List<String>, Integer> shapeIds = new HashMap<>();
+    private final List<List<String>> shapes = new ArrayList<>(List.of(List.of()));
+
+    // Uma instância por valor de metadata distinto do lote
+    private final Map<Object, Object> metadataValues = new HashMap<>();
+
+    private int size;
+    private int[] emails;
+    private byte[] tools;
+    private int[] epochDays;
+    private long[] inputTokens;
+    private long[] outputTokens;
+    private long[] cacheReadTokens;
+    private int[] linesSuggested;
+    private int[] linesAccepted;
+    private double[] acceptanceRates;
+    private int[] metadataShapes;
+    private Object[][] metadata;
+
+    private final BitSet hasInputTokens = new BitSet();
+    private final BitSet hasOutputTokens = new BitSet();
+    private final BitSet hasCacheReadTokens = new BitSet();
+    private final BitSet hasLinesSuggested = new BitSet();
+    private final BitSet hasLinesAccepted = new BitSet();
+    private final BitSet hasAcceptanceRate = new BitSet();
+
+    public UsageRecordBatch() {
+        this(16);
+    }
+
+    /**
+     * @param capacity número de linhas pré-alocadas
+     */
+    public UsageRecordBatch(int capacity) {
+        allocate(Math.max(1, capacity));
+    }
+
+    /**
+     * Retorna a própria lista se já for um lote, ou uma cópia colunar dela.
+     *
+     * @param records registros de uso
+     * @return lote com os registros
+     */
+    public static UsageRecordBatch of(Collection<UnifiedUsageRecord> records) {
+        if (records instanceof UsageRecordBatch batch) {
+            return batch;
+        }
+        UsageRecordBatch batch = new UsageRecordBatch(records.size());
+        batch.addAll(records);
+        return batch;
+    }
+
+    /**
+     * Collector que acumula um stream de registros em um lote.
+     *
+     * @return collector para {@code stream.collect(...)}
+     */
+    public static Collector<UnifiedUsageRecord, ?, UsageRecordBatch> toBatch() {
+        return Collector.of(UsageRecordBatch::new, UsageRecordBatch::add, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+    }
+
+    @Override
+    public boolean add(UnifiedUsageRecord record) {
+        ensureCapacity(size + 1);
+        write(size++, record);
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Adiciona os registros; outro lote é copiado coluna a coluna, sem materializar registros.
+     */
+    @Override
+    public boolean addAll(Collection<? extends UnifiedUsageRecord> records) {
+        if (!(records instanceof UsageRecordBatch other)) {
+            ensureCapacity(size + records.size());
+            for (UnifiedUsageRecord record : records) {
+                write(size++, record);
+            }
+            modCount++;
+            return !records.isEmpty();
+        }
+
+        int count = other.size;
+        ensureCapacity(size + count);
+        int[] remap = new int[other.dictionary.size()];
+        Arrays.fill(remap, -1);
+        for (int row = 0; row < count; row++) {
+            int source = other.emails[row];
+            if (remap[source] < 0) {
+                remap[source] = intern(other.dictionary.get(source));
+            }
+            copyRow(other, row, size + row, remap[source]);
+            // Os valores passam a usar as instâncias deste lote
+            metadata[size + row] = internValues(other.metadata[row]);
+        }
+        size += count;
+        modCount++;
+        return count > 0;
+    }
+
+    @Override
+    public UnifiedUsageRecord get(int row) {
+        Map<String, Object> rawMetadata = rawMetadata(row);
+        return new UnifiedUsageRecord(
+                email(row),
+                tool(row),
+                date(row),
+                hasInputTokens(row) ? inputTokens[row] : null,
+                hasOutputTokens(row) ? outputTokens[row] : null,
+                hasCacheReadTokens(row) ? cacheReadTokens[row] : null,
+                hasLinesSuggested(row) ? linesSuggested[row] : null,
+                hasLinesAccepted(row) ? linesAccepted[row] : null,
+                hasAcceptanceRate(row) ? acceptanceRates[row] : null,
+                rawMetadata
+        );
+    }
+
+    @Override
+    public UnifiedUsageRecord set(int row, UnifiedUsageRecord record) {
+        UnifiedUsageRecord previous = get(row);
+        write(row, record);
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Ordena as linhas por data (estável, registros sem data primeiro), permutando as colunas
+     * sem materializar registros.
+     */
+    public void sortByDate() {
+        // epoch-day nos 32 bits altos e linha nos baixos: ordena por data e, no empate, pela linha
+        long[] keys = new long[size];
+        for (int row = 0; row < size; row++) {
+            keys[row] = (long) epochDays[row] << 32 | row;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = (int) keys[i];
+        }
+        permute(order);
+        modCount++;
+    }
+
+    /**
+     * Novo lote com as linhas que satisfazem o predicado, na ordem original.
+     *
+     * @param rowFilter predicado sobre o índice da linha
+     * @return lote com as linhas selecionadas
+     */
+    public UsageRecordBatch select(IntPredicate rowFilter) {
+        UsageRecordBatch selected = new UsageRecordBatch();
+        for (int row = 0; row < size; row++) {
+            if (rowFilter.test(row)) {
+                selected.ensureCapacity(selected.size + 1);
+                selected.copyRow(this, row, selected.size++, selected.intern(dictionary.get(emails[row])));
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Id do email da linha no dicionário do lote (denso, a partir de 0).
+     */
+    public int emailId(int row) {
+        checkRow(row);
+        return emails[row];
+    }
+
+    /**
+     * Número de emails distintos no dicionário.
+     */
+    public int dictionarySize() {
+        return dictionary.size();
+    }
+
+    /**
+     * Email de um id do dicionário.
+     */
+    public String dictionaryEmail(int emailId) {
+        return dictionary.get(emailId);
+    }
+
+    public String email(int row) {
+        return dictionary.get(emailId(row));
+    }
+
+    public ToolType tool(int row) {
+        checkRow(row);
+        return TOOLS[tools[row]];
+    }
+
+    /**
+     * Data da linha como epoch-day, ou {@link Integer#MIN_VALUE} se o registro não tem data.
+     */
+    public int epochDay(int row) {
+        checkRow(row);
+        return epochDays[row];
+    }
+
+    public LocalDate date(int row) {
+        int epochDay = epochDay(row);
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    public boolean hasInputTokens(int row) {
+        return hasInputTokens.get(row);
+    }
+
+    /**
+     * Tokens de entrada da linha, ou 0 se ausente (ver {@link #hasInputTokens(int)}).
+     */
+    public long inputTokens(int row) {
+        checkRow(row);
+        return inputTokens[row];
+    }
+
+    public boolean hasOutputTokens(int row) {
+        return hasOutputTokens.get(row);
+    }
+
+    /**
+     * Tokens de saída da linha, ou 0 se ausente (ver {@link #hasOutputTokens(int)}).
+     */
+    public long outputTokens(int row) {
+        checkRow(row);
+        return outputTokens[row];
+    }
+
+    public boolean hasCacheReadTokens(int row) {
+        return hasCacheReadTokens.get(row);
+    }
+
+    /**
+     * Tokens de cache da linha, ou 0 se ausente (ver {@link #hasCacheReadTokens(int)}).
+     */
+    public long cacheReadTokens(int row) {
+        checkRow(row);
+        return cacheReadTokens[row];
+    }
+
+    public boolean hasLinesSuggested(int row) {
+        return hasLinesSuggested.get(row);
+    }
+
+    /**
+     * Linhas sugeridas, ou 0 se ausente (ver {@link #hasLinesSuggested(int)}).
+     */
+    public int linesSuggested(int row) {
+        checkRow(row);
+        return linesSuggested[row];
+    }
+
+    public boolean hasLinesAccepted(int row) {
+        return hasLinesAccepted.get(row);
+    }
+
+    /**
+     * Linhas aceitas, ou 0 se ausente (ver {@link #hasLinesAccepted(int)}).
+     */
+    public int linesAccepted(int row) {
+        checkRow(row);
+        return linesAccepted[row];
+    }
+
+    public boolean hasAcceptanceRate(int row) {
+        return hasAcceptanceRate.get(row);
+    }
+
+    /**
+     * Taxa de aceitação, ou 0.0 se ausente (ver {@link #hasAcceptanceRate(int)}).
+     */
+    public double acceptanceRate(int row) {
+        checkRow(row);
+        return acceptanceRates[row];
+    }
+
+    /**
+     * Metadata imutável da linha (mapa vazio se o registro não tinha), como uma visão sobre os
+     * valores guardados.
+     */
+    public Map<String, Object> rawMetadata(int row) {
+        checkRow(row);
+        return metadataShapes[row] == 0 ? Map.of() : new RowMetadata(shapes.get(metadataShapes[row]), metadata[row]);
+    }
+
+    private void write(int row, UnifiedUsageRecord record) {
+        emails[row] = intern(record.email());
+        tools[row] = (byte) record.tool().ordinal();
+        epochDays[row] = record.date() != null ? (int) record.date().toEpochDay() : NO_DATE;
+
+        inputTokens[row] = record.inputTokens() != null ? record.inputTokens() : 0L;
+        hasInputTokens.set(row, record.inputTokens() != null);
+        outputTokens[row] = record.outputTokens() != null ? record.outputTokens() : 0L;
+        hasOutputTokens.set(row, record.outputTokens() != null);
+        cacheReadTokens[row] = record.cacheReadTokens() != null ? record.cacheReadTokens() : 0L;
+        hasCacheReadTokens.set(row, record.cacheReadTokens() != null);
+        linesSuggested[row] = record.linesSuggested() != null ? record.linesSuggested() : 0;
+        hasLinesSuggested.set(row, record.linesSuggested() != null);
+        linesAccepted[row] = record.linesAccepted() != null ? record.linesAccepted() : 0;
+        hasLinesAccepted.set(row, record.linesAccepted() != null);
+        acceptanceRates[row] = record.acceptanceRate() != null ? record.acceptanceRate() : 0.0;
+        hasAcceptanceRate.set(row, record.acceptanceRate() != null);
+
+        writeMetadata(row, record.rawMetadata());
+    }
+
+    /**
+     * Copia os valores do metadata para a linha, sem reter o mapa (nem o DTO por trás dele).
+     */
+    private void writeMetadata(int row, Map<String, Object> rawMetadata) {
+        if (rawMetadata.isEmpty()) {
+            metadataShapes[row] = 0;
+            metadata[row] = null;
+            return;
+        }
+        List<String> keys = rawMetadata instanceof ToolMetadata toolMetadata
+            ? toolMetadata.keys()
+            : Collections.unmodifiableList(new ArrayList<>(rawMetadata.keySet()));
+        Object[] values = new Object[keys.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = internValue(rawMetadata.get(keys.get(i)));
+        }
+        metadataShapes[row] = shapeId(keys);
+        metadata[row] = values;
+    }
+
+    private Object[] internValues(Object[] values) {
+        if (values == null) {
+            return null;
+        }
+        Object[] interned = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            interned[i] = internValue(values[i]);
+        }
+        return interned;
+    }
+
+    private Object internValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        Object existing = metadataValues.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    private int shapeId(List<String> keys) {
+        Integer id = shapeIds.get(keys);
+        if (id == null) {
+            id = shapes.size();
+            shapeIds.put(keys, id);
+            shapes.add(keys);
+        }
+        return id;
+    }
+
+    private void copyRow(UsageRecordBatch source, int from, int to, int emailId) {
+        emails[to] = emailId;
+        tools[to] = source.tools[from];
+        epochDays[to] = source.epochDays[from];
+        inputTokens[to] = source.inputTokens[from];
+        hasInputTokens.set(to, source.hasInputTokens.get(from));
+        outputTokens[to] = source.outputTokens[from];
+        hasOutputTokens.set(to, source.hasOutputTokens.get(from));
+        cacheReadTokens[to] = source.cacheReadTokens[from];
+        hasCacheReadTokens.set(to, source.hasCacheReadTokens.get(from));
+        linesSuggested[to] = source.linesSuggested[from];
+        hasLinesSuggested.set(to, source.hasLinesSuggested.get(from));
+        linesAccepted[to] = source.linesAccepted[from];
+        hasLinesAccepted.set(to, source.hasLinesAccepted.get(from));
+        acceptanceRates[to] = source.acceptanceRates[from];
+        hasAcceptanceRate.set(to, source.hasAcceptanceRate.get(from));
+        int shape = source.metadataShapes[from];
+        metadataShapes[to] = source == this || shape == 0 ? shape : shapeId(source.shapes.get(shape));
+        metadata[to] = source.metadata[from];
+    }
+
+    private void permute(int[] order) {
+        UsageRecordBatch copy = new UsageRecordBatch(size);
+        for (int i = 0; i < size; i++) {
+            copy.copyRow(this, order[i], i, emails[order[i]]);
+        }
+        System.arraycopy(copy.emails, 0, emails, 0, size);
+        System.arraycopy(copy.tools, 0, tools, 0, size);
+        System.arraycopy(copy.epochDays, 0, epochDays, 0, size);
+        System.arraycopy(copy.inputTokens, 0, inputTokens, 0, size);
+        System.arraycopy(copy.outputTokens, 0, outputTokens, 0, size);
+        System.arraycopy(copy.cacheReadTokens, 0, cacheReadTokens, 0, size);
+        System.arraycopy(copy.linesSuggested, 0, linesSuggested, 0, size);
+        System.arraycopy(copy.linesAccepted, 0, linesAccepted, 0, size);
+        System.arraycopy(copy.acceptanceRates, 0, acceptanceRates, 0, size);
+        System.arraycopy(copy.metadataShapes, 0, metadataShapes, 0, size);
+        System.arraycopy(copy.metadata, 0, metadata, 0, size);
+        replace(hasInputTokens, copy.hasInputTokens);
+        replace(hasOutputTokens, copy.hasOutputTokens);
+        replace(hasCacheReadTokens, copy.hasCacheReadTokens);
+        replace(hasLinesSuggested, copy.hasLinesSuggested);
+        replace(hasLinesAccepted, copy.hasLinesAccepted);
+        replace(hasAcceptanceRate, copy.hasAcceptanceRate);
+    }
+
+    private static void replace(BitSet target, BitSet source) {
+        target.clear();
+        target.or(source);
+    }
+
+    private int intern(String email) {
+        Integer id = emailIds.get(email);
+        if (id == null) {
+            id = dictionary.size();
+            emailIds.put(email, id);
+            dictionary.add(email);
+        }
+        return id;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+        }
+    }
+
+    private void allocate(int capacity) {
+        emails = new int[capacity];
+        tools = new byte[capacity];
+        epochDays = new int[capacity];
+        inputTokens = new long[capacity];
+        outputTokens = new long[capacity];
+        cacheReadTokens = new long[capacity];
+        linesSuggested = new int[capacity];
+        linesAccepted = new int[capacity];
+        acceptanceRates = new double[capacity];
+        metadataShapes = new int[capacity];
+        metadata = new Object[capacity][];
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= emails.length) {
+            return;
+        }
+        int capacity = Math.max(required, emails.length + (emails.length >> 1));
+        emails = Arrays.copyOf(emails, capacity);
+        tools = Arrays.copyOf(tools, capacity);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        inputTokens = Arrays.copyOf(inputTokens, capacity);
+        outputTokens = Arrays.copyOf(outputTokens, capacity);
+        cacheReadTokens = Arrays.copyOf(cacheReadTokens, capacity);
+        linesSuggested = Arrays.copyOf(linesSuggested, capacity);
+        linesAccepted = Arrays.copyOf(linesAccepted, capacity);
+        acceptanceRates = Arrays.copyOf(acceptanceRates, capacity);
+        metadataShapes = Arrays.copyOf(metadataShapes, capacity);
+        metadata = Arrays.copyOf(metadata, capacity);
+    }
+
+    /**
+     * Visão imutável do metadata de uma linha: chaves do formato e valores na mesma ordem.
+     */
+    private static final class RowMetadata extends ToolMetadata {
+
+        private final List<String> keys;
+        private final Object[] values;
+
+        private RowMetadata(List<String> keys, Object[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        protected List<String> keys() {
+            return keys;
+        }
+
+        @Override
+        protected Object value(String key) {
+            int index = keys.indexOf(key);
+            return index < 0 ? null : values[index];
+        }
+    }
+}
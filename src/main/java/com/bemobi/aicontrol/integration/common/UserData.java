@@ -1,5 +1,7 @@
 package com.bemobi.aicontrol.integration.common;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.HashMap;
@@ -12,7 +14,9 @@ import java.util.Map;
  *
  * @param additionalMetrics métricas específicas por ferramenta — imutável após construção.
  *                          Chaves variam conforme a origem (ex: "role", "email_type", "github_login").
- * @param rawJson JSON bruto da resposta da API de origem, para debug/auditoria.
+ * @param rawPayload JSON bruto da resposta da API de origem, para debug/auditoria. Guarda uma
+ *                   referência aos bytes da resposta e só gera o JSON sob demanda via {@link #rawJson()};
+ *                   serializado como o campo "rawJson".
  */
 public record UserData(
         String email,
@@ -20,11 +24,23 @@ public record UserData(
         String status,
         LocalDateTime lastActivityAt,
         Map<String, Object> additionalMetrics,
-        String rawJson
+        @JsonProperty("rawJson") RawPayload rawPayload
 ) {
     public UserData {
-        additionalMetrics = additionalMetrics == null
-                ? Map.of()
-                : Collections.unmodifiableMap(new HashMap<>(additionalMetrics));
+        // ToolMetadata já é imutável e é mantido sem cópia
+        if (additionalMetrics == null) {
+            additionalMetrics = Map.of();
+        } else if (!(additionalMetrics instanceof ToolMetadata)) {
+            additionalMetrics = Collections.unmodifiableMap(new HashMap<>(additionalMetrics));
+        }
+    }
+
+    /**
+     * JSON bruto do elemento de origem, decodificado a cada chamada.
+     *
+     * @return JSON bruto, ou null se não houver payload
+     */
+    public String rawJson() {
+        return rawPayload != null ? rawPayload.json() : null;
     }
 }
@@ -3,30 +3,35 @@ package com.bemobi.aicontrol.integration.cursor;
 import com.bemobi.aicontrol.integration.ToolApiClient;
 import com.bemobi.aicontrol.integration.common.ApiClientException;
 import com.bemobi.aicontrol.integration.common.ConnectionTestResult;
+import com.bemobi.aicontrol.integration.common.RawPayload;
+import com.bemobi.aicontrol.integration.common.RawPayloadReader;
 import com.bemobi.aicontrol.integration.common.UserData;
 import com.bemobi.aicontrol.integration.cursor.dto.CursorTeamMember;
-import com.bemobi.aicontrol.integration.cursor.dto.CursorTeamMembersResponse;
+import com.bemobi.aicontrol.integration.cursor.dto.DailyUsageRecord;
 import com.bemobi.aicontrol.integration.cursor.dto.DailyUsageResponse;
 import com.bemobi.aicontrol.integration.cursor.dto.SpendingDataResponse;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.util.Base64;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -66,7 +71,7 @@ public class CursorApiClient implements ToolApiClient {
             .defaultHeader("Content-Type", "application/json")
             .codecs(configurer -> configurer
                 .defaultCodecs()
-                .maxInMemorySize(10 * 1024 * 1024)) // 10MB buffer for large responses
+                .maxInMemorySize(10 * 1024 * 1024)) // 10MB buffer for members/spending; daily usage is streamed
             .build();
     }
 
@@ -85,28 +90,34 @@ public class CursorApiClient implements ToolApiClient {
         log.info("Fetching users from Cursor Admin API");
 
         try {
-            CursorTeamMembersResponse response = webClient.get()
+            // Raw body: each member keeps a slice of it as rawJson instead of a re-serialized copy
+            byte[] body = webClient.get()
                 .uri("/teams/members")
                 .retrieve()
                 .onStatus(HttpStatusCode::is4xxClientError, this::handle4xxError)
                 .onStatus(HttpStatusCode::is5xxServerError, this::handle5xxError)
-                .bodyToMono(CursorTeamMembersResponse.class)
+                .bodyToMono(byte[].class)
                 .retryWhen(Retry.backoff(properties.getRetryAttempts(), Duration.ofSeconds(1))
                     .filter(throwable -> throwable instanceof WebClientResponseException.TooManyRequests)
                     .doBeforeRetry(signal ->
                         log.warn("Rate limit hit, retrying request. Attempt: {}", signal.totalRetries() + 1)))
                 .block(Duration.ofMillis(properties.getTimeout()));
 
-            if (response == null || response.teamMembers() == null) {
+            List<RawPayloadReader.Element<CursorTeamMember>> members =
+                RawPayloadReader.readArray(objectMapper, body, "teamMembers", CursorTeamMember.class);
+            if (members == null) {
                 throw new ApiClientException("Empty response from Cursor Admin API");
             }
 
-            log.info("Successfully fetched {} users from Cursor", response.teamMembers().size());
+            log.info("Successfully fetched {} users from Cursor", members.size());
 
-            return response.teamMembers().stream()
-                .map(this::mapToUserData)
+            return members.stream()
+                .map(member -> mapToUserData(member.value(), member.raw()))
                 .collect(Collectors.toList());
 
+        } catch (IOException e) {
+            log.error("Error parsing users from Cursor: {}", e.getMessage(), e);
+            throw new ApiClientException("Failed to parse users from Cursor", e);
         } catch (WebClientException e) {
             log.error("Error fetching users from Cursor: {}", e.getMessage(), e);
             throw new ApiClientException("Failed to fetch users from Cursor", e);
@@ -128,30 +139,17 @@ public class CursorApiClient implements ToolApiClient {
         return properties.isEnabled();
     }
 
-    private UserData mapToUserData(CursorTeamMember member) {
-        Map<String, Object> metrics = new HashMap<>();
-        metrics.put("role", member.role());
-        metrics.put("user_id", member.userId());
-
+    private UserData mapToUserData(CursorTeamMember member, RawPayload raw) {
         return new UserData(
                 member.email() != null ? member.email().toLowerCase() : null,
                 member.name(),
                 "active",
                 null,
-                metrics,
-                toRawJson(member)
+                CursorMemberMetadata.of(member),
+                raw
         );
     }
 
-    private String toRawJson(Object dto) {
-        try {
-            return objectMapper.writeValueAsString(dto);
-        } catch (JsonProcessingException e) {
-            log.warn("Failed to serialize rawJson", e);
-            return null;
-        }
-    }
-
     private Mono<? extends Throwable> handle4xxError(ClientResponse response) {
         return response.bodyToMono(String.class)
             .flatMap(body -> {
@@ -224,7 +222,8 @@ public class CursorApiClient implements ToolApiClient {
      * <p>Retrieves daily usage metrics for all team members, including token usage,
      * lines added/deleted, acceptance rates, and model usage statistics.</p>
      *
-     * <p>Note: API expects POST with date range in body.</p>
+     * <p>The whole range is collected into a list; use {@link #streamDailyUsage} to process
+     * records as they are decoded.</p>
      *
      * @param startDate start date (inclusive)
      * @param endDate end date (inclusive)
@@ -233,39 +232,96 @@ public class CursorApiClient implements ToolApiClient {
      */
     public DailyUsageResponse fetchDailyUsage(
             java.time.LocalDate startDate, java.time.LocalDate endDate) throws ApiClientException {
-        log.info("Fetching daily usage data from Cursor Admin API: {} to {}", startDate, endDate);
+        try {
+            List<DailyUsageRecord> records = streamDailyUsage(startDate, endDate)
+                .collectList()
+                .block();
+
+            return new DailyUsageResponse(records != null ? records : List.of());
+
+        } catch (RuntimeException e) {
+            Throwable cause = Exceptions.unwrap(e);
+            if (cause instanceof ApiClientException apiClientException) {
+                throw apiClientException;
+            }
+            throw e;
+        }
+    }
 
+    /**
+     * Streams daily usage data from Cursor Admin API, decoding the {@code data} array incrementally.
+     *
+     * <p>The response body is never buffered as a whole, so it is not subject to the codec's
+     * {@code maxInMemorySize}: chunks are fed to a non-blocking JSON parser as they arrive and
+     * each element is emitted as soon as it is complete (see {@link DailyUsageStreamDecoder}).
+     * The timeout applies between emitted chunks of the body rather than to the whole download,
+     * so large ranges are not cut off while data keeps flowing.</p>
+     *
+     * <p>Note: API expects POST with date range in body.</p>
+     *
+     * @param startDate start date (inclusive)
+     * @param endDate end date (inclusive)
+     * @return cold Flux of per-user daily records; failures are signalled as {@link ApiClientException}
+     */
+    public Flux<DailyUsageRecord> streamDailyUsage(java.time.LocalDate startDate, java.time.LocalDate endDate) {
         // Cursor API uses date strings in ISO format (YYYY-MM-DD)
         Map<String, String> requestBody = Map.of(
             "startDate", startDate.toString(),
             "endDate", endDate.toString()
         );
+        AtomicInteger count = new AtomicInteger();
+
+        // Deferred so each subscription (and each retry) gets a fresh decoder
+        return Flux.defer(() -> {
+            log.info("Fetching daily usage data from Cursor Admin API: {} to {}", startDate, endDate);
+            DailyUsageStreamDecoder decoder;
+            try {
+                decoder = new DailyUsageStreamDecoder(objectMapper);
+            } catch (IOException e) {
+                return Flux.error(e);
+            }
 
-        try {
-            DailyUsageResponse response = webClient.post()
+            return webClient.post()
                 .uri("/teams/daily-usage-data")
                 .bodyValue(requestBody)
                 .retrieve()
                 .onStatus(HttpStatusCode::is4xxClientError, this::handle4xxError)
                 .onStatus(HttpStatusCode::is5xxServerError, this::handle5xxError)
-                .bodyToMono(DailyUsageResponse.class)
-                .retryWhen(Retry.backoff(properties.getRetryAttempts(), Duration.ofSeconds(1))
-                    .filter(throwable -> throwable instanceof WebClientResponseException.TooManyRequests)
-                    .doBeforeRetry(signal ->
-                        log.warn("Rate limit hit, retrying request. Attempt: {}", signal.totalRetries() + 1)))
-                .block(Duration.ofMillis(properties.getTimeout()));
-
-            if (response == null || response.data() == null) {
-                throw new ApiClientException("Empty response from Cursor Admin API (daily-usage-data)");
-            }
-
-            log.info("Successfully fetched daily usage data for {} records from Cursor", response.data().size());
+                .bodyToFlux(DataBuffer.class)
+                .timeout(Duration.ofMillis(properties.getTimeout()))
+                .concatMapIterable(buffer -> decode(decoder, buffer))
+                .concatWith(Flux.defer(() -> finishDecoding(decoder)));
+        })
+            .retryWhen(Retry.backoff(properties.getRetryAttempts(), Duration.ofSeconds(1))
+                .filter(throwable -> throwable instanceof WebClientResponseException.TooManyRequests)
+                .doBeforeRetry(signal ->
+                    log.warn("Rate limit hit, retrying request. Attempt: {}", signal.totalRetries() + 1)))
+            .doOnNext(record -> count.incrementAndGet())
+            .doOnComplete(() ->
+                log.info("Successfully fetched daily usage data for {} records from Cursor", count.get()))
+            .onErrorMap(e -> !(e instanceof ApiClientException), e -> {
+                log.error("Error fetching daily usage data from Cursor: {}", e.getMessage(), e);
+                return new ApiClientException("Failed to fetch daily usage data from Cursor", e);
+            });
+    }
 
-            return response;
+    private static List<DailyUsageRecord> decode(DailyUsageStreamDecoder decoder, DataBuffer buffer) {
+        try {
+            return decoder.decode(buffer);
+        } catch (IOException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
 
-        } catch (WebClientException e) {
-            log.error("Error fetching daily usage data from Cursor: {}", e.getMessage(), e);
-            throw new ApiClientException("Failed to fetch daily usage data from Cursor", e);
+    private static Flux<DailyUsageRecord> finishDecoding(DailyUsageStreamDecoder decoder) {
+        try {
+            List<DailyUsageRecord> remaining = decoder.finish();
+            if (!decoder.dataFound()) {
+                return Flux.error(new ApiClientException("Empty response from Cursor Admin API (daily-usage-data)"));
+            }
+            return Flux.fromIterable(remaining);
+        } catch (IOException e) {
+            return Flux.error(e);
         }
     }
 }
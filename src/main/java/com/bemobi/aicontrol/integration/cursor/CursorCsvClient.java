@@ -3,6 +3,7 @@ package com.bemobi.aicontrol.integration.cursor;
 import com.bemobi.aicontrol.integration.ToolApiClient;
 import com.bemobi.aicontrol.integration.common.ApiClientException;
 import com.bemobi.aicontrol.integration.common.ConnectionTestResult;
+import com.bemobi.aicontrol.integration.common.RawPayload;
 import com.bemobi.aicontrol.integration.common.UserData;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -23,7 +24,6 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
@@ -187,11 +187,11 @@ public class CursorCsvClient implements ToolApiClient {
         }
 
         // Additional metrics
-        Map<String, Object> metrics = new HashMap<>();
+        LocalDateTime joinedAt = null;
         if (record.isMapped("joined_at")) {
-            String joinedAt = record.get("joined_at");
-            if (joinedAt != null && !joinedAt.isEmpty()) {
-                metrics.put("joined_at", LocalDate.parse(joinedAt).atStartOfDay());
+            String joined = record.get("joined_at");
+            if (joined != null && !joined.isEmpty()) {
+                joinedAt = LocalDate.parse(joined).atStartOfDay();
             }
         }
 
@@ -200,8 +200,8 @@ public class CursorCsvClient implements ToolApiClient {
                 name.trim(),
                 resolvedStatus,
                 lastActivityAt,
-                metrics,
-                csvRecordToJson(record)
+                CursorMemberMetadata.ofCsv(joinedAt),
+                RawPayload.deferred(() -> csvRecordToJson(record))
         );
     }
 
@@ -0,0 +1,52 @@
+package com.bemobi.aicontrol.integration.cursor;
+
+import com.bemobi.aicontrol.integration.common.ToolMetadata;
+import com.bemobi.aicontrol.integration.cursor.dto.CursorTeamMember;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Metadata bruto de um membro do time da Cursor, lido sob demanda.
+ *
+ * <p>Membros da Admin API têm {@code role} e {@code user_id}; membros do CSV só têm
+ * {@code joined_at}, e apenas quando a coluna está preenchida.</p>
+ */
+final class CursorMemberMetadata extends ToolMetadata {
+
+    private static final List<String> API_KEYS = List.of("role", "user_id");
+    private static final List<String> CSV_KEYS = List.of("joined_at");
+
+    private final CursorTeamMember member;
+    private final LocalDateTime joinedAt;
+    private final List<String> keys;
+
+    private CursorMemberMetadata(CursorTeamMember member, LocalDateTime joinedAt, List<String> keys) {
+        this.member = member;
+        this.joinedAt = joinedAt;
+        this.keys = keys;
+    }
+
+    static CursorMemberMetadata of(CursorTeamMember member) {
+        return new CursorMemberMetadata(member, null, API_KEYS);
+    }
+
+    static CursorMemberMetadata ofCsv(LocalDateTime joinedAt) {
+        return new CursorMemberMetadata(null, joinedAt, joinedAt != null ? CSV_KEYS : List.of());
+    }
+
+    @Override
+    protected List<String> keys() {
+        return keys;
+    }
+
+    @Override
+    protected Object value(String key) {
+        return switch (key) {
+            case "role" -> member.role();
+            case "user_id" -> member.userId();
+            case "joined_at" -> joinedAt;
+            default -> null;
+        };
+    }
+}
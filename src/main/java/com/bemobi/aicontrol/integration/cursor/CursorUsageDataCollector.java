@@ -5,8 +5,8 @@ import com.bemobi.aicontrol.integration.common.ToolType;
 import com.bemobi.aicontrol.integration.common.UnifiedSpendingRecord;
 import com.bemobi.aicontrol.integration.common.UnifiedUsageRecord;
 import com.bemobi.aicontrol.integration.common.UsageDataCollector;
+import com.bemobi.aicontrol.integration.common.UsageRecordBatch;
 import com.bemobi.aicontrol.integration.cursor.dto.DailyUsageRecord;
-import com.bemobi.aicontrol.integration.cursor.dto.DailyUsageResponse;
 import com.bemobi.aicontrol.integration.cursor.dto.SpendingDataResponse;
 import com.bemobi.aicontrol.integration.cursor.dto.SpendingRecord;
 import com.bemobi.aicontrol.integration.cursor.dto.TokenUsage;
@@ -14,6 +14,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -47,17 +49,43 @@ public class CursorUsageDataCollector implements UsageDataCollector {
             throws ApiClientException {
         log.info("Collecting usage data from Cursor for period {} to {}", startDate, endDate);
 
-        DailyUsageResponse response = cursorApiClient.fetchDailyUsage(startDate, endDate);
-
-        List<UnifiedUsageRecord> records = response.data().stream()
-            .map(this::convertToUnifiedUsageRecord)
-            .collect(Collectors.toList());
+        UsageRecordBatch records;
+        try {
+            records = streamUsageData(startDate, endDate)
+                .collect(UsageRecordBatch::new, UsageRecordBatch::add)
+                .block();
+        } catch (RuntimeException e) {
+            Throwable cause = Exceptions.unwrap(e);
+            if (cause instanceof ApiClientException apiClientException) {
+                throw apiClientException;
+            }
+            throw e;
+        }
 
+        if (records == null) {
+            records = new UsageRecordBatch();
+        }
         log.info("Collected {} usage records from Cursor", records.size());
 
         return records;
     }
 
+    /**
+     * Stream de uso da Cursor, convertido registro a registro à medida que a resposta é decodificada.
+     *
+     * <p>A resposta de {@code /teams/daily-usage-data} nunca é carregada inteira: cada registro é
+     * convertido assim que o seu objeto termina de chegar e o DTO intermediário pode ser descartado
+     * em seguida (exceto pelo que o {@link CursorUsageMetadata} referencia).</p>
+     *
+     * @param startDate data inicial (inclusive)
+     * @param endDate data final (inclusive)
+     * @return Flux frio de registros unificados; falhas são sinalizadas como {@link ApiClientException}
+     */
+    public Flux<UnifiedUsageRecord> streamUsageData(LocalDate startDate, LocalDate endDate) {
+        return cursorApiClient.streamDailyUsage(startDate, endDate)
+            .map(this::convertToUnifiedUsageRecord);
+    }
+
     @Override
     public List<UnifiedSpendingRecord> collectSpendingData(LocalDate startDate, LocalDate endDate)
             throws ApiClientException {
@@ -79,6 +107,14 @@ public class CursorUsageDataCollector implements UsageDataCollector {
         return records;
     }
 
+    /**
+     * O spending da Cursor cobre o período consultado inteiro, sem granularidade diária.
+     */
+    @Override
+    public boolean reportsDailySpending() {
+        return false;
+    }
+
     @Override
     public ToolType getToolType() {
         return ToolType.CURSOR;
@@ -94,18 +130,6 @@ public class CursorUsageDataCollector implements UsageDataCollector {
         // Consolidar tokens de múltiplos modelos
         TokenTotals totals = consolidateTokens(record.tokenUsage());
 
-        // Preparar rawMetadata com detalhes originais
-        Map<String, Object> rawMetadata = new HashMap<>();
-        if (record.requestTypes() != null) {
-            rawMetadata.put("request_types", record.requestTypes());
-        }
-        if (record.mostUsedModels() != null && !record.mostUsedModels().isEmpty()) {
-            rawMetadata.put("most_used_models", record.mostUsedModels());
-        }
-        if (record.tokenUsage() != null && !record.tokenUsage().isEmpty()) {
-            rawMetadata.put("token_usage_by_model", record.tokenUsage());
-        }
-
         // Calcular linhas sugeridas e aceitas
         Integer linesSuggested = calculateLinesSuggested(record);
         Integer linesAccepted = record.linesAdded();
@@ -123,7 +147,7 @@ public class CursorUsageDataCollector implements UsageDataCollector {
             linesSuggested,
             linesAccepted,
             record.acceptanceRate(),
-            rawMetadata
+            new CursorUsageMetadata(record) // detalhes originais, lidos só se exportados
         );
     }
 
@@ -0,0 +1,78 @@
+package com.bemobi.aicontrol.integration.cursor;
+
+import com.bemobi.aicontrol.integration.common.ToolMetadata;
+import com.bemobi.aicontrol.integration.cursor.dto.DailyUsageRecord;
+import com.bemobi.aicontrol.integration.cursor.dto.TokenUsage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Metadata bruto de um registro de uso diário da Cursor, lido do registro sob demanda.
+ *
+ * <p>Só as chaves com valor estão presentes: {@code request_types}, {@code most_used_models}
+ * (não vazio) e {@code token_usage_by_model} (não vazio).</p>
+ */
+final class CursorUsageMetadata extends ToolMetadata {
+
+    private static final String REQUEST_TYPES = "request_types";
+    private static final String MOST_USED_MODELS = "most_used_models";
+    private static final String TOKEN_USAGE = "token_usage_by_model";
+
+    // Uma lista de chaves por combinação de campos presentes (bit 0, 1 e 2 na ordem acima)
+    private static final List<List<String>> KEY_SETS = keySets();
+
+    private final Map<String, Integer> requestTypes;
+    private final List<String> mostUsedModels;
+    private final List<TokenUsage> tokenUsage;
+    private final List<String> keys;
+
+    CursorUsageMetadata(DailyUsageRecord record) {
+        this.requestTypes = record.requestTypes();
+        this.mostUsedModels = record.mostUsedModels();
+        this.tokenUsage = record.tokenUsage();
+
+        int present = 0;
+        if (requestTypes != null) {
+            present |= 1;
+        }
+        if (mostUsedModels != null && !mostUsedModels.isEmpty()) {
+            present |= 2;
+        }
+        if (tokenUsage != null && !tokenUsage.isEmpty()) {
+            present |= 4;
+        }
+        this.keys = KEY_SETS.get(present);
+    }
+
+    @Override
+    protected List<String> keys() {
+        return keys;
+    }
+
+    @Override
+    protected Object value(String key) {
+        return switch (key) {
+            case REQUEST_TYPES -> requestTypes;
+            case MOST_USED_MODELS -> mostUsedModels;
+            case TOKEN_USAGE -> tokenUsage;
+            default -> null;
+        };
+    }
+
+    private static List<List<String>> keySets() {
+        List<String> all = List.of(REQUEST_TYPES, MOST_USED_MODELS, TOKEN_USAGE);
+        List<List<String>> sets = new ArrayList<>();
+        for (int present = 0; present < 8; present++) {
+            List<String> keys = new ArrayList<>();
+            for (int i = 0; i < all.size(); i++) {
+                if ((present & (1 << i)) != 0) {
+                    keys.add(all.get(i));
+                }
+            }
+            sets.add(List.copyOf(keys));
+        }
+        return List.copyOf(sets);
+    }
+}
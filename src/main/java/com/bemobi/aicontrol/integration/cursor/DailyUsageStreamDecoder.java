@@ -0,0 +1,130 @@
+package com.bemobi.aicontrol.integration.cursor;
+
+import com.bemobi.aicontrol.integration.cursor.dto.DailyUsageRecord;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodificador incremental da resposta de {@code /teams/daily-usage-data}.
+ *
+ * <p>Recebe o corpo em pedaços ({@link DataBuffer}) à medida que chegam e os alimenta em um parser
+ * Jackson não bloqueante. O array {@code data} é percorrido token a token: apenas os tokens do
+ * elemento corrente ficam em um {@link TokenBuffer}, que vira um {@link DailyUsageRecord} assim
+ * que o objeto fecha. A memória usada depende do maior elemento, não do tamanho da resposta, e
+ * não há limite de {@code maxInMemorySize} para o corpo.</p>
+ *
+ * <p>Guarda estado entre chamadas: cada requisição (e cada nova tentativa) usa uma instância nova.</p>
+ */
+final class DailyUsageStreamDecoder {
+
+    // Profundidade do objeto raiz e dos elementos de "data" (raiz = 1, array = 2, elementos = 3)
+    private static final int ROOT_DEPTH = 1;
+    private static final int ARRAY_DEPTH = 2;
+
+    private final ObjectMapper objectMapper;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+
+    private int depth;
+    private boolean dataField;
+    private boolean inData;
+    private boolean dataFound;
+    private TokenBuffer element;
+
+    DailyUsageStreamDecoder(ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Alimenta um pedaço do corpo e retorna os registros que ficaram completos com ele.
+     *
+     * <p>O buffer é liberado aqui, mesmo em caso de erro.</p>
+     *
+     * @param buffer próximo pedaço do corpo
+     * @return registros completos (pode ser vazio)
+     * @throws IOException se o JSON for inválido ou um registro não puder ser convertido
+     */
+    List<DailyUsageRecord> decode(DataBuffer buffer) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+        feeder.feedInput(bytes, 0, bytes.length);
+        return drain();
+    }
+
+    /**
+     * Sinaliza o fim do corpo e retorna os registros restantes.
+     *
+     * @return registros completos (normalmente vazio)
+     * @throws IOException se o corpo terminar no meio de um valor
+     */
+    List<DailyUsageRecord> finish() throws IOException {
+        feeder.endOfInput();
+        List<DailyUsageRecord> records = drain();
+        parser.close();
+        if (depth != 0) {
+            throw new IOException("Truncated daily usage response");
+        }
+        return records;
+    }
+
+    /**
+     * Indica se o array {@code data} foi encontrado no objeto raiz.
+     */
+    boolean dataFound() {
+        return dataFound;
+    }
+
+    private List<DailyUsageRecord> drain() throws IOException {
+        List<DailyUsageRecord> records = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (element != null) {
+                element.copyCurrentEvent(parser);
+            }
+
+            if (token.isStructStart()) {
+                depth++;
+                if (inData && depth == ARRAY_DEPTH + 1 && token == JsonToken.START_OBJECT) {
+                    element = new TokenBuffer(parser);
+                    element.copyCurrentEvent(parser);
+                } else if (dataField && depth == ARRAY_DEPTH && token == JsonToken.START_ARRAY) {
+                    inData = true;
+                    dataFound = true;
+                }
+            } else if (token.isStructEnd()) {
+                if (element != null && depth == ARRAY_DEPTH + 1) {
+                    records.add(toRecord(element));
+                    element = null;
+                } else if (inData && depth == ARRAY_DEPTH) {
+                    inData = false;
+                }
+                depth--;
+            }
+
+            dataField = token == JsonToken.FIELD_NAME && depth == ROOT_DEPTH && "data".equals(parser.currentName());
+        }
+        return records;
+    }
+
+    private DailyUsageRecord toRecord(TokenBuffer tokens) throws IOException {
+        try (JsonParser elementParser = tokens.asParser(objectMapper)) {
+            return objectMapper.readValue(elementParser, DailyUsageRecord.class);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.bemobi.aicontrol.integration.github;
+
+import com.bemobi.aicontrol.integration.common.ToolMetadata;
+import com.bemobi.aicontrol.integration.github.dto.UserMetric;
+
+import java.util.List;
+
+/**
+ * Raw metadata of a Copilot daily metric, read from the metric on demand.
+ *
+ * <p>{@code gitHubLogin} is the key used by the report for the unregistered check.</p>
+ */
+final class CopilotMetricMetadata extends ToolMetadata {
+
+    private static final List<String> KEYS = List.of(
+        "gitHubLogin", "user_name", "user_email", "date",
+        "user_initiated_interaction_count", "code_generation_activity_count",
+        "code_acceptance_activity_count", "loc_deleted_sum");
+
+    private final UserMetric metric;
+
+    CopilotMetricMetadata(UserMetric metric) {
+        this.metric = metric;
+    }
+
+    @Override
+    protected List<String> keys() {
+        return KEYS;
+    }
+
+    @Override
+    protected Object value(String key) {
+        return switch (key) {
+            case "gitHubLogin", "user_name" -> metric.userName();
+            case "user_email" -> metric.userEmail();
+            case "date" -> metric.date();
+            case "user_initiated_interaction_count" -> metric.userInitiatedInteractionCount();
+            case "code_generation_activity_count" -> metric.codeGenerationActivityCount();
+            case "code_acceptance_activity_count" -> metric.codeAcceptanceActivityCount();
+            case "loc_deleted_sum" -> metric.locDeletedSum();
+            default -> null;
+        };
+    }
+}
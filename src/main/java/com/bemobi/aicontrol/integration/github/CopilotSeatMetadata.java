@@ -0,0 +1,44 @@
+package com.bemobi.aicontrol.integration.github;
+
+import com.bemobi.aicontrol.integration.common.ToolMetadata;
+import com.bemobi.aicontrol.integration.github.GitHubIdentityResolver.GitHubIdentity;
+import com.bemobi.aicontrol.integration.github.dto.GitHubCopilotSeat;
+
+import java.util.List;
+
+/**
+ * Raw metadata of a Copilot seat, read from the seat and its resolved identity on demand.
+ *
+ * <p>Seats without an assignee have no keys.</p>
+ */
+final class CopilotSeatMetadata extends ToolMetadata {
+
+    static final List<String> KEYS = List.of(
+        "last_activity_editor", "created_at", "updated_at", "github_login", "github_id", "email_type");
+
+    private final GitHubCopilotSeat seat;
+    private final GitHubIdentity identity;
+
+    CopilotSeatMetadata(GitHubCopilotSeat seat, GitHubIdentity identity) {
+        this.seat = seat;
+        this.identity = identity;
+    }
+
+    @Override
+    protected List<String> keys() {
+        return seat.assignee() != null ? KEYS : List.of();
+    }
+
+    @Override
+    protected Object value(String key) {
+        return switch (key) {
+            case "last_activity_editor" -> seat.lastActivityEditor();
+            case "created_at" -> seat.createdAt();
+            case "updated_at" -> seat.updatedAt();
+            case "github_login" -> seat.assignee().login();
+            case "github_id" -> seat.assignee().id();
+            case "email_type" -> identity.emailType();
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package com.bemobi.aicontrol.integration.github;
+
+import com.bemobi.aicontrol.integration.common.ToolMetadata;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Raw metadata of a usage record built from a Copilot seat when the metrics report has no data.
+ *
+ * <p>{@code gitHubLogin}, {@code source} and {@code snapshot_date} come first, followed by the
+ * seat's own metadata (see {@link CopilotSeatMetadata}), which is read on demand.</p>
+ */
+final class CopilotSeatSnapshotMetadata extends ToolMetadata {
+
+    private static final String SOURCE = "seats_snapshot";
+
+    private static final List<String> SNAPSHOT_KEYS = List.of("gitHubLogin", "source", "snapshot_date");
+    private static final List<String> SEAT_KEYS = concat(SNAPSHOT_KEYS, CopilotSeatMetadata.KEYS);
+
+    private final String gitHubLogin;
+    private final LocalDate snapshotDate;
+    private final Map<String, Object> seatMetadata;
+    private final List<String> keys;
+
+    CopilotSeatSnapshotMetadata(String gitHubLogin, LocalDate snapshotDate, Map<String, Object> seatMetadata) {
+        this.gitHubLogin = gitHubLogin;
+        this.snapshotDate = snapshotDate;
+        this.seatMetadata = seatMetadata;
+        if (seatMetadata.isEmpty()) {
+            this.keys = SNAPSHOT_KEYS;
+        } else if (seatMetadata instanceof CopilotSeatMetadata) {
+            this.keys = SEAT_KEYS;
+        } else {
+            // Seats from another source (e.g. read back from the record store)
+            this.keys = concat(SNAPSHOT_KEYS, List.copyOf(seatMetadata.keySet()));
+        }
+    }
+
+    @Override
+    protected List<String> keys() {
+        return keys;
+    }
+
+    @Override
+    protected Object value(String key) {
+        return switch (key) {
+            case "gitHubLogin" -> gitHubLogin;
+            case "source" -> SOURCE;
+            case "snapshot_date" -> snapshotDate.toString();
+            default -> seatMetadata.get(key);
+        };
+    }
+
+    private static List<String> concat(List<String> first, List<String> second) {
+        List<String> keys = new ArrayList<>(first);
+        second.stream().filter(key -> !first.contains(key)).forEach(keys::add);
+        return List.copyOf(keys);
+    }
+}
@@ -22,6 +22,20 @@ public class GitHubApiProperties {
 
     private int retryAttempts = 3;
 
+    /**
+     * Maximum number of days fetched concurrently from the Copilot metrics API.
+     */
+    private int metricsConcurrency = 4;
+
+    /**
+     * Maximum number of seats whose email is resolved concurrently (Workspace + public profile).
+     */
+    private int enrichmentConcurrency = 8;
+
+    private final HttpCache httpCache = new HttpCache();
+
+    private final RateLimit rateLimit = new RateLimit();
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -69,4 +83,116 @@ public class GitHubApiProperties {
     public void setRetryAttempts(int retryAttempts) {
         this.retryAttempts = retryAttempts;
     }
+
+    public int getMetricsConcurrency() {
+        return metricsConcurrency;
+    }
+
+    public void setMetricsConcurrency(int metricsConcurrency) {
+        this.metricsConcurrency = metricsConcurrency;
+    }
+
+    public int getEnrichmentConcurrency() {
+        return enrichmentConcurrency;
+    }
+
+    public void setEnrichmentConcurrency(int enrichmentConcurrency) {
+        this.enrichmentConcurrency = enrichmentConcurrency;
+    }
+
+    public HttpCache getHttpCache() {
+        return httpCache;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    /**
+     * On-disk conditional-request (ETag / Last-Modified) cache for GitHub REST calls.
+     */
+    public static class HttpCache {
+
+        private boolean enabled = true;
+
+        private String directory = "./cache/github-http";
+
+        private int maxEntries = 10000;
+
+        private long maxBytes = 100L * 1024 * 1024;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+    }
+
+    /**
+     * Client-side pacing against the GitHub primary rate limit (X-RateLimit-* headers).
+     */
+    public static class RateLimit {
+
+        private boolean enabled = true;
+
+        /**
+         * Requests left in the window that are never used; callers wait for the reset instead.
+         */
+        private int reserve = 50;
+
+        /**
+         * Below this many available requests, calls are spaced evenly until the reset.
+         */
+        private int paceBelow = 500;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getReserve() {
+            return reserve;
+        }
+
+        public void setReserve(int reserve) {
+            this.reserve = reserve;
+        }
+
+        public int getPaceBelow() {
+            return paceBelow;
+        }
+
+        public void setPaceBelow(int paceBelow) {
+            this.paceBelow = paceBelow;
+        }
+    }
 }
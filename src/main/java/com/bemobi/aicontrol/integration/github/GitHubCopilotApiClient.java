@@ -3,40 +3,42 @@ package com.bemobi.aicontrol.integration.github;
 import com.bemobi.aicontrol.integration.ToolApiClient;
 import com.bemobi.aicontrol.integration.common.ApiClientException;
 import com.bemobi.aicontrol.integration.common.ConnectionTestResult;
+import com.bemobi.aicontrol.integration.common.RawPayload;
+import com.bemobi.aicontrol.integration.common.RawPayloadReader;
 import com.bemobi.aicontrol.integration.common.UserData;
+import com.bemobi.aicontrol.integration.github.GitHubIdentityResolver.GitHubIdentity;
 import com.bemobi.aicontrol.integration.github.dto.GitHubCopilotSeat;
-import com.bemobi.aicontrol.integration.github.dto.GitHubCopilotSeatsResponse;
 import com.bemobi.aicontrol.integration.github.dto.GitHubUser;
 import com.bemobi.aicontrol.integration.github.dto.UserMetric;
 import com.bemobi.aicontrol.integration.github.dto.UserMetricsResponse;
-import com.bemobi.aicontrol.integration.google.GoogleWorkspaceClient;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
-import java.io.BufferedReader;
-import java.io.StringReader;
+import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Client for integrating with GitHub Copilot API.
@@ -50,29 +52,62 @@ public class GitHubCopilotApiClient implements ToolApiClient {
 
     private static final Logger log = LoggerFactory.getLogger(GitHubCopilotApiClient.class);
 
+    /**
+     * Splits the NDJSON report into lines as the bytes arrive (delimiters stripped).
+     * Each line is limited by the decoder's default in-memory size (256KB).
+     */
+    private static final StringDecoder NDJSON_LINE_DECODER = StringDecoder.textPlainOnly();
+
+    private static final ResolvableType STRING_TYPE = ResolvableType.forClass(String.class);
+
+    /**
+     * Request attribute with the response timeout of an API call. It is applied by the innermost
+     * filter, so it starts once the rate limiter has granted the request and a pacing delay does
+     * not count against it.
+     */
+    private static final String RESPONSE_TIMEOUT = GitHubCopilotApiClient.class.getName() + ".responseTimeout";
+
     private final WebClient webClient;
+    private final WebClient downloadClient;
     private final GitHubApiProperties properties;
-    private final GoogleWorkspaceClient workspaceClient;
+    private final GitHubIdentityResolver identityResolver;
     private final ObjectMapper objectMapper;
 
     public GitHubCopilotApiClient(WebClient.Builder webClientBuilder,
                                  GitHubApiProperties properties,
-                                 @Autowired(required = false) GoogleWorkspaceClient workspaceClient,
-                                 ObjectMapper objectMapper) {
+                                 GitHubIdentityResolver identityResolver,
+                                 ObjectMapper objectMapper,
+                                 @Autowired(required = false) GitHubHttpCache httpCache,
+                                 @Autowired(required = false) GitHubRateLimiter rateLimiter) {
         this.properties = properties;
-        this.workspaceClient = workspaceClient;
+        this.identityResolver = identityResolver;
         this.objectMapper = objectMapper;
 
         // Only create WebClient if properties are configured
         String baseUrl = properties.getBaseUrl() != null ? properties.getBaseUrl() : "https://api.github.com";
         String token = properties.getToken() != null ? properties.getToken() : "";
 
-        this.webClient = webClientBuilder
+        // Signed report URLs must not receive the GitHub token, so downloads use a copy of the
+        // builder taken before the API defaults are applied (same connection pool)
+        this.downloadClient = webClientBuilder.clone().build();
+
+        WebClient.Builder apiBuilder = webClientBuilder
             .baseUrl(baseUrl)
             .defaultHeader("Authorization", "Bearer " + token)
             .defaultHeader("Accept", "application/vnd.github+json")
-            .defaultHeader("X-GitHub-Api-Version", "2022-11-28")
-            .build();
+            .defaultHeader("X-GitHub-Api-Version", "2022-11-28");
+
+        // Cache wraps the pacer: conditional requests are paced too, and the budget read from
+        // the response headers reflects that 304s are not counted by GitHub
+        if (httpCache != null) {
+            apiBuilder.filter(httpCache);
+        }
+        if (rateLimiter != null) {
+            apiBuilder.filter(rateLimiter);
+        }
+        apiBuilder.filter(GitHubCopilotApiClient::applyResponseTimeout);
+
+        this.webClient = apiBuilder.build();
     }
 
     @Override
@@ -90,34 +125,56 @@ public class GitHubCopilotApiClient implements ToolApiClient {
         log.info("Fetching users from GitHub Copilot API");
 
         try {
-            GitHubCopilotSeatsResponse response = webClient.get()
+            // Raw body: each seat keeps a slice of it as rawJson instead of a re-serialized copy
+            byte[] body = webClient.get()
                 .uri("/orgs/{org}/copilot/billing/seats", properties.getOrganization())
+                .attribute(RESPONSE_TIMEOUT, Duration.ofMillis(properties.getTimeout()))
                 .retrieve()
                 .onStatus(HttpStatusCode::is4xxClientError, this::handle4xxError)
                 .onStatus(HttpStatusCode::is5xxServerError, this::handle5xxError)
-                .bodyToMono(GitHubCopilotSeatsResponse.class)
+                .bodyToMono(byte[].class)
                 .retryWhen(Retry.backoff(properties.getRetryAttempts(), Duration.ofSeconds(1))
                     .filter(throwable -> throwable instanceof WebClientResponseException
                             && ((WebClientResponseException) throwable).getStatusCode().is5xxServerError())
                     .doBeforeRetry(signal ->
                         log.warn("Server error, retrying request. Attempt: {}", signal.totalRetries() + 1)))
-                .block(Duration.ofMillis(properties.getTimeout()));
+                .block();
 
-            if (response == null || response.seats() == null) {
+            List<RawPayloadReader.Element<GitHubCopilotSeat>> seats =
+                RawPayloadReader.readArray(objectMapper, body, "seats", GitHubCopilotSeat.class);
+            if (seats == null) {
                 log.warn("Empty response from GitHub Copilot API");
                 return Collections.emptyList();
             }
 
-            log.info("Successfully fetched {} Copilot seats from GitHub", response.totalSeats());
-            log.info("Fetching public emails for {} users (this may take a moment)", response.totalSeats());
+            log.info("Successfully fetched {} Copilot seats from GitHub", seats.size());
+            int concurrency = Math.max(1, properties.getEnrichmentConcurrency());
+            log.info("Resolving emails for {} users (concurrency: {})", seats.size(), concurrency);
+
+            // Resolve all Workspace emails up front in batches; per-seat lookups then hit the cache
+            identityResolver.prefetch(seats.stream()
+                .map(seat -> seat.value().assignee())
+                .filter(assignee -> assignee != null && assignee.login() != null)
+                .map(GitHubUser::login)
+                .toList());
+
+            // Seats are enriched concurrently; flatMapSequential keeps the original seat order
+            List<UserData> users = Flux.fromIterable(seats)
+                .flatMapSequential(seat -> resolveSeatIdentity(seat.value())
+                    .map(identity -> mapToUserData(seat.value(), seat.raw(), identity)), concurrency)
+                .collectList()
+                .block();
 
-            return response.seats().stream()
-                .map(this::mapToUserData)
-                .collect(Collectors.toList());
+            log.info("Resolved emails for {} users ({} lookups deduplicated so far)",
+                users != null ? users.size() : 0, identityResolver.getDeduplicatedLookups());
+            return users != null ? users : Collections.emptyList();
 
         } catch (WebClientResponseException.NotFound e) {
             log.warn("Organization '{}' not found or doesn't have Copilot", properties.getOrganization());
             return Collections.emptyList();
+        } catch (IOException e) {
+            log.error("Error parsing Copilot seats from GitHub: {}", e.getMessage(), e);
+            throw new ApiClientException("Failed to parse users from GitHub Copilot", e);
         } catch (WebClientException e) {
             log.error("Error fetching users from GitHub Copilot: {}", e.getMessage(), e);
             throw new ApiClientException("Failed to fetch users from GitHub Copilot", e);
@@ -139,59 +196,32 @@ public class GitHubCopilotApiClient implements ToolApiClient {
         return properties.isEnabled();
     }
 
-    private UserData mapToUserData(GitHubCopilotSeat seat) {
+    /**
+     * Resolves the identity of a seat's assignee through the run-wide resolver.
+     *
+     * <p>The Workspace lookup and the public profile fetch (only made when Workspace has no match)
+     * are shared by every request for the login in the run, so later {@code fetchUsers()} calls
+     * do not fetch {@code /users/{login}} again.</p>
+     */
+    private Mono<GitHubIdentity> resolveSeatIdentity(GitHubCopilotSeat seat) {
+        GitHubUser assignee = seat.assignee();
+        if (assignee == null || assignee.login() == null) {
+            return Mono.just(new GitHubIdentity(null, null, null));
+        }
+        String login = assignee.login();
+        return identityResolver.resolve(login, () -> fetchUserPublicProfile(login)
+            .mapNotNull(GitHubUser::email)
+            .doOnNext(email -> log.debug("Found public email for user {}: {}", login, email)));
+    }
+
+    private UserData mapToUserData(GitHubCopilotSeat seat, RawPayload raw, GitHubIdentity identity) {
         String email = null;
         String name = null;
-        Map<String, Object> metrics = new HashMap<>();
 
         GitHubUser assignee = seat.assignee();
         if (assignee != null) {
-            String emailType = "not_found";
-
-            // Priority 1: Google Workspace lookup (if enabled)
-            if (workspaceClient != null) {
-                try {
-                    Optional<String> workspaceEmail = workspaceClient.findEmailByGitName(assignee.login());
-                    if (workspaceEmail.isPresent()) {
-                        email = workspaceEmail.get();
-                        emailType = "workspace";
-                        log.debug("Workspace resolved email for user {}: {}", assignee.login(), email);
-                    }
-                } catch (Exception e) {
-                    log.debug("Workspace lookup failed for user {}: {}", assignee.login(), e.getMessage());
-                }
-            }
-
-            // Priority 2: GitHub public profile
-            if (email == null || email.isEmpty()) {
-                try {
-                    GitHubUser publicProfile = fetchUserPublicProfile(assignee.login());
-                    if (publicProfile != null && publicProfile.email() != null && !publicProfile.email().isEmpty()) {
-                        email = publicProfile.email();
-                        emailType = "real";
-                        log.debug("Found public email for user {}: {}", assignee.login(), email);
-                    }
-                } catch (Exception e) {
-                    log.debug("Could not fetch public profile for user {}: {}", assignee.login(), e.getMessage());
-                }
-            }
-
-            // Priority 3: Fallback - no email found
-            if (email == null || email.isEmpty()) {
-                email = "[SEM-USR-GITHUB]";
-                emailType = "not_found";
-                log.info("Email not available for user {}, marking as unresolved", assignee.login());
-            }
-
-            email = email.toLowerCase();
+            email = identity.email();
             name = assignee.name() != null ? assignee.name() : assignee.login();
-
-            metrics.put("last_activity_editor", seat.lastActivityEditor());
-            metrics.put("created_at", seat.createdAt());
-            metrics.put("updated_at", seat.updatedAt());
-            metrics.put("github_login", assignee.login());
-            metrics.put("github_id", assignee.id());
-            metrics.put("email_type", emailType);
         }
 
         return new UserData(
@@ -199,42 +229,41 @@ public class GitHubCopilotApiClient implements ToolApiClient {
                 name,
                 "active",
                 seat.lastActivityAt() != null ? seat.lastActivityAt().toLocalDateTime() : null,
-                metrics,
-                toRawJson(seat)
+                new CopilotSeatMetadata(seat, identity),
+                raw
         );
     }
 
-    private String toRawJson(Object dto) {
-        try {
-            return objectMapper.writeValueAsString(dto);
-        } catch (JsonProcessingException e) {
-            log.warn("Failed to serialize rawJson", e);
-            return null;
-        }
+    /**
+     * Fetch user's public profile to get their public email address.
+     * Completes empty if profile cannot be fetched.
+     */
+    private Mono<GitHubUser> fetchUserPublicProfile(String username) {
+        return webClient.get()
+            .uri("/users/{username}", username)
+            .attribute(RESPONSE_TIMEOUT, Duration.ofSeconds(5))
+            .retrieve()
+            .onStatus(HttpStatusCode::is4xxClientError, response -> Mono.empty())
+            .onStatus(HttpStatusCode::is5xxServerError, response -> Mono.empty())
+            .bodyToMono(GitHubUser.class)
+            .onErrorResume(throwable -> {
+                log.debug("Error fetching public profile for {}: {}", username, throwable.getMessage());
+                return Mono.empty();
+            });
     }
 
     /**
-     * Fetch user's public profile to get their public email address.
-     * Returns null if profile cannot be fetched or user doesn't have public email.
+     * Applies the {@link #RESPONSE_TIMEOUT} of a request to its exchange: to the response headers
+     * and to each gap between body chunks. Registered last, so it runs after the rate limiter has
+     * released the request.
      */
-    private GitHubUser fetchUserPublicProfile(String username) {
-        try {
-            return webClient.get()
-                .uri("/users/{username}", username)
-                .retrieve()
-                .onStatus(HttpStatusCode::is4xxClientError, response -> Mono.empty())
-                .onStatus(HttpStatusCode::is5xxServerError, response -> Mono.empty())
-                .bodyToMono(GitHubUser.class)
-                .timeout(Duration.ofSeconds(5))
-                .onErrorResume(throwable -> {
-                    log.debug("Error fetching public profile for {}: {}", username, throwable.getMessage());
-                    return Mono.empty();
-                })
-                .block();
-        } catch (Exception e) {
-            log.debug("Failed to fetch public profile for {}: {}", username, e.getMessage());
-            return null;
-        }
+    private static Mono<ClientResponse> applyResponseTimeout(ClientRequest request, ExchangeFunction next) {
+        return request.attribute(RESPONSE_TIMEOUT)
+            .map(Duration.class::cast)
+            .map(timeout -> next.exchange(request)
+                .timeout(timeout)
+                .map(response -> response.mutate().body(body -> body.timeout(timeout)).build()))
+            .orElseGet(() -> next.exchange(request));
     }
 
     private Mono<? extends Throwable> handle4xxError(ClientResponse response) {
@@ -273,6 +302,9 @@ public class GitHubCopilotApiClient implements ToolApiClient {
      * <p>The API returns a signed URL that must be accessed to download the actual
      * metrics data in NDJSON format (one JSON object per line, one per user).</p>
      *
+     * <p>The whole day is collected into a list; use {@link #streamUserMetrics(LocalDate)}
+     * to process the report one line at a time.</p>
+     *
      * @param date the date for which to fetch metrics (YYYY-MM-DD format)
      * @return UserMetricsResponse containing the parsed metrics data
      * @throws ApiClientException if the API call fails or parsing fails
@@ -280,25 +312,10 @@ public class GitHubCopilotApiClient implements ToolApiClient {
     public UserMetricsResponse fetchUserMetrics(LocalDate date) throws ApiClientException {
         log.info("Fetching user metrics from GitHub Copilot API for date: {}", date);
 
-        String dateStr = date.format(DateTimeFormatter.ISO_LOCAL_DATE);
-
         try {
             // Step 1: Get the signed URL from the metrics API
-            Map<String, Object> initialResponse = webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                    .path("/orgs/{org}/copilot/metrics/reports/users-1-day")
-                    .queryParam("day", dateStr)
-                    .build(properties.getOrganization()))
-                .retrieve()
-                .onStatus(HttpStatusCode::is4xxClientError, this::handle4xxError)
-                .onStatus(HttpStatusCode::is5xxServerError, this::handle5xxError)
-                .bodyToMono(Map.class)
-                .retryWhen(Retry.backoff(properties.getRetryAttempts(), Duration.ofSeconds(1))
-                    .filter(throwable -> throwable instanceof WebClientResponseException
-                            && ((WebClientResponseException) throwable).getStatusCode().is5xxServerError())
-                    .doBeforeRetry(signal ->
-                        log.warn("Server error, retrying metrics request. Attempt: {}", signal.totalRetries() + 1)))
-                .block(Duration.ofMillis(properties.getTimeout()));
+            Map<String, Object> initialResponse = requestReportLink(date)
+                .block();
 
             if (initialResponse == null) {
                 log.warn("Empty response from GitHub Copilot Metrics API");
@@ -313,25 +330,16 @@ public class GitHubCopilotApiClient implements ToolApiClient {
                 return new UserMetricsResponse(reportUrl, expiresAt, Collections.emptyList());
             }
 
-            log.debug("Fetching metrics data from signed URL: {}", reportUrl);
-
-            // Step 2: Download NDJSON data from the signed URL
-            String ndjsonData = WebClient.create()
-                .get()
-                .uri(reportUrl)
-                .retrieve()
-                .onStatus(HttpStatusCode::is4xxClientError, this::handle4xxError)
-                .onStatus(HttpStatusCode::is5xxServerError, this::handle5xxError)
-                .bodyToMono(String.class)
+            // Step 2: Download and parse NDJSON data from the signed URL
+            List<UserMetric> metrics = downloadReport(reportUrl)
+                .collectList()
                 .block(Duration.ofMillis(properties.getTimeout()));
 
-            if (ndjsonData == null || ndjsonData.isEmpty()) {
+            if (metrics == null || metrics.isEmpty()) {
                 log.warn("Empty NDJSON data from signed URL");
                 return new UserMetricsResponse(reportUrl, expiresAt, Collections.emptyList());
             }
 
-            // Step 3: Parse NDJSON (one JSON object per line)
-            List<UserMetric> metrics = parseNdjson(ndjsonData);
             log.info("Successfully parsed {} user metrics for date {}", metrics.size(), date);
 
             return new UserMetricsResponse(reportUrl, expiresAt, metrics);
@@ -349,23 +357,91 @@ public class GitHubCopilotApiClient implements ToolApiClient {
     }
 
     /**
-     * Parses NDJSON (Newline Delimited JSON) into a list of UserMetric objects.
+     * Streams user metrics for a specific date, decoding the NDJSON report line by line.
      *
-     * @param ndjson the NDJSON string to parse
-     * @return list of parsed UserMetric objects
-     * @throws Exception if parsing fails
+     * <p>The report is never buffered as a whole: bytes from the signed URL are split into
+     * lines as they arrive and each line is parsed into a {@link UserMetric}, so memory use is
+     * bounded by the longest line rather than by the size of the day's report.</p>
+     *
+     * <p>A missing report (404 or no signed URL) completes empty. Other failures are signalled
+     * as {@link ApiClientException}.</p>
+     *
+     * @param date the date for which to fetch metrics
+     * @return cold Flux emitting one UserMetric per NDJSON line
      */
-    private List<UserMetric> parseNdjson(String ndjson) throws Exception {
-        List<UserMetric> metrics = new ArrayList<>();
-        BufferedReader reader = new BufferedReader(new StringReader(ndjson));
-        String line;
-        while ((line = reader.readLine()) != null) {
-            line = line.trim();
-            if (!line.isEmpty()) {
-                UserMetric metric = objectMapper.readValue(line, UserMetric.class);
-                metrics.add(metric);
-            }
-        }
-        return metrics;
+    public Flux<UserMetric> streamUserMetrics(LocalDate date) {
+        return requestReportLink(date)
+            .flatMapMany(initialResponse -> {
+                String reportUrl = (String) initialResponse.get("report_url");
+                if (reportUrl == null || reportUrl.isEmpty()) {
+                    log.warn("No report URL in metrics API response for date {}", date);
+                    return Flux.empty();
+                }
+                log.info("Streaming user metrics from GitHub Copilot API for date: {}", date);
+                return downloadReport(reportUrl)
+                    .timeout(Duration.ofMillis(properties.getTimeout()));
+            })
+            .onErrorResume(WebClientResponseException.NotFound.class, e -> {
+                log.warn("Metrics not found for organization '{}' on date {}", properties.getOrganization(), date);
+                return Flux.empty();
+            })
+            .onErrorMap(e -> !(e instanceof ApiClientException), e -> {
+                log.error("Error streaming user metrics from GitHub Copilot: {}", e.getMessage(), e);
+                return new ApiClientException("Failed to fetch user metrics from GitHub Copilot", e);
+            });
+    }
+
+    /**
+     * Requests the signed report URL for a day from the Copilot Metrics API.
+     */
+    @SuppressWarnings("unchecked")
+    private Mono<Map<String, Object>> requestReportLink(LocalDate date) {
+        String dateStr = date.format(DateTimeFormatter.ISO_LOCAL_DATE);
+
+        return webClient.get()
+            .uri(uriBuilder -> uriBuilder
+                .path("/orgs/{org}/copilot/metrics/reports/users-1-day")
+                .queryParam("day", dateStr)
+                .build(properties.getOrganization()))
+            .attribute(RESPONSE_TIMEOUT, Duration.ofMillis(properties.getTimeout()))
+            .retrieve()
+            .onStatus(HttpStatusCode::is4xxClientError, this::handle4xxError)
+            .onStatus(HttpStatusCode::is5xxServerError, this::handle5xxError)
+            .bodyToMono(Map.class)
+            .map(body -> (Map<String, Object>) body)
+            .retryWhen(Retry.backoff(properties.getRetryAttempts(), Duration.ofSeconds(1))
+                .filter(throwable -> throwable instanceof WebClientResponseException
+                        && ((WebClientResponseException) throwable).getStatusCode().is5xxServerError())
+                .doBeforeRetry(signal ->
+                    log.warn("Server error, retrying metrics request. Attempt: {}", signal.totalRetries() + 1)));
+    }
+
+    /**
+     * Downloads the NDJSON report from a signed URL and parses it one line at a time.
+     *
+     * @param reportUrl the signed URL returned by the metrics API
+     * @return Flux emitting one UserMetric per non-blank line
+     */
+    private Flux<UserMetric> downloadReport(String reportUrl) {
+        log.debug("Fetching metrics data from signed URL: {}", reportUrl);
+
+        Flux<DataBuffer> body = downloadClient
+            .get()
+            .uri(reportUrl)
+            .retrieve()
+            .onStatus(HttpStatusCode::is4xxClientError, this::handle4xxError)
+            .onStatus(HttpStatusCode::is5xxServerError, this::handle5xxError)
+            .bodyToFlux(DataBuffer.class);
+
+        return NDJSON_LINE_DECODER.decode(body, STRING_TYPE, null, Collections.emptyMap())
+            .map(String::trim)
+            .filter(line -> !line.isEmpty())
+            .handle((line, sink) -> {
+                try {
+                    sink.next(objectMapper.readValue(line, UserMetric.class));
+                } catch (JsonProcessingException e) {
+                    sink.error(new ApiClientException("Failed to parse metrics data", e));
+                }
+            });
     }
 }
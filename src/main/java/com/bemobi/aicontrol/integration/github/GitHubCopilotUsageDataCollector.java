@@ -1,26 +1,30 @@
 package com.bemobi.aicontrol.integration.github;
 
 import com.bemobi.aicontrol.integration.common.ApiClientException;
+import com.bemobi.aicontrol.integration.common.MdcPropagation;
 import com.bemobi.aicontrol.integration.common.ToolType;
 import com.bemobi.aicontrol.integration.common.UnifiedSpendingRecord;
 import com.bemobi.aicontrol.integration.common.UnifiedUsageRecord;
+import com.bemobi.aicontrol.integration.common.UsageCollection;
 import com.bemobi.aicontrol.integration.common.UsageDataCollector;
+import com.bemobi.aicontrol.integration.common.UsageRecordBatch;
 import com.bemobi.aicontrol.integration.github.dto.UserMetric;
-import com.bemobi.aicontrol.integration.github.dto.UserMetricsResponse;
-import com.bemobi.aicontrol.integration.google.GoogleWorkspaceClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Collector for GitHub Copilot usage data.
@@ -31,6 +35,9 @@ import java.util.Optional;
  *
  * <p>Metrics are collected from the GitHub Copilot Metrics API:
  * GET /orgs/{org}/copilot/metrics/reports/users-1-day</p>
+ *
+ * <p>Days are fetched concurrently, up to {@code ai-control.api.github.metrics-concurrency}
+ * at a time, and the resulting records are reassembled in date order.</p>
  */
 @Component
 @ConditionalOnProperty(prefix = "ai-control.api.github", name = "enabled", havingValue = "true")
@@ -38,54 +45,144 @@ public class GitHubCopilotUsageDataCollector implements UsageDataCollector {
 
     private static final Logger log = LoggerFactory.getLogger(GitHubCopilotUsageDataCollector.class);
 
+    /**
+     * Metrics converted together, so their Workspace emails are resolved in one batched call.
+     */
+    private static final int RESOLUTION_CHUNK_SIZE = 500;
+
     private final GitHubCopilotApiClient apiClient;
-    private final GoogleWorkspaceClient workspaceClient;
+    private final GitHubIdentityResolver identityResolver;
+    private final GitHubApiProperties properties;
 
     public GitHubCopilotUsageDataCollector(
             GitHubCopilotApiClient apiClient,
-            @Autowired(required = false) GoogleWorkspaceClient workspaceClient) {
+            GitHubIdentityResolver identityResolver,
+            GitHubApiProperties properties) {
         this.apiClient = apiClient;
-        this.workspaceClient = workspaceClient;
+        this.identityResolver = identityResolver;
+        this.properties = properties;
     }
 
     @Override
     public List<UnifiedUsageRecord> collectUsageData(LocalDate startDate, LocalDate endDate)
             throws ApiClientException {
-        log.info("Collecting GitHub Copilot usage data from {} to {}", startDate, endDate);
+        return withSeatsFallback(collectDailyUsage(startDate, endDate), endDate).usageRecords();
+    }
 
-        List<UnifiedUsageRecord> allRecords = new ArrayList<>();
+    /**
+     * Collects the daily metrics with the seats snapshot fallback, keeping the days that failed.
+     *
+     * <p>GitHub Copilot has no spending data, so the collection carries usage only.</p>
+     */
+    @Override
+    public UsageCollection collect(LocalDate startDate, LocalDate endDate) throws ApiClientException {
+        return withSeatsFallback(collectDailyUsage(startDate, endDate), endDate);
+    }
 
-        // GitHub Copilot API returns data per day, so we need to iterate through each day
-        LocalDate currentDate = startDate;
-        while (!currentDate.isAfter(endDate)) {
-            try {
-                UserMetricsResponse response = apiClient.fetchUserMetrics(currentDate);
+    /**
+     * Same as {@link #collectDailyUsage}: the seats snapshot is never stored as a day's usage.
+     */
+    @Override
+    public UsageCollection collectDaily(LocalDate startDate, LocalDate endDate) {
+        return collectDailyUsage(startDate, endDate);
+    }
 
-                if (response.data() != null && !response.data().isEmpty()) {
-                    for (UserMetric metric : response.data()) {
-                        UnifiedUsageRecord record = convertToUnifiedUsageRecord(metric, currentDate);
-                        allRecords.add(record);
-                    }
-                    log.debug("Collected {} user records for date {}", response.data().size(), currentDate);
-                } else {
-                    log.debug("No metrics data available for date {}", currentDate);
-                }
-            } catch (ApiClientException e) {
-                log.warn("Failed to fetch metrics for date {}: {}", currentDate, e.getMessage());
-                // Continue with next date instead of failing completely
-            }
+    /**
+     * Collects the daily metrics of the period only, without the seats snapshot fallback.
+     *
+     * <p>Days whose report could not be fetched are listed in {@link UsageCollection#failedDays()}
+     * rather than being returned as days without usage.</p>
+     */
+    @Override
+    public UsageCollection collectDailyUsage(LocalDate startDate, LocalDate endDate) {
+        log.info("Collecting GitHub Copilot usage data from {} to {}", startDate, endDate);
 
-            currentDate = currentDate.plusDays(1);
+        // GitHub Copilot API returns data per day, so each day is fetched as an independent task
+        List<LocalDate> days = startDate.datesUntil(endDate.plusDays(1)).toList();
+        int concurrency = Math.max(1, properties.getMetricsConcurrency());
+        AtomicInteger completedDays = new AtomicInteger();
+        Set<LocalDate> failedDays = ConcurrentHashMap.newKeySet();
+
+        log.info("Fetching {} days of Copilot metrics with concurrency {}", days.size(), concurrency);
+
+        // Day tasks are assembled here so they capture this thread's MDC;
+        // flatMapSequential keeps the records in date order regardless of completion order
+        List<Mono<UsageRecordBatch>> dayTasks = days.stream()
+            .map(date -> fetchDay(date, failedDays)
+                .doOnNext(records -> log.info("Copilot metrics progress: {}/{} days ({} records for {})",
+                    completedDays.incrementAndGet(), days.size(), records.size(), date)))
+            .toList();
+
+        UsageRecordBatch allRecords = Flux.fromIterable(dayTasks)
+            .flatMapSequential(task -> task, concurrency)
+            .collect(UsageRecordBatch::new, UsageRecordBatch::addAll)
+            .block();
+
+        if (!failedDays.isEmpty()) {
+            log.warn("Copilot metrics of {} of {} days could not be fetched: {}",
+                failedDays.size(), days.size(), new TreeSet<>(failedDays));
         }
+        return new UsageCollection(allRecords != null ? allRecords : new UsageRecordBatch(), List.of(),
+            failedDays, false);
+    }
 
-        // If no metrics data was found, fallback to seats data as a snapshot
-        if (allRecords.isEmpty()) {
+    /**
+     * Falls back to the seats snapshot, dated on the last day, when no metrics were collected.
+     */
+    private UsageCollection withSeatsFallback(UsageCollection daily, LocalDate endDate) throws ApiClientException {
+        UsageCollection collection = daily;
+        if (daily.usageRecords().isEmpty()) {
             log.info("No metrics data available for period, falling back to Copilot seats snapshot");
-            allRecords = collectDataFromSeats(endDate);
+            collection = new UsageCollection(collectDataFromSeats(endDate), List.of(), daily.failedDays(), false);
         }
 
-        log.info("Total GitHub Copilot usage records collected: {}", allRecords.size());
-        return allRecords;
+        log.info("Total GitHub Copilot usage records collected: {}", collection.usageRecords().size());
+        return collection;
+    }
+
+    /**
+     * Streams and converts the metrics of a single day.
+     *
+     * <p>The NDJSON report is decoded line by line and metrics are converted in chunks as they
+     * arrive, on the bounded elastic scheduler since the Workspace lookup blocks. Only the
+     * converted records of the day are retained, in a columnar {@link UsageRecordBatch}.</p>
+     *
+     * <p>Failures are isolated per day: an {@link ApiClientException} is logged, the day is added
+     * to {@code failedDays} and contributes no records, so the remaining days are still collected.</p>
+     */
+    private Mono<UsageRecordBatch> fetchDay(LocalDate date, Set<LocalDate> failedDays) {
+        return apiClient.streamUserMetrics(date)
+            .publishOn(Schedulers.boundedElastic())
+            .buffer(RESOLUTION_CHUNK_SIZE)
+            .concatMapIterable(MdcPropagation.wrap((List<UserMetric> chunk) -> convertChunk(chunk, date)))
+            .collect(UsageRecordBatch::new, UsageRecordBatch::add)
+            .doOnNext(records -> {
+                if (records.isEmpty()) {
+                    log.debug("No metrics data available for date {}", date);
+                } else {
+                    log.debug("Collected {} user records for date {}", records.size(), date);
+                }
+            })
+            .onErrorResume(ApiClientException.class, e -> {
+                log.warn("Failed to fetch metrics for date {}: {}", date, e.getMessage());
+                failedDays.add(date);
+                // Continue with the other dates instead of failing completely
+                return Mono.just(new UsageRecordBatch());
+            });
+    }
+
+    /**
+     * Resolves the Workspace emails of a chunk of metrics with one batched call, then converts them.
+     * Logins already resolved on earlier days are skipped.
+     */
+    private List<UnifiedUsageRecord> convertChunk(List<UserMetric> chunk, LocalDate date) {
+        identityResolver.prefetch(chunk.stream().map(UserMetric::userName).toList());
+
+        List<UnifiedUsageRecord> records = new ArrayList<>(chunk.size());
+        for (UserMetric metric : chunk) {
+            records.add(convertToUnifiedUsageRecord(metric, date));
+        }
+        return records;
     }
 
     /**
@@ -125,42 +222,10 @@ public class GitHubCopilotUsageDataCollector implements UsageDataCollector {
             com.bemobi.aicontrol.integration.common.UserData seat,
             LocalDate date) {
 
-        String email = null;
         String githubLogin = (String) seat.additionalMetrics().get("github_login");
 
-        // Priority 1: ALWAYS try to resolve corporate email from Google Workspace first
-        if (workspaceClient != null && githubLogin != null && !githubLogin.isBlank()) {
-            try {
-                Optional<String> workspaceEmail = workspaceClient.findEmailByGitName(githubLogin);
-                if (workspaceEmail.isPresent()) {
-                    email = workspaceEmail.get();
-                    log.debug("Workspace resolved email for seat {}: {}", githubLogin, email);
-                }
-            } catch (Exception e) {
-                log.warn("Failed to resolve Workspace email for seat {}: {}", githubLogin, e.getMessage());
-            }
-        }
-
-        // Priority 2: Only use seat email if it's @bemobi.com domain
-        if (email == null) {
-            String seatEmail = seat.email();
-            if (isBemobiEmail(seatEmail)) {
-                email = normalizeEmail(seatEmail);
-                log.debug("Using seat email (bemobi.com) for GitHub user {}: {}", githubLogin, email);
-            } else {
-                // Not a bemobi.com email - mark as unregistered
-                email = "[SEM-USR-GITHUB]";
-                log.debug("GitHub seat {} has non-bemobi email ({}), marking as unregistered",
-                    githubLogin, seatEmail);
-            }
-        }
-
-        // Build raw metadata
-        Map<String, Object> rawMetadata = new HashMap<>();
-        rawMetadata.put("gitHubLogin", githubLogin);
-        rawMetadata.put("source", "seats_snapshot");
-        rawMetadata.put("snapshot_date", date.toString());
-        rawMetadata.putAll(seat.additionalMetrics());
+        // Workspace first, then the seat email only if it's @bemobi.com (resolved once per login)
+        String email = identityResolver.resolve(githubLogin, seat.email()).corporateEmail();
 
         return new UnifiedUsageRecord(
                 email,
@@ -172,7 +237,7 @@ public class GitHubCopilotUsageDataCollector implements UsageDataCollector {
                 null, // No lines data from seats
                 null,
                 null, // No acceptance rate from seats
-                rawMetadata
+                new CopilotSeatSnapshotMetadata(githubLogin, date, seat.additionalMetrics())
         );
     }
 
@@ -206,34 +271,9 @@ public class GitHubCopilotUsageDataCollector implements UsageDataCollector {
      */
     private UnifiedUsageRecord convertToUnifiedUsageRecord(UserMetric metric, LocalDate date) {
         String githubLogin = metric.userName();
-        String email = null;
-
-        // Priority 1: ALWAYS try to resolve corporate email from Google Workspace first
-        if (workspaceClient != null && githubLogin != null && !githubLogin.isBlank()) {
-            try {
-                Optional<String> workspaceEmail = workspaceClient.findEmailByGitName(githubLogin);
-                if (workspaceEmail.isPresent()) {
-                    email = workspaceEmail.get();
-                    log.debug("Workspace resolved email for GitHub user {}: {}", githubLogin, email);
-                }
-            } catch (Exception e) {
-                log.warn("Failed to resolve Workspace email for GitHub user {}: {}", githubLogin, e.getMessage());
-            }
-        }
 
-        // Priority 2: Only use GitHub public email if it's @bemobi.com domain
-        if (email == null) {
-            String githubPublicEmail = metric.userEmail();
-            if (isBemobiEmail(githubPublicEmail)) {
-                email = normalizeEmail(githubPublicEmail);
-                log.debug("Using GitHub public email (bemobi.com) for user {}: {}", githubLogin, email);
-            } else {
-                // Not a bemobi.com email - mark as unregistered
-                email = "[SEM-USR-GITHUB]";
-                log.debug("GitHub user {} has non-bemobi email ({}), marking as unregistered",
-                    githubLogin, githubPublicEmail);
-            }
-        }
+        // Workspace first, then the GitHub public email only if it's @bemobi.com (resolved once per login)
+        String email = identityResolver.resolve(githubLogin, metric.userEmail()).corporateEmail();
 
         // Calculate acceptance rate: locAddedSum / locSuggestedToAddSum
         Double acceptanceRate = calculateAcceptanceRate(
@@ -241,17 +281,6 @@ public class GitHubCopilotUsageDataCollector implements UsageDataCollector {
                 metric.locSuggestedToAddSum()
         );
 
-        // Build raw metadata with GitHub-specific fields
-        Map<String, Object> rawMetadata = new HashMap<>();
-        rawMetadata.put("gitHubLogin", githubLogin); // Used by UnifiedSpendingService for unregistered check
-        rawMetadata.put("user_name", metric.userName());
-        rawMetadata.put("user_email", metric.userEmail());
-        rawMetadata.put("date", metric.date());
-        rawMetadata.put("user_initiated_interaction_count", metric.userInitiatedInteractionCount());
-        rawMetadata.put("code_generation_activity_count", metric.codeGenerationActivityCount());
-        rawMetadata.put("code_acceptance_activity_count", metric.codeAcceptanceActivityCount());
-        rawMetadata.put("loc_deleted_sum", metric.locDeletedSum());
-
         return new UnifiedUsageRecord(
                 email,
                 ToolType.GITHUB_COPILOT,
@@ -262,33 +291,10 @@ public class GitHubCopilotUsageDataCollector implements UsageDataCollector {
                 metric.locSuggestedToAddSum(),
                 metric.locAddedSum(),
                 acceptanceRate,
-                rawMetadata
+                new CopilotMetricMetadata(metric) // GitHub-specific fields, including gitHubLogin
         );
     }
 
-    /**
-     * Normalizes email to lowercase, or returns a placeholder if email is null/empty.
-     */
-    private String normalizeEmail(String email) {
-        if (email == null || email.trim().isEmpty()) {
-            return "[SEM-USR-GITHUB]";
-        }
-        return email.toLowerCase().trim();
-    }
-
-    /**
-     * Checks if an email belongs to bemobi.com domain.
-     *
-     * @param email the email to check
-     * @return true if email ends with @bemobi.com, false otherwise
-     */
-    private boolean isBemobiEmail(String email) {
-        if (email == null || email.trim().isEmpty()) {
-            return false;
-        }
-        return email.toLowerCase().trim().endsWith("@bemobi.com");
-    }
-
     /**
      * Calculates acceptance rate from lines added vs lines suggested.
      *
@@ -0,0 +1,333 @@
+package com.bemobi.aicontrol.integration.github;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Persistent conditional-request cache for GitHub REST calls.
+ *
+ * <p>Successful GET responses carrying an {@code ETag} or {@code Last-Modified} header are stored
+ * on disk, one file per URL. Later requests for the same URL send {@code If-None-Match} /
+ * {@code If-Modified-Since}; a {@code 304 Not Modified} is answered with the stored body, and
+ * GitHub does not count it against the primary rate limit.</p>
+ *
+ * <p>The cache is bounded by {@code http-cache.max-entries} and {@code http-cache.max-bytes};
+ * the least recently used entries are evicted first. Metrics report links
+ * ({@code /copilot/metrics/}) carry short-lived signed URLs and are never cached.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "ai-control.api.github", name = "enabled", havingValue = "true")
+public class GitHubHttpCache implements ExchangeFilterFunction, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(GitHubHttpCache.class);
+
+    private static final String ENTRY_SUFFIX = ".json";
+
+    private final GitHubApiProperties.HttpCache settings;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+
+    /**
+     * Entry metadata in LRU order (access-ordered); bodies stay on disk.
+     */
+    private final LinkedHashMap<String, EntryInfo> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public GitHubHttpCache(GitHubApiProperties properties, ObjectMapper objectMapper) {
+        this.settings = properties.getHttpCache();
+        this.objectMapper = objectMapper;
+        this.directory = Path.of(settings.getDirectory());
+
+        if (settings.isEnabled()) {
+            loadIndex();
+        }
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (!settings.isEnabled() || !isCacheable(request)) {
+            return next.exchange(request);
+        }
+
+        String url = request.url().toString();
+        String key = keyFor(url);
+        EntryInfo cached = lookup(key);
+
+        ClientRequest conditional = request;
+        if (cached != null) {
+            conditional = ClientRequest.from(request)
+                .headers(headers -> {
+                    if (cached.etag() != null) {
+                        headers.set(HttpHeaders.IF_NONE_MATCH, cached.etag());
+                    }
+                    if (cached.lastModified() != null) {
+                        headers.set(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified());
+                    }
+                })
+                .build();
+        }
+
+        return next.exchange(conditional)
+            .flatMap(response -> {
+                if (response.statusCode().value() == HttpStatus.NOT_MODIFIED.value() && cached != null) {
+                    return serveFromCache(key, url, response, request, next);
+                }
+                return forward(key, url, response);
+            });
+    }
+
+    /**
+     * Logs hit/miss statistics and the current cache size.
+     */
+    public void logStatistics() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        double hitRate = total == 0 ? 0.0 : (double) hitCount / total * 100;
+        int entries;
+        long bytes;
+        synchronized (this) {
+            entries = index.size();
+            bytes = totalBytes;
+        }
+        log.info("GitHub HTTP cache: {} hits, {} misses ({}% hit rate), {} stored, {} evicted, {} entries / {} KB",
+            hitCount, misses.get(), String.format("%.1f", hitRate), stores.get(), evictions.get(),
+            entries, bytes / 1024);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public void destroy() {
+        if (settings.isEnabled()) {
+            logStatistics();
+        }
+    }
+
+    private boolean isCacheable(ClientRequest request) {
+        return HttpMethod.GET.equals(request.method())
+            && !request.url().getPath().contains("/copilot/metrics/");
+    }
+
+    private static boolean hasValidators(ClientResponse response) {
+        HttpHeaders headers = response.headers().asHttpHeaders();
+        return headers.getETag() != null || headers.getFirst(HttpHeaders.LAST_MODIFIED) != null;
+    }
+
+    /**
+     * Forwards a response that was not answered from the cache, storing it when it can be revalidated.
+     */
+    private Mono<ClientResponse> forward(String key, String url, ClientResponse response) {
+        misses.incrementAndGet();
+        if (response.statusCode().is2xxSuccessful() && hasValidators(response)) {
+            return storeAndForward(key, url, response);
+        }
+        return Mono.just(response);
+    }
+
+    private Mono<ClientResponse> serveFromCache(String key, String url, ClientResponse notModified,
+                                                ClientRequest request, ExchangeFunction next) {
+        return Mono.fromCallable(() -> readEntry(key))
+            .subscribeOn(Schedulers.boundedElastic())
+            .map(entry -> {
+                hits.incrementAndGet();
+                log.debug("GitHub HTTP cache hit (304) for {}", url);
+                return notModified.mutate()
+                    .statusCode(HttpStatus.OK)
+                    .headers(headers -> {
+                        if (entry.contentType() != null) {
+                            headers.set(HttpHeaders.CONTENT_TYPE, entry.contentType());
+                        }
+                    })
+                    .body(entry.body())
+                    .build();
+            })
+            .onErrorResume(IOException.class, e -> {
+                // The stored body is gone or unreadable: a bodiless 304 would read as an empty
+                // result, so drop the entry and repeat the request without validators
+                log.warn("GitHub HTTP cache entry for {} is unreadable, refetching: {}", url, e.getMessage());
+                remove(key);
+                return notModified.releaseBody()
+                    .then(next.exchange(request))
+                    .flatMap(response -> forward(key, url, response));
+            });
+    }
+
+    private Mono<ClientResponse> storeAndForward(String key, String url, ClientResponse response) {
+        HttpHeaders headers = response.headers().asHttpHeaders();
+        String etag = headers.getETag();
+        String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+        String contentType = headers.getFirst(HttpHeaders.CONTENT_TYPE);
+
+        return response.bodyToMono(String.class)
+            .defaultIfEmpty("")
+            .publishOn(Schedulers.boundedElastic())
+            .map(body -> {
+                store(key, new CacheEntry(url, etag, lastModified, contentType, body));
+                return response.mutate().body(body).build();
+            });
+    }
+
+    private synchronized EntryInfo lookup(String key) {
+        return index.get(key);
+    }
+
+    private void store(String key, CacheEntry entry) {
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(entry);
+            if (bytes.length > settings.getMaxBytes()) {
+                return;
+            }
+            Files.createDirectories(directory);
+            Path target = entryPath(key);
+            Path temp = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            synchronized (this) {
+                EntryInfo previous = index.put(key,
+                    new EntryInfo(entry.etag(), entry.lastModified(), bytes.length));
+                if (previous != null) {
+                    totalBytes -= previous.size();
+                }
+                totalBytes += bytes.length;
+                evictIfNeeded();
+            }
+            stores.incrementAndGet();
+        } catch (IOException e) {
+            log.warn("Failed to store GitHub HTTP cache entry for {}: {}", entry.url(), e.getMessage());
+        }
+    }
+
+    private CacheEntry readEntry(String key) throws IOException {
+        return objectMapper.readValue(entryPath(key).toFile(), CacheEntry.class);
+    }
+
+    private synchronized void remove(String key) {
+        EntryInfo removed = index.remove(key);
+        if (removed != null) {
+            totalBytes -= removed.size();
+            deleteQuietly(entryPath(key));
+        }
+    }
+
+    /**
+     * Evicts least recently used entries until both limits are respected. Caller holds the lock.
+     */
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, EntryInfo>> it = index.entrySet().iterator();
+        while ((index.size() > settings.getMaxEntries() || totalBytes > settings.getMaxBytes()) && it.hasNext()) {
+            Map.Entry<String, EntryInfo> eldest = it.next();
+            it.remove();
+            totalBytes -= eldest.getValue().size();
+            deleteQuietly(entryPath(eldest.getKey()));
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void loadIndex() {
+        if (!Files.isDirectory(directory)) {
+            log.info("GitHub HTTP cache enabled at {} (empty)", directory);
+            return;
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(ENTRY_SUFFIX))
+                .sorted((a, b) -> Long.compare(a.toFile().lastModified(), b.toFile().lastModified()))
+                .forEach(this::loadEntry);
+        } catch (IOException e) {
+            log.warn("Failed to load GitHub HTTP cache from {}: {}", directory, e.getMessage());
+        }
+
+        synchronized (this) {
+            evictIfNeeded();
+            log.info("GitHub HTTP cache enabled at {} ({} entries, {} KB)", directory, index.size(), totalBytes / 1024);
+        }
+    }
+
+    private void loadEntry(Path path) {
+        String fileName = path.getFileName().toString();
+        String key = fileName.substring(0, fileName.length() - ENTRY_SUFFIX.length());
+        try {
+            CacheEntry entry = objectMapper.readValue(path.toFile(), CacheEntry.class);
+            long size = Files.size(path);
+            synchronized (this) {
+                index.put(key, new EntryInfo(entry.etag(), entry.lastModified(), size));
+                totalBytes += size;
+            }
+        } catch (IOException e) {
+            log.debug("Discarding unreadable GitHub HTTP cache entry {}: {}", path, e.getMessage());
+            deleteQuietly(path);
+        }
+    }
+
+    private Path entryPath(String key) {
+        return directory.resolve(key + ENTRY_SUFFIX);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Failed to delete GitHub HTTP cache file {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static String keyFor(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(url.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * In-memory metadata of a stored response.
+     */
+    private record EntryInfo(String etag, String lastModified, long size) {
+    }
+
+    /**
+     * Stored response, serialized as one JSON file per URL.
+     */
+    record CacheEntry(String url, String etag, String lastModified, String contentType, String body) {
+    }
+}
@@ -0,0 +1,325 @@
+package com.bemobi.aicontrol.integration.github;
+
+import com.bemobi.aicontrol.integration.common.MdcPropagation;
+import com.bemobi.aicontrol.integration.google.GoogleWorkspaceClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Resolves GitHub logins to corporate identities, querying Google Workspace and the GitHub public
+ * profile at most once per login per run.
+ *
+ * <p>Seat enrichment, the daily metrics conversion, the seats fallback and the unregistered
+ * users sheet all ask this component instead of querying Google Workspace themselves. The
+ * Workspace lookup of a login is shared by every request for it in the run, so a login seen on
+ * 30 report days is looked up once.</p>
+ *
+ * <p>The public email is only consulted when Workspace has no match. A public-profile lookup
+ * ({@link #resolve(String, Supplier)}) is memoized per login like the Workspace lookup, since the
+ * profile belongs to the login, so every {@code fetchUsers()} of the run reuses it. An email the
+ * caller already holds ({@link #resolve(String, String)}, e.g. the one carried by a metrics
+ * report) is applied to that call only.</p>
+ *
+ * <p>Lookups are scoped to a run: entry points call {@link #startRun()} so a long-lived process
+ * does not keep answering with Workspace or profile lookups from earlier runs. The preloaded
+ * Workspace directory and the persisted Workspace resolutions keep their own TTLs.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "ai-control.api.github", name = "enabled", havingValue = "true")
+public class GitHubIdentityResolver implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(GitHubIdentityResolver.class);
+
+    static final String UNREGISTERED_EMAIL = "[SEM-USR-GITHUB]";
+
+    private static final String CORPORATE_DOMAIN = "@bemobi.com";
+
+    private static final Duration RESOLUTION_TIMEOUT = Duration.ofSeconds(60);
+
+    private final GoogleWorkspaceClient workspaceClient;
+
+    /**
+     * Workspace lookup per lower-cased login for the current run; completes empty when not registered.
+     */
+    private final Map<String, Mono<String>> workspaceEmails = new ConcurrentHashMap<>();
+
+    /**
+     * Public-profile email per lower-cased login for the current run; completes empty when the profile has none.
+     */
+    private final Map<String, Mono<String>> profileEmails = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+
+    public GitHubIdentityResolver(@Autowired(required = false) GoogleWorkspaceClient workspaceClient) {
+        this.workspaceClient = workspaceClient;
+    }
+
+    /**
+     * Whether Workspace lookups are available; without them every login is reported as unregistered.
+     *
+     * @return true if the Google Workspace integration is enabled
+     */
+    public boolean isWorkspaceEnabled() {
+        return workspaceClient != null;
+    }
+
+    /**
+     * Starts a new run: forgets the Workspace and profile lookups and the counters of the previous
+     * one, including the Workspace client's in-run lookup cache.
+     */
+    public void startRun() {
+        workspaceEmails.clear();
+        profileEmails.clear();
+        requests.set(0);
+        deduplicated.set(0);
+        if (workspaceClient != null) {
+            workspaceClient.startRun();
+        }
+    }
+
+    /**
+     * Resolves the Workspace emails of many logins with one batched call, so later resolutions of
+     * these logins are answered from memory. Logins already resolved in this run are skipped.
+     * Failures are logged and left to the individual resolutions.
+     *
+     * @param logins GitHub logins about to be resolved
+     */
+    public void prefetch(Collection<String> logins) {
+        if (workspaceClient == null) {
+            return;
+        }
+        List<String> pending = logins.stream()
+            .filter(login -> login != null && !login.isBlank())
+            .filter(login -> !workspaceEmails.containsKey(key(login)))
+            .distinct()
+            .toList();
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            workspaceClient.findEmailsByGitNames(pending);
+        } catch (Exception e) {
+            log.warn("Batched Workspace resolution of {} logins failed, falling back to single lookups: {}",
+                pending.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Resolves a login, looking up its public profile email only if Workspace has no match.
+     *
+     * <p>Both lookups are shared: concurrent and later calls for the same login (in any case)
+     * reuse the first Workspace lookup and the first profile lookup of the run. The profile source
+     * is only subscribed when Workspace has no match. The Mono never errors; failed lookups count
+     * as no match.</p>
+     *
+     * @param login GitHub login
+     * @param profileEmail lazy lookup of the login's GitHub public profile email (may complete empty)
+     * @return the resolved identity
+     */
+    public Mono<GitHubIdentity> resolve(String login, Supplier<Mono<String>> profileEmail) {
+        requests.incrementAndGet();
+        if (login == null || login.isBlank()) {
+            return Mono.just(new GitHubIdentity(login, null, null));
+        }
+        return resolve(login, Mono.defer(() -> profileEmail(login, profileEmail)));
+    }
+
+    /**
+     * Blocking variant of {@link #resolve(String, Supplier)} for callers that already hold the
+     * public email (or have none).
+     *
+     * @param login GitHub login
+     * @param publicEmail GitHub public email, may be null
+     * @return the resolved identity
+     */
+    public GitHubIdentity resolve(String login, String publicEmail) {
+        requests.incrementAndGet();
+        if (login == null || login.isBlank()) {
+            return new GitHubIdentity(login, null, publicEmail);
+        }
+        try {
+            GitHubIdentity identity = resolve(login, Mono.justOrEmpty(publicEmail))
+                .block(RESOLUTION_TIMEOUT);
+            return identity != null ? identity : new GitHubIdentity(login, null, publicEmail);
+        } catch (RuntimeException e) {
+            // block() throws on timeout; a slow lookup counts as no match, like a failed one
+            log.warn("Resolving GitHub user {} did not finish in {} s, treating as not registered: {}",
+                login, RESOLUTION_TIMEOUT.toSeconds(), e.getMessage());
+            return new GitHubIdentity(login, null, publicEmail);
+        }
+    }
+
+    /**
+     * Number of Workspace and profile lookups answered by one already done (or in flight) in this run.
+     *
+     * @return deduplicated lookups
+     */
+    public long getDeduplicatedLookups() {
+        return deduplicated.get();
+    }
+
+    /**
+     * Logs how many resolutions were requested and how many lookups were deduplicated.
+     */
+    public void logStatistics() {
+        log.info("GitHub identities: {} resolution requests, {} Workspace lookups, {} profile lookups, "
+                + "{} lookups deduplicated",
+            requests.get(), workspaceEmails.size(), profileEmails.size(), getDeduplicatedLookups());
+    }
+
+    @Override
+    public void destroy() {
+        if (requests.get() > 0) {
+            logStatistics();
+        }
+    }
+
+    private Mono<GitHubIdentity> resolve(String login, Mono<String> publicEmail) {
+        return workspaceEmail(login)
+            .map(email -> {
+                log.debug("Workspace resolved email for GitHub user {}: {}", login, email);
+                return new GitHubIdentity(login, email, null);
+            })
+            .switchIfEmpty(publicEmail
+                .filter(email -> !email.isBlank())
+                .map(email -> new GitHubIdentity(login, null, email))
+                .onErrorResume(e -> Mono.empty()))
+            .defaultIfEmpty(new GitHubIdentity(login, null, null))
+            .doOnNext(identity -> {
+                if (identity.emailType().equals("not_found")) {
+                    log.debug("Email not available for GitHub user {}, marking as unresolved", login);
+                }
+            });
+    }
+
+    /**
+     * Workspace email of a login, looked up once per run. Assembled on the caller thread so the
+     * lookup keeps its MDC.
+     */
+    private Mono<String> workspaceEmail(String login) {
+        if (workspaceClient == null) {
+            return Mono.empty();
+        }
+        return memoized(workspaceEmails, login, () -> lookupWorkspace(login));
+    }
+
+    /**
+     * Public profile email of a login, looked up once per run when Workspace has no match.
+     */
+    private Mono<String> profileEmail(String login, Supplier<Mono<String>> lookup) {
+        return memoized(profileEmails, login, () -> Mono.defer(lookup)
+            .onErrorResume(e -> {
+                log.debug("Failed to fetch public profile of GitHub user {}: {}", login, e.getMessage());
+                return Mono.empty();
+            }));
+    }
+
+    private Mono<String> memoized(Map<String, Mono<String>> lookups, String login, Supplier<Mono<String>> lookup) {
+        String key = key(login);
+        Mono<String> existing = lookups.get(key);
+        if (existing != null) {
+            deduplicated.incrementAndGet();
+            return existing;
+        }
+        Mono<String> created = lookup.get().cache();
+        existing = lookups.putIfAbsent(key, created);
+        if (existing != null) {
+            deduplicated.incrementAndGet();
+            return existing;
+        }
+        return created;
+    }
+
+    private Mono<String> lookupWorkspace(String login) {
+        // The Directory SDK blocks, so the lookup runs off the event loop
+        return Mono.fromCallable(MdcPropagation.wrap(() -> workspaceClient.findEmailByGitName(login)))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(Mono::justOrEmpty)
+            .filter(email -> !email.isEmpty())
+            .onErrorResume(e -> {
+                log.warn("Failed to resolve Workspace email for GitHub user {}: {}", login, e.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    private static String key(String login) {
+        return login.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Resolved identity of a GitHub login.
+     *
+     * @param login GitHub login
+     * @param workspaceEmail corporate email from Google Workspace, null if not registered
+     * @param publicEmail GitHub public email, null if unknown or not needed
+     */
+    public record GitHubIdentity(String login, String workspaceEmail, String publicEmail) {
+
+        /**
+         * @return true if the login is registered in Google Workspace
+         */
+        public boolean inWorkspace() {
+            return workspaceEmail != null;
+        }
+
+        /**
+         * Best known email for user listings: Workspace, then the public email of any domain.
+         *
+         * @return lower-cased email, or the lower-cased unregistered placeholder
+         */
+        public String email() {
+            if (workspaceEmail != null) {
+                return workspaceEmail.toLowerCase(Locale.ROOT);
+            }
+            if (publicEmail != null) {
+                return publicEmail.toLowerCase(Locale.ROOT);
+            }
+            return UNREGISTERED_EMAIL.toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * How {@link #email()} was obtained.
+         *
+         * @return {@code workspace}, {@code real} or {@code not_found}
+         */
+        public String emailType() {
+            if (workspaceEmail != null) {
+                return "workspace";
+            }
+            return publicEmail != null ? "real" : "not_found";
+        }
+
+        /**
+         * Email for usage records. Business rule: only @bemobi.com addresses are accepted, so a
+         * public email of another domain is reported as unregistered.
+         *
+         * @return Workspace email, public @bemobi.com email, or the unregistered placeholder
+         */
+        public String corporateEmail() {
+            if (workspaceEmail != null) {
+                return workspaceEmail;
+            }
+            return Optional.ofNullable(publicEmail)
+                .map(email -> email.trim().toLowerCase(Locale.ROOT))
+                .filter(email -> email.endsWith(CORPORATE_DOMAIN))
+                .orElse(UNREGISTERED_EMAIL);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.bemobi.aicontrol.integration.github;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Paces GitHub API requests according to the primary rate limit of the token.
+ *
+ * <p>Every response updates a shared budget from {@code X-RateLimit-Limit},
+ * {@code X-RateLimit-Remaining} and {@code X-RateLimit-Reset}. Each request takes one unit of
+ * that budget before it is sent, so concurrent callers (seat enrichment, daily metrics, seat
+ * pagination) draw from the same pool:</p>
+ * <ul>
+ *   <li>while the budget is above {@code rate-limit.pace-below}, requests go out immediately;</li>
+ *   <li>below it, requests are spaced evenly over the time left until the reset;</li>
+ *   <li>once only {@code rate-limit.reserve} units are left, requests wait for the reset.</li>
+ * </ul>
+ *
+ * <p>A {@code 304 Not Modified} (a conditional request answered by the HTTP cache) gets its unit
+ * back, since GitHub does not count it against the limit.</p>
+ *
+ * <p>The wait happens before the request reaches the exchange; API calls set their response
+ * timeout as a request attribute applied after this filter, so a long pacing delay does not
+ * make them time out.</p>
+ *
+ * <p>The current budget is available through {@link #snapshot()}; {@link #logSnapshot()} logs it
+ * after each collection run and it is logged again on shutdown.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "ai-control.api.github", name = "enabled", havingValue = "true")
+public class GitHubRateLimiter implements ExchangeFilterFunction, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(GitHubRateLimiter.class);
+
+    /**
+     * Margin added after the reset time to absorb clock skew with GitHub.
+     */
+    private static final Duration RESET_MARGIN = Duration.ofSeconds(1);
+
+    private final GitHubApiProperties.RateLimit settings;
+
+    private int limit = -1;
+    private int remaining;
+    /**
+     * False until a response reports the budget, and again after the window rolls over.
+     */
+    private boolean budgetKnown;
+    private boolean paused;
+    private Instant resetAt;
+    private Instant nextPermitAt = Instant.EPOCH;
+
+    private final AtomicLong throttledRequests = new AtomicLong();
+    private final AtomicLong totalDelayMs = new AtomicLong();
+
+    public GitHubRateLimiter(GitHubApiProperties properties) {
+        this.settings = properties.getRateLimit();
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (!settings.isEnabled()) {
+            return next.exchange(request);
+        }
+
+        return Mono.defer(() -> {
+            Duration delay = acquire(Instant.now());
+            Mono<ClientResponse> exchange = next.exchange(request).doOnNext(this::update);
+            if (delay.isZero()) {
+                return exchange;
+            }
+            throttledRequests.incrementAndGet();
+            totalDelayMs.addAndGet(delay.toMillis());
+            log.debug("GitHub rate limit pacing: delaying {} by {} ms", request.url().getPath(), delay.toMillis());
+            return Mono.delay(delay).then(exchange);
+        });
+    }
+
+    /**
+     * Returns the current view of the rate limit budget.
+     *
+     * @return snapshot of the budget and pacing counters
+     */
+    public synchronized Budget snapshot() {
+        return new Budget(limit, budgetKnown ? remaining : -1, budgetKnown ? resetAt : null,
+            throttledRequests.get(), totalDelayMs.get());
+    }
+
+    /**
+     * Logs the current budget and pacing counters at INFO level (nothing when pacing is disabled).
+     */
+    public void logSnapshot() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        Budget budget = snapshot();
+        log.info("GitHub rate limit: {}/{} remaining (reset at {}), {} requests delayed for {} ms in total",
+            budget.remaining(), budget.limit(), budget.resetAt(),
+            budget.throttledRequests(), budget.totalDelayMs());
+    }
+
+    @Override
+    public void destroy() {
+        logSnapshot();
+    }
+
+    /**
+     * Takes one unit of the budget and returns how long the caller must wait before sending.
+     */
+    synchronized Duration acquire(Instant now) {
+        if (!budgetKnown) {
+            // Budget unknown until the first response
+            return Duration.ZERO;
+        }
+
+        if (!now.isBefore(resetAt)) {
+            // Window has rolled over; the next response reports the new budget
+            budgetKnown = false;
+            paused = false;
+            nextPermitAt = Instant.EPOCH;
+            return Duration.ZERO;
+        }
+
+        int available = remaining - settings.getReserve();
+        if (available <= 0) {
+            Instant wakeUp = resetAt.plus(RESET_MARGIN);
+            if (!paused) {
+                paused = true;
+                log.warn("GitHub rate limit budget exhausted ({} of {} left), pausing requests until {}",
+                    remaining, limit, resetAt);
+            }
+            // Queued callers all wait for the reset; the count never goes below zero
+            remaining = Math.max(0, remaining - 1);
+            return Duration.between(now, wakeUp);
+        }
+
+        remaining--;
+        if (available > settings.getPaceBelow()) {
+            return Duration.ZERO;
+        }
+
+        // Spread the remaining budget evenly over the rest of the window
+        Duration interval = Duration.between(now, resetAt).dividedBy(available);
+        Instant permitAt = nextPermitAt.isAfter(now) ? nextPermitAt : now;
+        nextPermitAt = permitAt.plus(interval);
+        return Duration.between(now, permitAt);
+    }
+
+    private void update(ClientResponse response) {
+        if (response.statusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+            refund();
+        }
+
+        HttpHeaders headers = response.headers().asHttpHeaders();
+        Integer headerRemaining = parseInt(headers.getFirst("X-RateLimit-Remaining"));
+        Integer headerLimit = parseInt(headers.getFirst("X-RateLimit-Limit"));
+        Integer headerReset = parseInt(headers.getFirst("X-RateLimit-Reset"));
+        if (headerRemaining == null || headerReset == null) {
+            return;
+        }
+
+        Instant headerResetAt = Instant.ofEpochSecond(headerReset);
+        synchronized (this) {
+            if (headerLimit != null) {
+                limit = headerLimit;
+            }
+            if (!budgetKnown || headerResetAt.isAfter(resetAt)) {
+                // New window: trust the server value
+                resetAt = headerResetAt;
+                remaining = Math.max(0, headerRemaining);
+                budgetKnown = true;
+                paused = false;
+            } else if (headerResetAt.equals(resetAt)) {
+                // Same window: responses arrive out of order, keep the lowest count seen
+                // (the local count already includes requests still in flight)
+                remaining = Math.min(remaining, headerRemaining);
+            }
+        }
+    }
+
+    /**
+     * Returns the unit taken by a request that GitHub did not charge.
+     */
+    private synchronized void refund() {
+        if (budgetKnown && (limit < 0 || remaining < limit)) {
+            remaining++;
+        }
+    }
+
+    private static Integer parseInt(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Point-in-time rate limit budget ({@code -1} / {@code null} until the first response).
+     */
+    public record Budget(int limit, int remaining, Instant resetAt, long throttledRequests, long totalDelayMs) {
+    }
+}
@@ -1,6 +1,12 @@
 package com.bemobi.aicontrol.integration.google;
 
+import com.bemobi.aicontrol.integration.common.AsyncLoadingCache;
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
 import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpTransport;
 import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.services.directory.Directory;
 import com.google.api.services.directory.DirectoryScopes;
@@ -11,22 +17,34 @@ import com.google.auth.oauth2.GoogleCredentials;
 import com.google.auth.oauth2.ServiceAccountCredentials;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 
 /**
@@ -35,21 +53,67 @@ import java.util.regex.Pattern;
  *
  * Uses a custom schema field (e.g., custom.git_name) to match GitHub logins
  * to Workspace user profiles.
+ *
+ * With {@code preload} enabled (default), the whole domain directory is read once
+ * (about one request per 500 users) into an in-memory git_name index, refreshed in
+ * the background after {@code preload-ttl}. Otherwise each login is queried individually.
  */
 @Component
 @ConditionalOnProperty(prefix = "ai-control.api.google-workspace", name = "enabled", havingValue = "true")
-public class GoogleWorkspaceClient {
+public class GoogleWorkspaceClient implements DisposableBean {
 
     private static final Logger log = LoggerFactory.getLogger(GoogleWorkspaceClient.class);
     private static final Pattern VALID_GIT_LOGIN = Pattern.compile("^[a-zA-Z0-9]([a-zA-Z0-9-]*[a-zA-Z0-9])?$");
 
     private final Directory directory;
     private final GoogleWorkspaceProperties properties;
-    private final Map<String, Optional<String>> cache = new ConcurrentHashMap<>();
+
+    /**
+     * In-run lookups; concurrent callers of the same login share one Directory API call.
+     */
+    private final AsyncLoadingCache<String, Optional<String>> cache;
+
+    /**
+     * Preloaded index of lower-cased git_name to primary email; null until the first successful preload.
+     */
+    private volatile DirectoryIndex directoryIndex;
+    private volatile boolean preloadFailed;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * Resolutions of per-login Directory queries persisted across runs; null when the resolution cache is disabled.
+     */
+    private final WorkspaceResolutionStore resolutionStore;
 
     public GoogleWorkspaceClient(GoogleWorkspaceProperties properties) throws IOException, GeneralSecurityException {
+        this(properties, GoogleNetHttpTransport.newTrustedTransport());
+    }
+
+    /**
+     * Creates the client on a shared HTTP transport, so Directory API calls reuse pooled connections.
+     *
+     * @param properties Workspace configuration
+     * @param httpTransport shared transport (see HttpClientConfiguration)
+     */
+    @Autowired
+    public GoogleWorkspaceClient(GoogleWorkspaceProperties properties, HttpTransport httpTransport)
+            throws IOException {
         this.properties = properties;
-        this.directory = buildDirectoryService(properties);
+        this.directory = buildDirectoryService(properties, httpTransport);
+        // get() loads on the caller's thread, which is already off the event loop (see
+        // GitHubIdentityResolver), so a miss holds one bounded elastic thread, not two
+        this.cache = new AsyncLoadingCache<>(this::lookupEmail, properties.getCacheMaxSize(),
+                task -> Schedulers.boundedElastic().schedule(task));
+
+        GoogleWorkspaceProperties.ResolutionCache cacheSettings = properties.getResolutionCache();
+        this.resolutionStore = cacheSettings.isEnabled()
+                ? new WorkspaceResolutionStore(
+                        Path.of(cacheSettings.getFile()),
+                        Duration.ofMillis(cacheSettings.getPositiveTtl()),
+                        Duration.ofMillis(cacheSettings.getNegativeTtl()),
+                        Duration.ofMillis(cacheSettings.getFlushInterval()))
+                : null;
+
         log.info("Google Workspace client initialized for domain: {}", properties.getDomain());
     }
 
@@ -63,7 +127,167 @@ public class GoogleWorkspaceClient {
         if (gitLogin == null || gitLogin.isBlank()) {
             return Optional.empty();
         }
-        return cache.computeIfAbsent(gitLogin, this::lookupEmail);
+
+        // The preloaded index, persisted results and the in-run cache skip the Directory API entirely
+        Optional<String> known = findKnownEmail(gitLogin);
+        if (known != null) {
+            return known;
+        }
+
+        return lookupCached(gitLogin);
+    }
+
+    /**
+     * Looks a login up through the in-run cache. A failed Directory call is counted by the cache,
+     * not stored, and answered as "not found" for this call only.
+     */
+    private Optional<String> lookupCached(String gitLogin) {
+        try {
+            return cache.get(gitLogin);
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException io ? io.getCause() : e.getCause();
+            log.warn("Workspace lookup failed for '{}': {}", gitLogin, cause != null ? cause.getMessage() : e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns hit/miss/load-time statistics of the in-run lookup cache.
+     *
+     * @return cache statistics
+     */
+    public AsyncLoadingCache.Stats cacheStats() {
+        return cache.stats();
+    }
+
+    private void remember(String gitLogin, Optional<String> email) {
+        if (resolutionStore != null) {
+            resolutionStore.put(gitLogin, email);
+        }
+    }
+
+    /**
+     * Returns the preloaded index, loading it on first use and refreshing it in the
+     * background once it is older than {@code preload-ttl}. The stale index keeps
+     * answering while the refresh runs.
+     */
+    private DirectoryIndex currentIndex() {
+        DirectoryIndex index = directoryIndex;
+        if (index == null) {
+            synchronized (this) {
+                if (directoryIndex == null && !preloadFailed) {
+                    directoryIndex = loadDirectoryIndex();
+                    preloadFailed = directoryIndex == null;
+                }
+                return directoryIndex;
+            }
+        }
+
+        Duration age = Duration.between(index.loadedAt(), Instant.now());
+        if (age.toMillis() > properties.getPreloadTtl() && refreshing.compareAndSet(false, true)) {
+            log.info("Workspace directory index is {} min old, refreshing in background", age.toMinutes());
+            Schedulers.boundedElastic().schedule(() -> {
+                try {
+                    DirectoryIndex refreshed = loadDirectoryIndex();
+                    if (refreshed != null) {
+                        directoryIndex = refreshed;
+                    }
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        }
+        return index;
+    }
+
+    /**
+     * Pages through every user of the domain once and indexes them by git_name (case-insensitive).
+     *
+     * @return the index, or null if the directory could not be read
+     */
+    private DirectoryIndex loadDirectoryIndex() {
+        String schema = properties.getCustomSchema();
+        String field = properties.getGitNameField();
+        long start = System.currentTimeMillis();
+
+        Map<String, String> emailsByGitName = new HashMap<>();
+        int usersScanned = 0;
+        int pages = 0;
+        String pageToken = null;
+
+        try {
+            do {
+                Users result = directory.users().list()
+                        .setDomain(properties.getDomain())
+                        .setProjection("custom")
+                        .setCustomFieldMask(schema)
+                        .setMaxResults(properties.getPreloadPageSize())
+                        .setFields("nextPageToken,users(primaryEmail,customSchemas)")
+                        .setPageToken(pageToken)
+                        .execute();
+                pages++;
+
+                if (result.getUsers() != null) {
+                    for (User user : result.getUsers()) {
+                        usersScanned++;
+                        indexUser(user, schema, field, emailsByGitName);
+                    }
+                }
+                pageToken = result.getNextPageToken();
+            } while (pageToken != null && !pageToken.isEmpty());
+
+        } catch (IOException e) {
+            log.warn("Workspace directory preload failed after {} page(s): {}", pages, e.getMessage());
+            return null;
+        }
+
+        log.info("Workspace directory preloaded: {} users scanned, {} git_name entries, {} page(s) in {} ms",
+                usersScanned, emailsByGitName.size(), pages, System.currentTimeMillis() - start);
+        return new DirectoryIndex(Map.copyOf(emailsByGitName), Instant.now());
+    }
+
+    private static void indexUser(User user, String schema, String field, Map<String, String> emailsByGitName) {
+        if (user.getPrimaryEmail() == null || user.getCustomSchemas() == null) {
+            return;
+        }
+        Map<String, Object> fields = user.getCustomSchemas().get(schema);
+        if (fields == null) {
+            return;
+        }
+
+        for (String gitName : gitNameValues(fields.get(field))) {
+            String key = gitName.trim().toLowerCase(Locale.ROOT);
+            if (key.isEmpty()) {
+                continue;
+            }
+            String existing = emailsByGitName.putIfAbsent(key, user.getPrimaryEmail());
+            if (existing != null && !existing.equalsIgnoreCase(user.getPrimaryEmail())) {
+                log.warn("Workspace: git_name '{}' is set on both {} and {}, keeping {}",
+                        key, existing, user.getPrimaryEmail(), existing);
+            }
+        }
+    }
+
+    /**
+     * Extracts the values of a custom field, which is either a single value or a
+     * multi-valued list of {@code {"value": ...}} entries.
+     */
+    private static List<String> gitNameValues(Object value) {
+        if (value instanceof String single) {
+            return List.of(single);
+        }
+        if (value instanceof List<?> multi) {
+            List<String> values = new ArrayList<>();
+            for (Object item : multi) {
+                if (item instanceof Map<?, ?> entry && entry.get("value") instanceof String itemValue) {
+                    values.add(itemValue);
+                } else if (item instanceof String itemValue) {
+                    values.add(itemValue);
+                }
+            }
+            return values;
+        }
+        return List.of();
     }
 
     private Optional<String> lookupEmail(String gitLogin) {
@@ -73,33 +297,165 @@ public class GoogleWorkspaceClient {
         }
 
         try {
-            String query = properties.getCustomSchema() + "." + properties.getGitNameField() + "='" + gitLogin + "'";
-
-            Users result = directory.users().list()
-                    .setDomain(properties.getDomain())
-                    .setQuery(query)
-                    .setProjection("custom")
-                    .setCustomFieldMask(properties.getCustomSchema())
-                    .setMaxResults(1)
-                    .execute();
-
-            List<User> users = result.getUsers();
-            if (users != null && !users.isEmpty()) {
-                String email = users.get(0).getPrimaryEmail();
-                log.debug("Workspace resolved {} -> {}", gitLogin, email);
-                return Optional.ofNullable(email);
+            return recordMatch(gitLogin, gitNameQuery(gitLogin).execute());
+        } catch (IOException e) {
+            // Surfaced to the cache as a load failure, so it is counted and retried on the next lookup
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Resolves many GitHub logins at once.
+     *
+     * <p>Logins already known (preloaded index, persisted resolutions, in-run cache) are answered
+     * from memory. The remaining ones are sent as {@code users.list} queries packed into Google
+     * API batch requests of {@code batch-size} queries each, so N logins cost about
+     * N / batch-size HTTP calls. Queries that fail inside a batch, or whole batches that fail,
+     * fall back to individual lookups.</p>
+     *
+     * <p>Results are cached like {@link #findEmailByGitName(String)}, so later single lookups of the
+     * same logins are answered from memory.</p>
+     *
+     * @param gitLogins GitHub usernames to look up (duplicates and blanks are ignored)
+     * @return map from each given login to its corporate email (empty if not found)
+     */
+    public Map<String, Optional<String>> findEmailsByGitNames(Collection<String> gitLogins) {
+        Map<String, Optional<String>> results = new HashMap<>();
+        List<String> pending = new ArrayList<>();
+
+        for (String gitLogin : new LinkedHashSet<>(gitLogins)) {
+            if (gitLogin == null || gitLogin.isBlank()) {
+                continue;
             }
+            Optional<String> known = findKnownEmail(gitLogin);
+            if (known != null) {
+                results.put(gitLogin, known);
+            } else if (!VALID_GIT_LOGIN.matcher(gitLogin).matches()) {
+                log.debug("Workspace: skipping invalid git login '{}'", gitLogin);
+                results.put(gitLogin, Optional.empty());
+            } else {
+                pending.add(gitLogin);
+            }
+        }
 
-            log.debug("Workspace: no match for git_name '{}'", gitLogin);
-            return Optional.empty();
+        if (pending.isEmpty()) {
+            return results;
+        }
 
+        int batchSize = Math.max(1, properties.getBatchSize());
+        int total = results.size() + pending.size();
+        log.info("Workspace: resolving {} of {} logins in batches of {}", pending.size(), total, batchSize);
+
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<String> chunk = pending.subList(from, Math.min(from + batchSize, pending.size()));
+            results.putAll(resolveBatch(chunk));
+        }
+        return results;
+    }
+
+    /**
+     * Answers a login without calling the Directory API, or returns null if it is unknown.
+     *
+     * <p>The preloaded index is authoritative: when it is available, persisted resolutions are
+     * neither consulted nor written, since they may be days older than the index. Persisted
+     * resolutions only stand in for per-login queries, which is also how lookups proceed for the
+     * rest of the run if the preload fails.</p>
+     */
+    private Optional<String> findKnownEmail(String gitLogin) {
+        if (properties.isPreload() && !preloadFailed) {
+            DirectoryIndex index = currentIndex();
+            if (index != null) {
+                return Optional.ofNullable(index.emailsByGitName().get(gitLogin.toLowerCase(Locale.ROOT)));
+            }
+        }
+        if (resolutionStore != null) {
+            Optional<Optional<String>> stored = resolutionStore.get(gitLogin);
+            if (stored.isPresent()) {
+                return stored.get();
+            }
+        }
+        return cache.getIfPresent(gitLogin);
+    }
+
+    /**
+     * Sends one batch request with a {@code users.list} query per login.
+     */
+    private Map<String, Optional<String>> resolveBatch(List<String> gitLogins) {
+        Map<String, Optional<String>> results = new HashMap<>();
+        List<String> failed = new ArrayList<>();
+
+        try {
+            BatchRequest batch = directory.batch();
+            for (String gitLogin : gitLogins) {
+                gitNameQuery(gitLogin).queue(batch, new JsonBatchCallback<Users>() {
+                    @Override
+                    public void onSuccess(Users result, HttpHeaders responseHeaders) {
+                        Optional<String> email = recordMatch(gitLogin, result);
+                        cache.put(gitLogin, email);
+                        results.put(gitLogin, email);
+                    }
+
+                    @Override
+                    public void onFailure(GoogleJsonError error, HttpHeaders responseHeaders) {
+                        log.debug("Workspace batch lookup failed for '{}': {} {}",
+                                gitLogin, error.getCode(), error.getMessage());
+                        failed.add(gitLogin);
+                    }
+                });
+            }
+            batch.execute();
         } catch (IOException e) {
-            log.warn("Workspace lookup failed for '{}': {}", gitLogin, e.getMessage());
-            return Optional.empty();
+            log.warn("Workspace batch of {} lookups failed: {}", gitLogins.size(), e.getMessage());
+            failed.clear();
+            for (String gitLogin : gitLogins) {
+                if (!results.containsKey(gitLogin)) {
+                    failed.add(gitLogin);
+                }
+            }
         }
+
+        if (!failed.isEmpty()) {
+            log.info("Workspace: retrying {} failed batch lookups individually", failed.size());
+            for (String gitLogin : failed) {
+                results.put(gitLogin, lookupCached(gitLogin));
+            }
+        }
+        return results;
     }
 
-    Directory buildDirectoryService(GoogleWorkspaceProperties props) throws IOException, GeneralSecurityException {
+    /**
+     * Builds the {@code users.list} query matching a login against the git_name custom field.
+     */
+    private Directory.Users.List gitNameQuery(String gitLogin) throws IOException {
+        String query = properties.getCustomSchema() + "." + properties.getGitNameField() + "='" + gitLogin + "'";
+
+        return directory.users().list()
+                .setDomain(properties.getDomain())
+                .setQuery(query)
+                .setProjection("custom")
+                .setCustomFieldMask(properties.getCustomSchema())
+                .setMaxResults(1);
+    }
+
+    /**
+     * Extracts the email from a {@code users.list} result and persists the resolution.
+     */
+    private Optional<String> recordMatch(String gitLogin, Users result) {
+        List<User> users = result.getUsers();
+        if (users != null && !users.isEmpty()) {
+            String email = users.get(0).getPrimaryEmail();
+            log.debug("Workspace resolved {} -> {}", gitLogin, email);
+            remember(gitLogin, Optional.ofNullable(email));
+            return Optional.ofNullable(email);
+        }
+
+        log.debug("Workspace: no match for git_name '{}'", gitLogin);
+        remember(gitLogin, Optional.empty());
+        return Optional.empty();
+    }
+
+    Directory buildDirectoryService(GoogleWorkspaceProperties props, HttpTransport httpTransport)
+            throws IOException {
         GoogleCredentials credentials = loadCredentials(props.getCredentials());
 
         if (!(credentials instanceof ServiceAccountCredentials serviceCredentials)) {
@@ -113,7 +469,7 @@ public class GoogleWorkspaceClient {
                 .createDelegated(props.getAdminEmail());
 
         return new Directory.Builder(
-                GoogleNetHttpTransport.newTrustedTransport(),
+                httpTransport,
                 GsonFactory.getDefaultInstance(),
                 new HttpCredentialsAdapter(delegated))
                 .setApplicationName("ai-user-control")
@@ -140,9 +496,45 @@ public class GoogleWorkspaceClient {
     }
 
     /**
-     * Clears the in-memory cache.
+     * Starts a new run: forgets the in-run lookups, so logins not covered by the preloaded index or
+     * the persisted resolutions are queried again. Those two keep their own TTLs.
+     */
+    public void startRun() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Clears the in-memory cache, the preloaded directory index and the persisted resolutions.
      */
     public void clearCache() {
-        cache.clear();
+        cache.invalidateAll();
+        directoryIndex = null;
+        preloadFailed = false;
+        if (resolutionStore != null) {
+            resolutionStore.clear();
+        }
+    }
+
+    /**
+     * Logs lookup cache statistics and writes pending resolutions to disk on shutdown.
+     */
+    @Override
+    public void destroy() {
+        AsyncLoadingCache.Stats stats = cache.stats();
+        if (stats.misses() > 0) {
+            log.info("Workspace lookup cache: {} hits, {} misses ({}% hit rate), {} failed, {} evicted, "
+                    + "avg lookup {} ms",
+                    stats.hits(), stats.misses(), String.format("%.1f", stats.hitRate() * 100),
+                    stats.loadFailures(), stats.evictions(), String.format("%.1f", stats.averageLoadMillis()));
+        }
+        if (resolutionStore != null) {
+            resolutionStore.close();
+        }
+    }
+
+    /**
+     * Preloaded git_name index and the time it was built.
+     */
+    private record DirectoryIndex(Map<String, String> emailsByGitName, Instant loadedAt) {
     }
 }
@@ -27,6 +27,33 @@ public class GoogleWorkspaceProperties {
 
     private int timeout = 30000;
 
+    /**
+     * Load the whole directory into an in-memory git_name index instead of one query per login.
+     */
+    private boolean preload = true;
+
+    /**
+     * Age in milliseconds after which the preloaded index is refreshed in the background.
+     */
+    private long preloadTtl = 3600000;
+
+    /**
+     * Users per Directory API page during preload (API maximum: 500).
+     */
+    private int preloadPageSize = 500;
+
+    /**
+     * Lookups packed into one Directory API batch request by findEmailsByGitNames.
+     */
+    private int batchSize = 50;
+
+    /**
+     * Maximum logins kept in the in-run lookup cache; the oldest entries are evicted first.
+     */
+    private int cacheMaxSize = 10000;
+
+    private final ResolutionCache resolutionCache = new ResolutionCache();
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -82,4 +109,113 @@ public class GoogleWorkspaceProperties {
     public void setTimeout(int timeout) {
         this.timeout = timeout;
     }
+
+    public boolean isPreload() {
+        return preload;
+    }
+
+    public void setPreload(boolean preload) {
+        this.preload = preload;
+    }
+
+    public long getPreloadTtl() {
+        return preloadTtl;
+    }
+
+    public void setPreloadTtl(long preloadTtl) {
+        this.preloadTtl = preloadTtl;
+    }
+
+    public int getPreloadPageSize() {
+        return preloadPageSize;
+    }
+
+    public void setPreloadPageSize(int preloadPageSize) {
+        this.preloadPageSize = preloadPageSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    public void setCacheMaxSize(int cacheMaxSize) {
+        this.cacheMaxSize = cacheMaxSize;
+    }
+
+    public ResolutionCache getResolutionCache() {
+        return resolutionCache;
+    }
+
+    /**
+     * On-disk cache of login resolutions shared across runs. TTLs and interval are in milliseconds.
+     */
+    public static class ResolutionCache {
+
+        private boolean enabled = true;
+
+        private String file = "./cache/workspace-resolutions.bin";
+
+        /**
+         * How long a found email is reused before the login is resolved again.
+         */
+        private long positiveTtl = 7L * 24 * 3600 * 1000;
+
+        /**
+         * How long a "not found" result is reused (shorter, so new directory entries are picked up).
+         */
+        private long negativeTtl = 24L * 3600 * 1000;
+
+        /**
+         * Interval of the write-behind flush to disk.
+         */
+        private long flushInterval = 30000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public long getPositiveTtl() {
+            return positiveTtl;
+        }
+
+        public void setPositiveTtl(long positiveTtl) {
+            this.positiveTtl = positiveTtl;
+        }
+
+        public long getNegativeTtl() {
+            return negativeTtl;
+        }
+
+        public void setNegativeTtl(long negativeTtl) {
+            this.negativeTtl = negativeTtl;
+        }
+
+        public long getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(long flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+    }
 }
@@ -0,0 +1,186 @@
+package com.bemobi.aicontrol.integration.google;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persistent cache of git login to Workspace email resolutions, shared across runs.
+ *
+ * <p>Positive results (email found) and negative results (no match) expire after separate
+ * TTLs, so a login that was just added to the directory is retried sooner than a known
+ * mapping. Entries are kept in memory and written behind: changes mark the store dirty and
+ * a periodic task (and {@link #close()}) rewrites the file.</p>
+ *
+ * <p>File format (big-endian, {@link DataOutputStream}): magic {@code WRS1}, entry count,
+ * then per entry the login (modified UTF-8), a found flag, the email when found, and the
+ * resolution time in epoch milliseconds. Expired entries are dropped on load and on flush.</p>
+ */
+final class WorkspaceResolutionStore {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkspaceResolutionStore.class);
+
+    private static final int MAGIC = 0x57525331;
+
+    private final Path file;
+    private final long positiveTtlMs;
+    private final long negativeTtlMs;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final Disposable flusher;
+
+    WorkspaceResolutionStore(Path file, Duration positiveTtl, Duration negativeTtl, Duration flushInterval) {
+        this.file = file;
+        this.positiveTtlMs = positiveTtl.toMillis();
+        this.negativeTtlMs = negativeTtl.toMillis();
+        load();
+        long intervalMs = Math.max(1000, flushInterval.toMillis());
+        this.flusher = Schedulers.boundedElastic()
+                .schedulePeriodically(this::flush, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the stored resolution of a login, if present and not expired.
+     *
+     * @param login git login (case-insensitive)
+     * @return empty if unknown or expired; otherwise the stored result (which may itself be empty)
+     */
+    Optional<Optional<String>> get(String login) {
+        String key = login.toLowerCase(Locale.ROOT);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (isExpired(entry, System.currentTimeMillis())) {
+            entries.remove(key, entry);
+            dirty.set(true);
+            return Optional.empty();
+        }
+        return Optional.of(Optional.ofNullable(entry.email()));
+    }
+
+    /**
+     * Records the resolution of a login (an empty email is stored as a negative result).
+     */
+    void put(String login, Optional<String> email) {
+        entries.put(login.toLowerCase(Locale.ROOT), new Entry(email.orElse(null), System.currentTimeMillis()));
+        dirty.set(true);
+    }
+
+    void clear() {
+        entries.clear();
+        dirty.set(true);
+    }
+
+    /**
+     * Writes the store to disk if it changed since the last flush.
+     */
+    void flush() {
+        if (!dirty.compareAndSet(true, false)) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        entries.entrySet().removeIf(e -> isExpired(e.getValue(), now));
+
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = Files.createTempFile(parent, "workspace-resolutions", ".tmp");
+            Map<String, Entry> snapshot = Map.copyOf(entries);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> e : snapshot.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    out.writeBoolean(e.getValue().email() != null);
+                    if (e.getValue().email() != null) {
+                        out.writeUTF(e.getValue().email());
+                    }
+                    out.writeLong(e.getValue().resolvedAt());
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Workspace resolution cache flushed: {} entries to {}", snapshot.size(), file);
+        } catch (IOException e) {
+            dirty.set(true);
+            log.warn("Failed to write Workspace resolution cache {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the periodic flush and writes pending changes.
+     */
+    void close() {
+        flusher.dispose();
+        flush();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        long ttl = entry.email() != null ? positiveTtlMs : negativeTtlMs;
+        return now - entry.resolvedAt() > ttl;
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        int expired = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                log.warn("Ignoring Workspace resolution cache {}: unknown format", file);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String login = in.readUTF();
+                String email = in.readBoolean() ? in.readUTF() : null;
+                Entry entry = new Entry(email, in.readLong());
+                if (isExpired(entry, now)) {
+                    expired++;
+                } else {
+                    entries.put(login, entry);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to read Workspace resolution cache {}: {}", file, e.getMessage());
+        }
+
+        if (expired > 0) {
+            dirty.set(true);
+        }
+        log.info("Workspace resolution cache loaded: {} entries ({} expired dropped) from {}",
+                entries.size(), expired, file);
+    }
+
+    /**
+     * Stored resolution; a null email is a negative result.
+     */
+    private record Entry(String email, long resolvedAt) {
+    }
+}
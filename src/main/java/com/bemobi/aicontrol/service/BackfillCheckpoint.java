@@ -0,0 +1,105 @@
+package com.bemobi.aicontrol.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Days completed by the backfill, persisted as JSON after every work unit.
+ *
+ * <p>Completed days are recorded per tool ({@code "cursor": ["2025-01-01", ...]}), so a rerun
+ * skips them whatever its range or window size, including the default range that moves forward
+ * one day per day. Checkpoints written as day windows ({@code 2025-01-01/2025-01-07}) by earlier
+ * versions are read as the days they cover.</p>
+ */
+final class BackfillCheckpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(BackfillCheckpoint.class);
+
+    private static final TypeReference<TreeMap<String, TreeSet<String>>> STATE_TYPE = new TypeReference<>() {
+    };
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private final Map<String, TreeSet<String>> completed;
+
+    private BackfillCheckpoint(Path file, ObjectMapper objectMapper, Map<String, TreeSet<String>> completed) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+        this.completed = completed;
+    }
+
+    /**
+     * Loads the checkpoint, or starts an empty one if the file does not exist.
+     *
+     * @throws IOException if the file exists but cannot be read (so progress is never silently reset)
+     */
+    static BackfillCheckpoint load(Path file, ObjectMapper objectMapper) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return new BackfillCheckpoint(file, objectMapper, new TreeMap<>());
+        }
+        TreeMap<String, TreeSet<String>> state = objectMapper.readValue(file.toFile(), STATE_TYPE);
+        state.replaceAll((tool, entries) -> toDays(entries));
+        return new BackfillCheckpoint(file, objectMapper, state);
+    }
+
+    synchronized boolean isCompleted(String tool, LocalDate day) {
+        TreeSet<String> days = completed.get(tool);
+        return days != null && days.contains(day.toString());
+    }
+
+    /**
+     * Marks days written to the record store as completed and writes the checkpoint atomically.
+     */
+    synchronized void complete(String tool, Collection<LocalDate> days) {
+        if (days.isEmpty()) {
+            return;
+        }
+        TreeSet<String> toolDays = completed.computeIfAbsent(tool, key -> new TreeSet<>());
+        days.forEach(day -> toolDays.add(day.toString()));
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, "backfill-checkpoint", ".tmp");
+            objectMapper.writeValue(temp.toFile(), completed);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The days were written to the store; at worst they are fetched again on the next run
+            log.warn("Failed to write backfill checkpoint {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Expands legacy window entries ({@code start/end}) into the days they cover.
+     */
+    private static TreeSet<String> toDays(TreeSet<String> entries) {
+        TreeSet<String> days = new TreeSet<>();
+        for (String entry : entries) {
+            int separator = entry.indexOf('/');
+            if (separator < 0) {
+                days.add(entry);
+                continue;
+            }
+            try {
+                LocalDate start = LocalDate.parse(entry.substring(0, separator));
+                LocalDate end = LocalDate.parse(entry.substring(separator + 1));
+                start.datesUntil(end.plusDays(1)).forEach(day -> days.add(day.toString()));
+            } catch (DateTimeParseException e) {
+                log.warn("Ignoring unreadable backfill checkpoint entry '{}'", entry);
+            }
+        }
+        return days;
+    }
+}
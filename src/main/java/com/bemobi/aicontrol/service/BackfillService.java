@@ -0,0 +1,260 @@
+package com.bemobi.aicontrol.service;
+
+import com.bemobi.aicontrol.config.BackfillProperties;
+import com.bemobi.aicontrol.integration.common.MdcPropagation;
+import com.bemobi.aicontrol.integration.common.UsageCollection;
+import com.bemobi.aicontrol.integration.common.UsageDataCollector;
+import com.bemobi.aicontrol.integration.github.GitHubIdentityResolver;
+import com.bemobi.aicontrol.storage.RecordStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Backfills historical usage into the record store in checkpointed work units.
+ *
+ * <p>The range is split per tool into windows of {@code ai-control.backfill.window-days}, aligned
+ * on fixed boundaries (multiples of the window size counted from the epoch day) rather than on
+ * the start date, so reruns over a shifted range line up with the same windows. Each unit
+ * fetches the daily usage of the days of its window not yet completed (daily spending too, for
+ * tools that report it), saves it to the store and records the stored days in the checkpoint
+ * file, so a crash or timeout only loses the units in flight and a rerun resumes with the days
+ * not completed.</p>
+ *
+ * <p>Tools run in parallel; within a tool at most {@code ai-control.backfill.concurrency} units
+ * run at the same time, on top of the tool's own pacing (e.g. the GitHub rate limiter). A failed
+ * unit is logged and left out of the checkpoint, so the next run retries it. A unit is also
+ * failed when only some of its days failed (e.g. a rate-limited GitHub day) or could not be
+ * written: only the days the store reports as written are checkpointed, the others are retried
+ * on the next run.</p>
+ */
+@Service
+public class BackfillService {
+
+    private static final Logger log = LoggerFactory.getLogger(BackfillService.class);
+
+    private final List<UsageDataCollector> collectors;
+    private final RecordStore recordStore;
+    private final BackfillProperties properties;
+    private final ObjectMapper objectMapper;
+    private final GitHubIdentityResolver identityResolver;
+
+    public BackfillService(List<UsageDataCollector> collectors,
+                           @Autowired(required = false) RecordStore recordStore,
+                           BackfillProperties properties,
+                           ObjectMapper objectMapper,
+                           @Autowired(required = false) GitHubIdentityResolver identityResolver) {
+        this.collectors = collectors;
+        this.recordStore = recordStore;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.identityResolver = identityResolver;
+    }
+
+    /**
+     * Backfills the configured tools for a date range, resuming from the checkpoint.
+     *
+     * @param startDate first day (inclusive)
+     * @param endDate last day (inclusive)
+     * @return unit counts and throughput of this run
+     * @throws IOException if the checkpoint file exists but cannot be read
+     * @throws IllegalStateException if the record store is not enabled
+     */
+    public BackfillResult backfill(LocalDate startDate, LocalDate endDate) throws IOException {
+        if (recordStore == null) {
+            throw new IllegalStateException("Backfill requires the record store (ai-control.storage.enabled=true)");
+        }
+
+        if (identityResolver != null) {
+            identityResolver.startRun();
+        }
+
+        BackfillCheckpoint checkpoint = BackfillCheckpoint.load(Path.of(properties.getCheckpointFile()), objectMapper);
+        List<UnitWindow> windows = splitRange(startDate, endDate, Math.max(1, properties.getWindowDays()));
+        List<UsageDataCollector> selected = collectors.stream()
+            .filter(collector -> properties.getTools().contains(collector.getToolType().getId()))
+            .toList();
+
+        List<WorkUnit> pending = new ArrayList<>();
+        int skipped = 0;
+        for (UsageDataCollector collector : selected) {
+            String toolId = collector.getToolType().getId();
+            for (UnitWindow window : windows) {
+                // Only the span of days not completed yet is fetched again
+                List<LocalDate> remaining = window.start().datesUntil(window.end().plusDays(1))
+                    .filter(day -> !checkpoint.isCompleted(toolId, day))
+                    .toList();
+                if (remaining.isEmpty()) {
+                    skipped++;
+                } else {
+                    pending.add(new WorkUnit(collector,
+                        new UnitWindow(remaining.get(0), remaining.get(remaining.size() - 1))));
+                }
+            }
+        }
+
+        log.info("Backfill {} to {} for {}: {} units of {} days, {} already completed, {} to run",
+            startDate, endDate, selected.stream().map(c -> c.getToolType().getId()).toList(),
+            windows.size() * selected.size(), properties.getWindowDays(), skipped, pending.size());
+
+        Progress progress = new Progress(pending.size(), System.nanoTime());
+        int concurrency = Math.max(1, properties.getConcurrency());
+
+        // One inner Flux per tool bounds that tool's concurrency; tools proceed independently
+        Flux.fromIterable(selected)
+            .flatMap(collector -> Flux.fromIterable(pending)
+                .filter(unit -> unit.collector() == collector)
+                .flatMap(unit -> runUnit(unit, checkpoint, progress), concurrency),
+                Math.max(1, selected.size()))
+            .blockLast();
+
+        BackfillResult result = new BackfillResult(progress.completed.get(), skipped, progress.failed.get(),
+            progress.days.get(), progress.daysPerMinute());
+        log.info("Backfill finished: {} units completed, {} skipped, {} failed, {} days at {} days/min",
+            result.completedUnits(), result.skippedUnits(), result.failedUnits(), result.days(),
+            String.format("%.1f", result.daysPerMinute()));
+        return result;
+    }
+
+    private Mono<Boolean> runUnit(WorkUnit unit, BackfillCheckpoint checkpoint, Progress progress) {
+        String toolId = unit.collector().getToolType().getId();
+        UnitWindow window = unit.window();
+
+        Callable<Boolean> task;
+        try (MDC.MDCCloseable ignored = MDC.putCloseable("toolName", toolId)) {
+            task = MdcPropagation.wrap(() -> {
+                UsageDataCollector collector = unit.collector();
+                UsageCollection collection;
+                Set<LocalDate> storedDays;
+                if (collector.reportsDailySpending()) {
+                    collection = collector.collectDaily(window.start(), window.end());
+                    if (collection.spendingFailed()) {
+                        // A stored day counts as complete, so no day is stored without its spending
+                        collection = new UsageCollection(List.of(), List.of(), window.dates(), true);
+                    }
+                    storedDays = recordStore.saveCollection(collector.getToolType(), window.start(), window.end(),
+                        collection);
+                } else {
+                    collection = collector.collectDailyUsage(window.start(), window.end());
+                    storedDays = recordStore.saveUsage(collector.getToolType(), window.start(), window.end(),
+                        collection);
+                }
+
+                // Only days the store actually wrote are checkpointed; the others are fetched again
+                checkpoint.complete(toolId, storedDays);
+
+                if (!collection.complete() || storedDays.size() < window.days()) {
+                    progress.failed.incrementAndGet();
+                    log.warn("Backfill unit {} of {} is incomplete ({} of {} days stored{}), "
+                            + "it will be retried on the next run",
+                        window.key(), toolId, storedDays.size(), window.days(),
+                        collection.spendingFailed() ? ", spending failed" : "");
+                    return false;
+                }
+
+                int done = progress.completed.incrementAndGet();
+                progress.days.addAndGet(window.days());
+                log.info("Backfill progress: {}/{} units ({} {}), {} days/min",
+                    done, progress.total, toolId, window.key(), String.format("%.1f", progress.daysPerMinute()));
+                return true;
+            });
+        }
+
+        return Mono.fromCallable(task)
+            .subscribeOn(Schedulers.boundedElastic())
+            .onErrorResume(e -> {
+                progress.failed.incrementAndGet();
+                try (MDC.MDCCloseable ignored = MDC.putCloseable("toolName", toolId)) {
+                    log.error("Backfill unit {} of {} failed, it will be retried on the next run: {}",
+                        window.key(), toolId, e.getMessage());
+                }
+                return Mono.just(false);
+            });
+    }
+
+    /**
+     * Splits a range into windows aligned on multiples of {@code windowDays} from the epoch day;
+     * the first and last windows are clipped to the range.
+     */
+    static List<UnitWindow> splitRange(LocalDate startDate, LocalDate endDate, int windowDays) {
+        List<UnitWindow> windows = new ArrayList<>();
+        long firstWindow = Math.floorDiv(startDate.toEpochDay(), windowDays) * windowDays;
+        for (long epochDay = firstWindow; epochDay <= endDate.toEpochDay(); epochDay += windowDays) {
+            LocalDate start = LocalDate.ofEpochDay(epochDay);
+            LocalDate end = LocalDate.ofEpochDay(epochDay + windowDays - 1);
+            windows.add(new UnitWindow(start.isBefore(startDate) ? startDate : start,
+                end.isAfter(endDate) ? endDate : end));
+        }
+        return windows;
+    }
+
+    private record WorkUnit(UsageDataCollector collector, UnitWindow window) {
+    }
+
+    record UnitWindow(LocalDate start, LocalDate end) {
+        String key() {
+            return start + "/" + end;
+        }
+
+        int days() {
+            return (int) ChronoUnit.DAYS.between(start, end) + 1;
+        }
+
+        Set<LocalDate> dates() {
+            return start.datesUntil(end.plusDays(1)).collect(Collectors.toCollection(TreeSet::new));
+        }
+    }
+
+    /**
+     * Counters shared by the units of one run.
+     */
+    private static final class Progress {
+        private final int total;
+        private final long startedAt;
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger days = new AtomicInteger();
+
+        private Progress(int total, long startedAt) {
+            this.total = total;
+            this.startedAt = startedAt;
+        }
+
+        double daysPerMinute() {
+            double minutes = Duration.ofNanos(System.nanoTime() - startedAt).toMillis() / 60000.0;
+            return minutes > 0 ? days.get() / minutes : 0.0;
+        }
+    }
+
+    /**
+     * Outcome of a backfill run.
+     *
+     * @param completedUnits units fetched and stored in this run
+     * @param skippedUnits units already completed by a previous run
+     * @param failedUnits units that failed and will be retried on the next run
+     * @param days tool-days stored in this run
+     * @param daysPerMinute throughput of this run
+     */
+    public record BackfillResult(int completedUnits, int skippedUnits, int failedUnits, int days,
+                                 double daysPerMinute) {
+    }
+}
@@ -0,0 +1,158 @@
+package com.bemobi.aicontrol.service;
+
+import com.bemobi.aicontrol.config.StorageProperties;
+import com.bemobi.aicontrol.integration.common.ApiClientException;
+import com.bemobi.aicontrol.integration.common.ToolType;
+import com.bemobi.aicontrol.integration.common.UnifiedSpendingRecord;
+import com.bemobi.aicontrol.integration.common.UsageCollection;
+import com.bemobi.aicontrol.integration.common.UsageDataCollector;
+import com.bemobi.aicontrol.integration.common.UsageRecordBatch;
+import com.bemobi.aicontrol.storage.RecordStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Collects a date range from a collector, fetching only the days the local store cannot answer.
+ *
+ * <p>For each tool, the requested range is compared with the days already stored. Days that are
+ * stored and older than {@code ai-control.storage.refetch-days} are read from the store; the
+ * others (never collected, or recent enough that the API may still revise them) are fetched in
+ * contiguous ranges, saved, and merged with the stored data. A nightly 30-day report with the
+ * default 3-day window fetches 3 days instead of 30.</p>
+ *
+ * <p>Ranges are fetched with {@link UsageDataCollector#collectDaily} and
+ * {@link UsageDataCollector#collectDailyUsage}, so fallback snapshots are never stored as a day's
+ * usage. A stored day counts as complete, so only days fetched successfully are stored: days the
+ * collector reports as failed (and, for daily spending, every day of a range whose spending
+ * failed) stay missing and are fetched again on the next run.</p>
+ *
+ * <p>Collectors whose spending is not daily ({@link UsageDataCollector#reportsDailySpending()})
+ * are fetched incrementally for usage only; their spending is always requested for the whole
+ * range and is not stored, since it cannot be assembled from stored days.</p>
+ */
+@Service
+@ConditionalOnProperty(prefix = "ai-control.storage", name = {"enabled", "incremental"}, havingValue = "true")
+public class IncrementalCollectionService {
+
+    private static final Logger log = LoggerFactory.getLogger(IncrementalCollectionService.class);
+
+    private final RecordStore recordStore;
+    private final StorageProperties properties;
+
+    public IncrementalCollectionService(RecordStore recordStore, StorageProperties properties) {
+        this.recordStore = recordStore;
+        this.properties = properties;
+    }
+
+    /**
+     * Collects usage and spending of a collector for a range, from the store and the API.
+     *
+     * @param collector collector to fetch missing days from
+     * @param startDate first day (inclusive)
+     * @param endDate last day (inclusive)
+     * @return stored plus freshly collected records, usage in date order, with the days that failed
+     * @throws ApiClientException if fetching a missing range fails
+     */
+    public UsageCollection collect(UsageDataCollector collector, LocalDate startDate, LocalDate endDate)
+            throws ApiClientException {
+        ToolType tool = collector.getToolType();
+        NavigableSet<LocalDate> storedDays = recordStore.storedUsageDays(tool);
+        LocalDate refetchFrom = LocalDate.now().minusDays(Math.max(0, properties.getRefetchDays()));
+
+        List<LocalDate> cachedDays = new ArrayList<>();
+        List<LocalDate> missingDays = new ArrayList<>();
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            if (storedDays.contains(day) && day.isBefore(refetchFrom)) {
+                cachedDays.add(day);
+            } else {
+                missingDays.add(day);
+            }
+        }
+
+        List<DateRange> ranges = toRanges(missingDays);
+        log.info("Incremental collection of {}: {} of {} days from store, fetching {} days in {} range(s)",
+            tool.getId(), cachedDays.size(), cachedDays.size() + missingDays.size(), missingDays.size(),
+            ranges.size());
+
+        boolean dailySpending = collector.reportsDailySpending();
+        UsageRecordBatch usage = recordStore.loadUsage(tool, cachedDays);
+        List<UnifiedSpendingRecord> spending = new ArrayList<>();
+        if (dailySpending) {
+            spending.addAll(recordStore.loadDailySpending(tool, cachedDays));
+        }
+
+        Set<LocalDate> failedDays = new TreeSet<>();
+        boolean spendingFailed = false;
+        for (DateRange range : ranges) {
+            log.info("Fetching {} from {} to {}", tool.getId(), range.start(), range.end());
+            UsageCollection fresh;
+            if (dailySpending) {
+                fresh = collector.collectDaily(range.start(), range.end());
+                if (fresh.spendingFailed()) {
+                    // A stored day is read back with its spending, so none of the range can be stored
+                    fresh = new UsageCollection(fresh.usageRecords(), fresh.spendingRecords(),
+                        range.days(), true);
+                }
+                recordStore.saveCollection(tool, range.start(), range.end(), fresh);
+                spending.addAll(fresh.spendingRecords());
+                spendingFailed |= fresh.spendingFailed();
+            } else {
+                fresh = collector.collectDailyUsage(range.start(), range.end());
+                recordStore.saveUsage(tool, range.start(), range.end(), fresh);
+            }
+            usage.addAll(fresh.usageRecords());
+            failedDays.addAll(fresh.failedDays());
+        }
+
+        if (!dailySpending) {
+            // Not stored: a spending total of the whole range cannot be read back for another range
+            spending.addAll(collector.collectSpendingData(startDate, endDate));
+        }
+
+        if (!failedDays.isEmpty()) {
+            log.warn("Incremental collection of {} is partial: {} days failed and will be fetched again",
+                tool.getId(), failedDays.size());
+        }
+        usage.sortByDate();
+        return new UsageCollection(usage, spending, failedDays, spendingFailed);
+    }
+
+    /**
+     * Groups ascending days into contiguous ranges.
+     */
+    private static List<DateRange> toRanges(List<LocalDate> days) {
+        List<DateRange> ranges = new ArrayList<>();
+        LocalDate rangeStart = null;
+        LocalDate previous = null;
+        for (LocalDate day : days) {
+            if (rangeStart == null) {
+                rangeStart = day;
+            } else if (!day.equals(previous.plusDays(1))) {
+                ranges.add(new DateRange(rangeStart, previous));
+                rangeStart = day;
+            }
+            previous = day;
+        }
+        if (rangeStart != null) {
+            ranges.add(new DateRange(rangeStart, previous));
+        }
+        return ranges;
+    }
+
+    private record DateRange(LocalDate start, LocalDate end) {
+
+        Set<LocalDate> days() {
+            return start.datesUntil(end.plusDays(1)).collect(Collectors.toSet());
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.bemobi.aicontrol.service;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * Streaming XLSX writer with a bounded row window.
+ *
+ * <p>Wraps an {@link SXSSFWorkbook}: only the last {@code rowWindow} rows of each sheet are kept
+ * in memory, older rows are flushed to compressed temp files, so the heap used by an export does
+ * not grow with the number of rows. Since flushed rows can no longer be measured, column widths
+ * are computed from the longest value written to each column instead of {@code autoSizeColumn}.
+ * A sheet that reaches the Excel row limit continues in a new sheet ({@code "Name (2)"}) with the
+ * same header.</p>
+ */
+final class StreamingXlsxWriter implements Closeable {
+
+    /**
+     * Rows per sheet allowed by Excel, header included.
+     */
+    static final int MAX_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+    // Excel limits: 255 characters of column width, 31 characters of sheet name
+    private static final int MAX_COLUMN_CHARS = 255;
+    private static final int MAX_SHEET_NAME = 31;
+    private static final int COLUMN_PADDING = 2;
+
+    private final SXSSFWorkbook workbook;
+    private final int maxRowsPerSheet;
+
+    StreamingXlsxWriter(int rowWindow) {
+        this(rowWindow, MAX_ROWS_PER_SHEET);
+    }
+
+    StreamingXlsxWriter(int rowWindow, int maxRowsPerSheet) {
+        this.workbook = new SXSSFWorkbook(Math.max(1, rowWindow));
+        this.workbook.setCompressTempFiles(true);
+        this.maxRowsPerSheet = Math.max(2, maxRowsPerSheet);
+    }
+
+    /**
+     * Workbook to create cell styles with.
+     */
+    Workbook workbook() {
+        return workbook;
+    }
+
+    /**
+     * Starts a sheet and writes its header row.
+     *
+     * @param name sheet name; continuation sheets get a {@code " (n)"} suffix
+     * @param headers header labels, one per column
+     * @param headerStyle style of the header cells
+     */
+    SheetWriter sheet(String name, String[] headers, CellStyle headerStyle) {
+        return new SheetWriter(name, headers, headerStyle);
+    }
+
+    /**
+     * Writes the workbook to a file.
+     */
+    void write(Path outputPath) throws IOException {
+        try (FileOutputStream fileOut = new FileOutputStream(outputPath.toFile())) {
+            workbook.write(fileOut);
+        }
+    }
+
+    /**
+     * Deletes the temp files backing the flushed rows and closes the workbook.
+     */
+    @Override
+    public void close() throws IOException {
+        workbook.dispose();
+        workbook.close();
+    }
+
+    /**
+     * Appends rows to one logical sheet, splitting it at the Excel row limit.
+     */
+    final class SheetWriter {
+
+        private final String baseName;
+        private final String[] headers;
+        private final CellStyle headerStyle;
+        private final int[] maxChars;
+        private SXSSFSheet sheet;
+        private int part;
+        private int rowNum;
+        private int totalRows;
+
+        private SheetWriter(String baseName, String[] headers, CellStyle headerStyle) {
+            this.baseName = baseName;
+            this.headers = headers;
+            this.headerStyle = headerStyle;
+            this.maxChars = new int[headers.length];
+            startSheet();
+        }
+
+        /**
+         * Creates the next data row, moving to a continuation sheet when the current one is full.
+         */
+        Row nextRow() {
+            if (rowNum >= maxRowsPerSheet) {
+                finishSheet();
+                startSheet();
+            }
+            totalRows++;
+            return sheet.createRow(rowNum++);
+        }
+
+        /**
+         * Writes a cell and tracks its displayed length for the column width.
+         */
+        void cell(Row row, int column, Object value, CellStyle style) {
+            Cell cell = row.createCell(column);
+
+            if (value == null) {
+                cell.setBlank();
+            } else if (value instanceof String) {
+                cell.setCellValue((String) value);
+            } else if (value instanceof Integer) {
+                cell.setCellValue((Integer) value);
+            } else if (value instanceof Long) {
+                cell.setCellValue((Long) value);
+            } else if (value instanceof Double) {
+                cell.setCellValue((Double) value);
+            } else if (value instanceof BigDecimal) {
+                cell.setCellValue(((BigDecimal) value).doubleValue());
+            } else if (value instanceof LocalDate) {
+                cell.setCellValue(((LocalDate) value).toString());
+            }
+
+            if (style != null) {
+                cell.setCellStyle(style);
+            }
+            track(column, displayLength(value));
+        }
+
+        /**
+         * Data rows written across all parts of the sheet.
+         */
+        int totalRows() {
+            return totalRows;
+        }
+
+        /**
+         * Applies the column widths and flushes the remaining rows of the current part.
+         */
+        void finish() throws IOException {
+            finishSheet();
+            sheet.flushRows();
+        }
+
+        private void startSheet() {
+            part++;
+            sheet = workbook.createSheet(part == 1 ? baseName : partName());
+            rowNum = 0;
+
+            Row headerRow = sheet.createRow(rowNum++);
+            for (int i = 0; i < headers.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(headers[i]);
+                cell.setCellStyle(headerStyle);
+                track(i, headers[i].length());
+            }
+        }
+
+        private void finishSheet() {
+            for (int i = 0; i < maxChars.length; i++) {
+                sheet.setColumnWidth(i, Math.min(MAX_COLUMN_CHARS, maxChars[i] + COLUMN_PADDING) * 256);
+            }
+        }
+
+        private String partName() {
+            String suffix = " (" + part + ")";
+            String name = baseName.length() + suffix.length() > MAX_SHEET_NAME
+                ? baseName.substring(0, MAX_SHEET_NAME - suffix.length())
+                : baseName;
+            return name + suffix;
+        }
+
+        private void track(int column, int length) {
+            if (column < maxChars.length && length > maxChars[column]) {
+                maxChars[column] = length;
+            }
+        }
+    }
+
+    /**
+     * Approximate displayed length of a value with the report formats ({@code #,##0}, {@code 0.00},
+     * {@code $#,##0.00}), computed without formatting the value.
+     */
+    private static int displayLength(Object value) {
+        if (value instanceof String s) {
+            return s.length();
+        }
+        if (value instanceof Integer || value instanceof Long) {
+            return groupedLength(((Number) value).longValue());
+        }
+        if (value instanceof Double || value instanceof BigDecimal) {
+            // Integer part with grouping, plus ".00" and the currency sign
+            return groupedLength((long) ((Number) value).doubleValue()) + 4;
+        }
+        if (value instanceof LocalDate) {
+            return 10;
+        }
+        return 0;
+    }
+
+    private static int groupedLength(long value) {
+        int digits = Long.toString(Math.abs(value)).length();
+        return digits + (digits - 1) / 3 + (value < 0 ? 1 : 0);
+    }
+}
@@ -1,42 +1,44 @@
 package com.bemobi.aicontrol.service;
 
+import com.bemobi.aicontrol.config.CollectionProperties;
+import com.bemobi.aicontrol.config.HttpPoolMetrics;
+import com.bemobi.aicontrol.integration.common.ApiClientException;
+import com.bemobi.aicontrol.integration.common.MdcPropagation;
 import com.bemobi.aicontrol.integration.common.ToolType;
 import com.bemobi.aicontrol.integration.common.UnifiedSpendingRecord;
-import com.bemobi.aicontrol.integration.common.UnifiedUsageRecord;
+import com.bemobi.aicontrol.integration.common.UsageCollection;
 import com.bemobi.aicontrol.integration.common.UsageDataCollector;
-import com.bemobi.aicontrol.integration.google.GoogleWorkspaceClient;
-import org.apache.poi.ss.usermodel.Cell;
+import com.bemobi.aicontrol.integration.common.UsageRecordBatch;
+import com.bemobi.aicontrol.integration.github.GitHubIdentityResolver;
+import com.bemobi.aicontrol.integration.github.GitHubRateLimiter;
+import com.bemobi.aicontrol.storage.RecordStore;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.FillPatternType;
 import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.IndexedColors;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.math.BigDecimal;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /**
@@ -77,79 +79,108 @@ public class UnifiedSpendingService {
         "Tokens Total", "Linhas Sugeridas", "Linhas Aceitas", "Custo Total (USD)"
     };
 
+    // Raw data sheets
+    private static final String[] RAW_DATA_HEADERS = {
+        "Email", "Data", "Tokens Entrada", "Tokens Saída", "Tokens Cache",
+        "Linhas Sugeridas", "Linhas Aceitas", "Taxa Aceitação (%)",
+        "GitHub Login", "Metadata"
+    };
+
     private static final DateTimeFormatter TIMESTAMP_FORMATTER =
         DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
 
     private final List<UsageDataCollector> collectors;
-    private final GoogleWorkspaceClient workspaceClient;
+    private final GitHubIdentityResolver identityResolver;
+    private final CollectionProperties collectionProperties;
+    private final HttpPoolMetrics httpPoolMetrics;
+    private final GitHubRateLimiter gitHubRateLimiter;
+    private final RecordStore recordStore;
+    private final IncrementalCollectionService incrementalCollection;
     private final String outputDirectory;
+    private final int xlsxRowWindow;
 
     /**
      * Constructs the UnifiedSpendingService with all available collectors.
      *
      * @param collectors List of UsageDataCollector implementations injected by Spring
-     * @param workspaceClient Google Workspace client for email validation (optional)
+     * @param identityResolver Run-wide GitHub identity resolver for the unregistered check (optional)
+     * @param collectionProperties Parallelism and deadline settings for the collection engine
+     * @param httpPoolMetrics Connection pool state of the shared HTTP client, logged after collection
+     * @param gitHubRateLimiter GitHub rate limit budget, logged after collection (optional)
+     * @param recordStore Local store the collected records are saved to (optional, ai-control.storage.enabled)
+     * @param incrementalCollection Fetches only days missing from the store (optional, ai-control.storage.incremental)
      * @param outputDirectory Output directory for XLSX files
+     * @param xlsxRowWindow Rows per sheet kept in memory while writing the XLSX file
      */
     public UnifiedSpendingService(
         List<UsageDataCollector> collectors,
-        @Autowired(required = false) GoogleWorkspaceClient workspaceClient,
-        @Value("${ai-control.export.output-directory:./output}") String outputDirectory
+        @Autowired(required = false) GitHubIdentityResolver identityResolver,
+        CollectionProperties collectionProperties,
+        HttpPoolMetrics httpPoolMetrics,
+        @Autowired(required = false) GitHubRateLimiter gitHubRateLimiter,
+        @Autowired(required = false) RecordStore recordStore,
+        @Autowired(required = false) IncrementalCollectionService incrementalCollection,
+        @Value("${ai-control.export.output-directory:./output}") String outputDirectory,
+        @Value("${ai-control.export.xlsx-row-window:500}") int xlsxRowWindow
     ) {
         this.collectors = collectors;
-        this.workspaceClient = workspaceClient;
+        this.identityResolver = identityResolver;
+        this.collectionProperties = collectionProperties;
+        this.httpPoolMetrics = httpPoolMetrics;
+        this.gitHubRateLimiter = gitHubRateLimiter;
+        this.recordStore = recordStore;
+        this.incrementalCollection = incrementalCollection;
         this.outputDirectory = outputDirectory;
+        this.xlsxRowWindow = xlsxRowWindow;
         log.info("UnifiedSpendingService initialized with {} collectors", collectors.size());
     }
 
     /**
      * Generates a consolidated spending report for the specified date range.
      *
-     * <p>Collects usage and spending data from all available collectors, handling failures gracefully.
-     * If a collector fails, continues with remaining collectors and returns partial data.
+     * <p>Collects usage and spending data from all available collectors concurrently, bounded by
+     * {@code ai-control.collection.parallelism}, handling failures gracefully. If a collector fails
+     * or exceeds {@code ai-control.collection.collector-timeout}, it is cancelled and the report
+     * is built from the remaining collectors (partial data).
      *
      * @param startDate Start date of the report period (inclusive)
      * @param endDate End date of the report period (inclusive)
      * @return ConsolidatedReport containing all collected data and summary
      */
     public ConsolidatedReport generateSpendingReport(LocalDate startDate, LocalDate endDate) {
-        log.info("Starting spending report generation for period {  } to {}", startDate, endDate);
+        log.info("Starting spending report generation for period {} to {} (parallelism: {})",
+            startDate, endDate, collectionProperties.getParallelism());
 
-        List<UnifiedUsageRecord> allUsageRecords = new ArrayList<>();
-        List<UnifiedSpendingRecord> allSpendingRecords = new ArrayList<>();
+        if (identityResolver != null) {
+            identityResolver.startRun();
+        }
 
-        for (UsageDataCollector collector : collectors) {
-            String toolId = collector.getToolType().getId();
-            MDC.put("toolName", toolId);
+        UsageRecordBatch allUsageRecords = new UsageRecordBatch();
+        List<UnifiedSpendingRecord> allSpendingRecords = new ArrayList<>();
 
-            try {
-                log.info("Collecting data from {} collector...", toolId);
+        // Collectors run concurrently; flatMapSequential keeps results in collector order
+        List<UsageCollection> results = Flux.fromIterable(collectors)
+            .flatMapSequential(collector -> collectFrom(collector, startDate, endDate),
+                Math.max(1, collectionProperties.getParallelism()))
+            .collectList()
+            .block();
 
-                // Collect usage data
-                try {
-                    List<UnifiedUsageRecord> usageRecords = collector.collectUsageData(startDate, endDate);
-                    allUsageRecords.addAll(usageRecords);
-                    log.info("Collected {} usage records from {}", usageRecords.size(), toolId);
-                } catch (Exception e) {
-                    log.error("Error collecting usage data from {}: {}", toolId, e.getMessage(), e);
-                }
+        httpPoolMetrics.logSnapshot();
+        if (gitHubRateLimiter != null) {
+            gitHubRateLimiter.logSnapshot();
+        }
+        if (identityResolver != null) {
+            identityResolver.logStatistics();
+        }
 
-                // Collect spending data
-                try {
-                    List<UnifiedSpendingRecord> spendingRecords = collector.collectSpendingData(startDate, endDate);
-                    allSpendingRecords.addAll(spendingRecords);
-                    log.info("Collected {} spending records from {}", spendingRecords.size(), toolId);
-                } catch (Exception e) {
-                    log.error("Error collecting spending data from {}: {}", toolId, e.getMessage(), e);
-                }
-            } catch (Exception e) {
-                log.error("Unexpected error processing collector {}: {}", toolId, e.getMessage(), e);
-            } finally {
-                MDC.remove("toolName");
+        if (results != null) {
+            for (UsageCollection result : results) {
+                allUsageRecords.addAll(result.usageRecords());
+                allSpendingRecords.addAll(result.spendingRecords());
             }
         }
 
-        ReportSummary summary = calculateSummary(allUsageRecords, allSpendingRecords);
+        ReportSummary summary = UsageAggregator.aggregate(allUsageRecords, allSpendingRecords).summary();
 
         String period = startDate.format(DateTimeFormatter.ISO_DATE)
                 + " to " + endDate.format(DateTimeFormatter.ISO_DATE);
@@ -166,6 +197,74 @@ public class UnifiedSpendingService {
         );
     }
 
+    /**
+     * Collects usage and spending data from a single collector with one fused call
+     * ({@link UsageDataCollector#collect}), so each upstream payload is fetched once.
+     *
+     * <p>The call runs on the bounded elastic scheduler with the configured deadline and the MDC
+     * (including {@code toolName}) propagated. A collector that fails or exceeds the deadline is
+     * cancelled and contributes no records, so the remaining data is still reported.
+     * Successful collections are saved to the record store when it is enabled; failed ones
+     * leave the stored data untouched, and so do the days and spending a partial collection
+     * could not fetch ({@link UsageCollection#failedDays()}). In incremental mode only the days missing from the store
+     * are fetched (see {@link IncrementalCollectionService}).
+     */
+    private Mono<UsageCollection> collectFrom(UsageDataCollector collector, LocalDate startDate, LocalDate endDate) {
+        String toolId = collector.getToolType().getId();
+        log.info("Collecting data from {} collector...", toolId);
+
+        Callable<UsageCollection> task;
+        try (MDC.MDCCloseable ignored = MDC.putCloseable("toolName", toolId)) {
+            task = MdcPropagation.wrap(() -> {
+                UsageCollection collection;
+                if (incrementalCollection != null) {
+                    collection = incrementalCollection.collect(collector, startDate, endDate);
+                } else if (recordStore != null) {
+                    collection = collectAndStore(collector, startDate, endDate);
+                } else {
+                    collection = collector.collect(startDate, endDate);
+                }
+                log.info("Collected {} usage and {} spending records from {}",
+                    collection.usageRecords().size(), collection.spendingRecords().size(), toolId);
+                return collection;
+            });
+        }
+
+        int timeoutMs = collectionProperties.getCollectorTimeout();
+        return Mono.fromCallable(task)
+            .subscribeOn(Schedulers.boundedElastic())
+            .timeout(Duration.ofMillis(timeoutMs))
+            .onErrorResume(e -> {
+                try (MDC.MDCCloseable ignored = MDC.putCloseable("toolName", toolId)) {
+                    if (e instanceof TimeoutException) {
+                        log.error("Collecting data from {} exceeded the {} ms deadline and was cancelled",
+                            toolId, timeoutMs);
+                    } else {
+                        log.error("Error collecting data from {}: {}", toolId, e.getMessage(), e);
+                    }
+                }
+                return Mono.just(UsageCollection.empty());
+            });
+    }
+
+    /**
+     * Collects the whole range of a collector and saves it to the record store.
+     *
+     * <p>A stored day counts as complete, so the range is fetched without fallback snapshots
+     * ({@link UsageDataCollector#collectDaily}), as in incremental mode. Spending that is not daily
+     * is reported but not stored, since it cannot be split into stored days.</p>
+     */
+    private UsageCollection collectAndStore(UsageDataCollector collector, LocalDate startDate, LocalDate endDate)
+            throws ApiClientException {
+        UsageCollection collection = collector.collectDaily(startDate, endDate);
+        if (collector.reportsDailySpending()) {
+            recordStore.saveCollection(collector.getToolType(), startDate, endDate, collection);
+        } else {
+            recordStore.saveUsage(collector.getToolType(), startDate, endDate, collection);
+        }
+        return collection;
+    }
+
     /**
      * Exports the consolidated report to an XLSX file with 6 sheets.
      *
@@ -194,44 +293,35 @@ public class UnifiedSpendingService {
     public Path exportToXlsx(ConsolidatedReport report, Path outputPath) throws IOException {
         log.info("Starting XLSX export to {}", outputPath);
 
-        // Consolidated sheets
-        List<UserUsageRow> usageRows = buildUserUsageRows(
-            report.usageRecords(),
-            report.spendingRecords()
-        );
-
-        List<GitHubUnregisteredRow> githubUnregisteredRows =
-            buildGitHubUnregisteredRows(report.usageRecords());
-
-        List<MultiToolUserRow> multiToolRows =
-            buildMultiToolUserRows(report.usageRecords(), report.spendingRecords());
+        // Consolidated sheets, all derived from one pass over the records
+        UsageRecordBatch usage = UsageRecordBatch.of(report.usageRecords());
+        UsageAggregator aggregator = UsageAggregator.aggregate(usage, report.spendingRecords());
+        List<UserUsageRow> usageRows = aggregator.userUsageRows();
+        List<GitHubUnregisteredRow> githubUnregisteredRows = buildGitHubUnregisteredRows(aggregator);
+        List<MultiToolUserRow> multiToolRows = aggregator.multiToolRows();
 
         // Raw data sheets (for debugging)
         // Claude: show all records (usually snapshot-based from API)
-        List<UnifiedUsageRecord> claudeRawRecords = report.usageRecords().stream()
-            .filter(r -> r.tool() == ToolType.CLAUDE)
-            .toList();
+        UsageRecordBatch claudeRawRecords = usage.select(row -> usage.tool(row) == ToolType.CLAUDE);
 
         // GitHub: show all records (usually snapshot-based from seats API)
-        List<UnifiedUsageRecord> githubRawRecords = report.usageRecords().stream()
-            .filter(r -> r.tool() == ToolType.GITHUB_COPILOT)
-            .toList();
+        UsageRecordBatch githubRawRecords = usage.select(row -> usage.tool(row) == ToolType.GITHUB_COPILOT);
 
         // Cursor: show ONLY last day (snapshot) to avoid 30 days × N users records
         // The consolidated sheet already shows aggregated data for the period
-        LocalDate lastDate = report.usageRecords().stream()
-            .filter(r -> r.tool() == ToolType.CURSOR)
-            .map(UnifiedUsageRecord::date)
-            .max(LocalDate::compareTo)
-            .orElse(LocalDate.now());
+        int lastDay = Integer.MIN_VALUE;
+        for (int row = 0; row < usage.size(); row++) {
+            if (usage.tool(row) == ToolType.CURSOR) {
+                lastDay = Math.max(lastDay, usage.epochDay(row));
+            }
+        }
+        int lastCursorDay = lastDay;
 
-        List<UnifiedUsageRecord> cursorRawRecords = report.usageRecords().stream()
-            .filter(r -> r.tool() == ToolType.CURSOR)
-            .filter(r -> r.date().equals(lastDate))
-            .toList();
+        UsageRecordBatch cursorRawRecords = usage.select(row ->
+            usage.tool(row) == ToolType.CURSOR && usage.epochDay(row) == lastCursorDay);
 
         log.debug("Cursor raw data filtered to last date: {} ({} records)",
-            lastDate, cursorRawRecords.size());
+            cursorRawRecords.isEmpty() ? null : cursorRawRecords.date(0), cursorRawRecords.size());
 
         writeXlsxFile(outputPath, usageRows, githubUnregisteredRows, multiToolRows,
             claudeRawRecords, githubRawRecords, cursorRawRecords);
@@ -244,520 +334,207 @@ public class UnifiedSpendingService {
         return outputPath;
     }
 
-    /**
-     * Calculates summary statistics from usage and spending records.
-     */
-    private ReportSummary calculateSummary(
-        List<UnifiedUsageRecord> usageRecords,
-        List<UnifiedSpendingRecord> spendingRecords
-    ) {
-        BigDecimal totalCost = spendingRecords.stream()
-            .map(UnifiedSpendingRecord::costUsd)
-            .filter(Objects::nonNull)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        Long totalInputTokens = usageRecords.stream()
-            .map(UnifiedUsageRecord::inputTokens)
-            .filter(Objects::nonNull)
-            .reduce(0L, Long::sum);
-
-        Long totalOutputTokens = usageRecords.stream()
-            .map(UnifiedUsageRecord::outputTokens)
-            .filter(Objects::nonNull)
-            .reduce(0L, Long::sum);
-
-        Integer userCount = (int) usageRecords.stream()
-            .map(UnifiedUsageRecord::email)
-            .distinct()
-            .count();
-
-        Map<ToolType, BigDecimal> costByTool = spendingRecords.stream()
-            .filter(r -> r.costUsd() != null)
-            .collect(Collectors.groupingBy(
-                UnifiedSpendingRecord::tool,
-                Collectors.reducing(
-                    BigDecimal.ZERO,
-                    UnifiedSpendingRecord::costUsd,
-                    BigDecimal::add
-                )
-            ));
-
-        return new ReportSummary(
-            totalCost,
-            totalInputTokens,
-            totalOutputTokens,
-            userCount,
-            costByTool
-        );
-    }
-
-    /**
-     * Builds user usage rows for Sheet 1 by merging usage and spending data.
-     */
-    private List<UserUsageRow> buildUserUsageRows(
-        List<UnifiedUsageRecord> usageRecords,
-        List<UnifiedSpendingRecord> spendingRecords
-    ) {
-        // Create spending lookup map: (email, tool) -> cost
-        Map<String, BigDecimal> spendingMap = spendingRecords.stream()
-            .collect(Collectors.toMap(
-                r -> r.email() + ":" + r.tool().getId(),
-                UnifiedSpendingRecord::costUsd,
-                BigDecimal::add
-            ));
-
-        // Group usage records by (email, tool)
-        Map<String, List<UnifiedUsageRecord>> groupedRecords = usageRecords.stream()
-            .collect(Collectors.groupingBy(r -> r.email() + ":" + r.tool().getId()));
-
-        List<UserUsageRow> rows = new ArrayList<>();
-
-        for (Map.Entry<String, List<UnifiedUsageRecord>> entry : groupedRecords.entrySet()) {
-            List<UnifiedUsageRecord> records = entry.getValue();
-            UnifiedUsageRecord first = records.get(0);
-
-            // Find last usage date
-            LocalDate lastUsage = records.stream()
-                .map(UnifiedUsageRecord::date)
-                .max(LocalDate::compareTo)
-                .orElse(null);
-
-            // Sum tokens and lines
-            Long inputTokens = records.stream()
-                .map(UnifiedUsageRecord::inputTokens)
-                .filter(Objects::nonNull)
-                .reduce(0L, Long::sum);
-            if (inputTokens == 0L && records.stream().anyMatch(r -> r.inputTokens() != null)) {
-                inputTokens = null; // Keep as null if all are null
-            }
-
-            Long outputTokens = records.stream()
-                .map(UnifiedUsageRecord::outputTokens)
-                .filter(Objects::nonNull)
-                .reduce(0L, Long::sum);
-            if (outputTokens == 0L && records.stream().noneMatch(r -> r.outputTokens() != null)) {
-                outputTokens = null;
-            }
-
-            Long cacheTokens = records.stream()
-                .map(UnifiedUsageRecord::cacheReadTokens)
-                .filter(Objects::nonNull)
-                .reduce(0L, Long::sum);
-            if (cacheTokens == 0L && records.stream().noneMatch(r -> r.cacheReadTokens() != null)) {
-                cacheTokens = null;
-            }
-
-            Integer linesSuggested = records.stream()
-                .map(UnifiedUsageRecord::linesSuggested)
-                .filter(Objects::nonNull)
-                .reduce(0, Integer::sum);
-            if (linesSuggested == 0 && records.stream().noneMatch(r -> r.linesSuggested() != null)) {
-                linesSuggested = null;
-            }
-
-            Integer linesAccepted = records.stream()
-                .map(UnifiedUsageRecord::linesAccepted)
-                .filter(Objects::nonNull)
-                .reduce(0, Integer::sum);
-            if (linesAccepted == 0 && records.stream().noneMatch(r -> r.linesAccepted() != null)) {
-                linesAccepted = null;
-            }
-
-            // Calculate acceptance rate
-            Double acceptanceRate = null;
-            if (linesSuggested != null && linesSuggested > 0 && linesAccepted != null) {
-                acceptanceRate = (linesAccepted.doubleValue() / linesSuggested.doubleValue()) * 100.0;
-            }
-
-            BigDecimal cost = spendingMap.get(entry.getKey());
-
-            rows.add(new UserUsageRow(
-                first.email(),
-                first.tool(),
-                lastUsage,
-                inputTokens,
-                outputTokens,
-                cacheTokens,
-                linesSuggested,
-                linesAccepted,
-                acceptanceRate,
-                cost
-            ));
-        }
-
-        // Sort by email then tool (handle nulls)
-        rows.sort(Comparator.comparing(UserUsageRow::email, Comparator.nullsLast(String::compareTo))
-            .thenComparing(r -> r.tool().getId()));
-
-        return rows;
-    }
-
     /**
      * Builds GitHub unregistered rows for Sheet 2.
      * Only includes GitHub users without Google Workspace email.
      */
-    private List<GitHubUnregisteredRow> buildGitHubUnregisteredRows(
-        List<UnifiedUsageRecord> usageRecords
-    ) {
-        if (workspaceClient == null) {
+    private List<GitHubUnregisteredRow> buildGitHubUnregisteredRows(UsageAggregator aggregator) {
+        if (identityResolver == null || !identityResolver.isWorkspaceEnabled()) {
             log.warn("GoogleWorkspaceClient not available, skipping GitHub unregistered check");
             return List.of();
         }
 
         List<GitHubUnregisteredRow> rows = new ArrayList<>();
 
-        // Filter only GitHub Copilot records
-        List<UnifiedUsageRecord> githubRecords = usageRecords.stream()
-            .filter(r -> r.tool() == ToolType.GITHUB_COPILOT)
-            .toList();
-
-        // Group by email (GitHub login)
-        Map<String, List<UnifiedUsageRecord>> byUser = githubRecords.stream()
-            .collect(Collectors.groupingBy(UnifiedUsageRecord::email));
+        // GitHub Copilot totals per email (GitHub login)
+        for (UsageAggregator.ToolTotals totals : aggregator.toolTotals(ToolType.GITHUB_COPILOT)) {
+            // Prefer the gitHubLogin from rawMetadata when available
+            String actualGitLogin = totals.gitHubLogin() != null ? totals.gitHubLogin() : totals.email();
 
-        for (Map.Entry<String, List<UnifiedUsageRecord>> entry : byUser.entrySet()) {
-            String githubLogin = entry.getKey();
-            List<UnifiedUsageRecord> records = entry.getValue();
-
-            // Extract gitHubLogin from rawMetadata if available
-            String actualGitLogin = records.stream()
-                .map(UnifiedUsageRecord::rawMetadata)
-                .filter(m -> m.containsKey("gitHubLogin"))
-                .map(m -> (String) m.get("gitHubLogin"))
-                .findFirst()
-                .orElse(githubLogin);
-
-            // Check if user exists in Google Workspace
-            Optional<String> workspaceEmail = workspaceClient.findEmailByGitName(actualGitLogin);
-
-            if (workspaceEmail.isEmpty()) {
+            // Check if user exists in Google Workspace (usually already resolved during collection)
+            if (!identityResolver.resolve(actualGitLogin, (String) null).inWorkspace()) {
                 // User not found in Workspace - add to unregistered list
-                LocalDate lastUsage = records.stream()
-                    .map(UnifiedUsageRecord::date)
-                    .max(LocalDate::compareTo)
-                    .orElse(null);
-
-                Integer linesSuggested = records.stream()
-                    .map(UnifiedUsageRecord::linesSuggested)
-                    .filter(Objects::nonNull)
-                    .reduce(0, Integer::sum);
-
-                Integer linesAccepted = records.stream()
-                    .map(UnifiedUsageRecord::linesAccepted)
-                    .filter(Objects::nonNull)
-                    .reduce(0, Integer::sum);
-
                 rows.add(new GitHubUnregisteredRow(
                     actualGitLogin,
-                    githubLogin,
-                    lastUsage,
-                    linesSuggested > 0 ? linesSuggested : null,
-                    linesAccepted > 0 ? linesAccepted : null
-                ));
-            }
-        }
-
-        return rows;
-    }
-
-    /**
-     * Builds multi-tool user rows for Sheet 3.
-     * Only includes users using 2 or more tools with aggregated metrics.
-     */
-    private List<MultiToolUserRow> buildMultiToolUserRows(
-            List<UnifiedUsageRecord> usageRecords,
-            List<UnifiedSpendingRecord> spendingRecords) {
-
-        // Group tools by user
-        Map<String, Set<ToolType>> userTools = new HashMap<>();
-        Map<String, List<UnifiedUsageRecord>> userRecords = new HashMap<>();
-
-        for (UnifiedUsageRecord record : usageRecords) {
-            userTools.computeIfAbsent(record.email(), k -> new HashSet<>())
-                .add(record.tool());
-            userRecords.computeIfAbsent(record.email(), k -> new ArrayList<>())
-                .add(record);
-        }
-
-        // Group spending by user
-        Map<String, BigDecimal> userCosts = spendingRecords.stream()
-            .collect(Collectors.groupingBy(
-                UnifiedSpendingRecord::email,
-                Collectors.reducing(
-                    BigDecimal.ZERO,
-                    UnifiedSpendingRecord::costUsd,
-                    BigDecimal::add
-                )
-            ));
-
-        List<MultiToolUserRow> rows = new ArrayList<>();
-
-        for (Map.Entry<String, Set<ToolType>> entry : userTools.entrySet()) {
-            Set<ToolType> tools = entry.getValue();
-
-            if (tools.size() > 1) {
-                String email = entry.getKey();
-                List<UnifiedUsageRecord> records = userRecords.get(email);
-
-                // Aggregate metrics across all tools
-                Long totalInputTokens = records.stream()
-                    .map(UnifiedUsageRecord::inputTokens)
-                    .filter(Objects::nonNull)
-                    .reduce(0L, Long::sum);
-
-                Long totalOutputTokens = records.stream()
-                    .map(UnifiedUsageRecord::outputTokens)
-                    .filter(Objects::nonNull)
-                    .reduce(0L, Long::sum);
-
-                Long totalCacheTokens = records.stream()
-                    .map(UnifiedUsageRecord::cacheReadTokens)
-                    .filter(Objects::nonNull)
-                    .reduce(0L, Long::sum);
-
-                Long totalTokens = totalInputTokens + totalOutputTokens + totalCacheTokens;
-
-                Integer linesSuggested = records.stream()
-                    .map(UnifiedUsageRecord::linesSuggested)
-                    .filter(Objects::nonNull)
-                    .reduce(0, Integer::sum);
-
-                Integer linesAccepted = records.stream()
-                    .map(UnifiedUsageRecord::linesAccepted)
-                    .filter(Objects::nonNull)
-                    .reduce(0, Integer::sum);
-
-                BigDecimal totalCost = userCosts.getOrDefault(email, BigDecimal.ZERO);
-
-                rows.add(new MultiToolUserRow(
-                    email,
-                    tools,
-                    tools.size(),
-                    tools.contains(ToolType.CLAUDE),
-                    tools.contains(ToolType.GITHUB_COPILOT),
-                    tools.contains(ToolType.CURSOR),
-                    totalTokens > 0 ? totalTokens : null,
-                    linesSuggested > 0 ? linesSuggested : null,
-                    linesAccepted > 0 ? linesAccepted : null,
-                    totalCost.compareTo(BigDecimal.ZERO) > 0 ? totalCost : null
+                    totals.email(),
+                    totals.lastUsage(),
+                    totals.linesSuggested() > 0 ? totals.linesSuggested() : null,
+                    totals.linesAccepted() > 0 ? totals.linesAccepted() : null
                 ));
             }
         }
 
-        // Sort by tool count (desc) then email (asc)
-        rows.sort(Comparator.comparing(MultiToolUserRow::toolCount).reversed()
-            .thenComparing(MultiToolUserRow::email));
-
         return rows;
     }
 
     /**
      * Writes the XLSX file with 6 sheets (3 consolidated + 3 raw data for debugging).
+     *
+     * <p>Rows are streamed through a window of {@code ai-control.export.xlsx-row-window} rows, so
+     * memory stays bounded regardless of the number of records.</p>
      */
     private void writeXlsxFile(
         Path outputPath,
         List<UserUsageRow> usageRows,
         List<GitHubUnregisteredRow> githubRows,
         List<MultiToolUserRow> multiToolRows,
-        List<UnifiedUsageRecord> claudeRawRecords,
-        List<UnifiedUsageRecord> githubRawRecords,
-        List<UnifiedUsageRecord> cursorRawRecords
+        UsageRecordBatch claudeRawRecords,
+        UsageRecordBatch githubRawRecords,
+        UsageRecordBatch cursorRawRecords
     ) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook()) {
+        try (StreamingXlsxWriter xlsx = new StreamingXlsxWriter(xlsxRowWindow)) {
             // Consolidated sheets
-            writeUsageSheet(workbook, usageRows);
-            writeGitHubUnregisteredSheet(workbook, githubRows);
-            writeMultiToolSheet(workbook, multiToolRows);
+            writeUsageSheet(xlsx, usageRows);
+            writeGitHubUnregisteredSheet(xlsx, githubRows);
+            writeMultiToolSheet(xlsx, multiToolRows);
 
             // Raw data sheets (for debugging)
-            writeRawDataSheet(workbook, "Claude - Dados Brutos", claudeRawRecords);
-            writeRawDataSheet(workbook, "GitHub - Dados Brutos", githubRawRecords);
-            writeRawDataSheet(workbook, "Cursor - Snapshot", cursorRawRecords);
+            writeRawDataSheet(xlsx, "Claude - Dados Brutos", claudeRawRecords);
+            writeRawDataSheet(xlsx, "GitHub - Dados Brutos", githubRawRecords);
+            writeRawDataSheet(xlsx, "Cursor - Snapshot", cursorRawRecords);
 
             // Write to file
-            try (FileOutputStream fileOut = new FileOutputStream(outputPath.toFile())) {
-                workbook.write(fileOut);
-            }
+            xlsx.write(outputPath);
         }
     }
 
-    private void writeUsageSheet(Workbook workbook, List<UserUsageRow> rows) {
-        Sheet sheet = workbook.createSheet("Volumes de Uso");
+    private void writeUsageSheet(StreamingXlsxWriter xlsx, List<UserUsageRow> rows) throws IOException {
+        Workbook workbook = xlsx.workbook();
 
-        // Create header style
-        CellStyle headerStyle = createHeaderStyle(workbook);
+        // Create styles
         CellStyle dateStyle = createDateStyle(workbook);
         CellStyle numberStyle = createNumberStyle(workbook);
         CellStyle currencyStyle = createCurrencyStyle(workbook);
         CellStyle percentStyle = createPercentStyle(workbook);
 
-        // Write headers
-        Row headerRow = sheet.createRow(0);
-        for (int i = 0; i < USAGE_HEADERS.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(USAGE_HEADERS[i]);
-            cell.setCellStyle(headerStyle);
-        }
+        StreamingXlsxWriter.SheetWriter sheet =
+            xlsx.sheet("Volumes de Uso", USAGE_HEADERS, createHeaderStyle(workbook));
 
         // Write data
-        int rowNum = 1;
         for (UserUsageRow row : rows) {
-            Row dataRow = sheet.createRow(rowNum++);
-
-            createCell(dataRow, 0, row.email(), null);
-            createCell(dataRow, 1, row.tool().getDisplayName(), null);
-            createCell(dataRow, 2, row.lastUsage(), dateStyle);
-            createCell(dataRow, 3, row.inputTokens(), numberStyle);
-            createCell(dataRow, 4, row.outputTokens(), numberStyle);
-            createCell(dataRow, 5, row.cacheReadTokens(), numberStyle);
-            createCell(dataRow, 6, row.linesSuggested(), numberStyle);
-            createCell(dataRow, 7, row.linesAccepted(), numberStyle);
-            createCell(dataRow, 8, row.acceptanceRate(), percentStyle);
-            createCell(dataRow, 9, row.costUsd(), currencyStyle);
+            Row dataRow = sheet.nextRow();
+
+            sheet.cell(dataRow, 0, row.email(), null);
+            sheet.cell(dataRow, 1, row.tool().getDisplayName(), null);
+            sheet.cell(dataRow, 2, row.lastUsage(), dateStyle);
+            sheet.cell(dataRow, 3, row.inputTokens(), numberStyle);
+            sheet.cell(dataRow, 4, row.outputTokens(), numberStyle);
+            sheet.cell(dataRow, 5, row.cacheReadTokens(), numberStyle);
+            sheet.cell(dataRow, 6, row.linesSuggested(), numberStyle);
+            sheet.cell(dataRow, 7, row.linesAccepted(), numberStyle);
+            sheet.cell(dataRow, 8, row.acceptanceRate(), percentStyle);
+            sheet.cell(dataRow, 9, row.costUsd(), currencyStyle);
         }
 
-        // Auto-size columns
-        for (int i = 0; i < USAGE_HEADERS.length; i++) {
-            sheet.autoSizeColumn(i);
-        }
+        sheet.finish();
     }
 
-    private void writeGitHubUnregisteredSheet(Workbook workbook, List<GitHubUnregisteredRow> rows) {
-        Sheet sheet = workbook.createSheet("GitHub Não Cadastrados");
+    private void writeGitHubUnregisteredSheet(StreamingXlsxWriter xlsx, List<GitHubUnregisteredRow> rows)
+            throws IOException {
+        Workbook workbook = xlsx.workbook();
 
-        CellStyle headerStyle = createHeaderStyle(workbook);
         CellStyle dateStyle = createDateStyle(workbook);
         CellStyle numberStyle = createNumberStyle(workbook);
 
-        // Write headers
-        Row headerRow = sheet.createRow(0);
-        for (int i = 0; i < GITHUB_UNREGISTERED_HEADERS.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(GITHUB_UNREGISTERED_HEADERS[i]);
-            cell.setCellStyle(headerStyle);
-        }
+        StreamingXlsxWriter.SheetWriter sheet =
+            xlsx.sheet("GitHub Não Cadastrados", GITHUB_UNREGISTERED_HEADERS, createHeaderStyle(workbook));
 
         // Write data
-        int rowNum = 1;
         for (GitHubUnregisteredRow row : rows) {
-            Row dataRow = sheet.createRow(rowNum++);
+            Row dataRow = sheet.nextRow();
 
-            createCell(dataRow, 0, row.gitHubLogin(), null);
-            createCell(dataRow, 1, row.gitHubEmail(), null);
-            createCell(dataRow, 2, row.lastUsage(), dateStyle);
-            createCell(dataRow, 3, row.linesSuggested(), numberStyle);
-            createCell(dataRow, 4, row.linesAccepted(), numberStyle);
+            sheet.cell(dataRow, 0, row.gitHubLogin(), null);
+            sheet.cell(dataRow, 1, row.gitHubEmail(), null);
+            sheet.cell(dataRow, 2, row.lastUsage(), dateStyle);
+            sheet.cell(dataRow, 3, row.linesSuggested(), numberStyle);
+            sheet.cell(dataRow, 4, row.linesAccepted(), numberStyle);
         }
 
-        // Auto-size columns
-        for (int i = 0; i < GITHUB_UNREGISTERED_HEADERS.length; i++) {
-            sheet.autoSizeColumn(i);
-        }
+        sheet.finish();
     }
 
-    private void writeMultiToolSheet(Workbook workbook, List<MultiToolUserRow> rows) {
-        Sheet sheet = workbook.createSheet("Usuários Multi-Tool");
+    private void writeMultiToolSheet(StreamingXlsxWriter xlsx, List<MultiToolUserRow> rows) throws IOException {
+        Workbook workbook = xlsx.workbook();
 
-        CellStyle headerStyle = createHeaderStyle(workbook);
         CellStyle numberStyle = createNumberStyle(workbook);
         CellStyle currencyStyle = createCurrencyStyle(workbook);
 
-        // Write headers
-        Row headerRow = sheet.createRow(0);
-        for (int i = 0; i < MULTI_TOOL_HEADERS.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(MULTI_TOOL_HEADERS[i]);
-            cell.setCellStyle(headerStyle);
-        }
+        StreamingXlsxWriter.SheetWriter sheet =
+            xlsx.sheet("Usuários Multi-Tool", MULTI_TOOL_HEADERS, createHeaderStyle(workbook));
 
         // Write data
-        int rowNum = 1;
         for (MultiToolUserRow row : rows) {
-            Row dataRow = sheet.createRow(rowNum++);
+            Row dataRow = sheet.nextRow();
 
-            createCell(dataRow, 0, row.email(), null);
+            sheet.cell(dataRow, 0, row.email(), null);
 
             String toolsStr = row.tools().stream()
                 .map(ToolType::getDisplayName)
                 .sorted()
                 .collect(Collectors.joining(", "));
-            createCell(dataRow, 1, toolsStr, null);
-
-            createCell(dataRow, 2, row.toolCount(), numberStyle);
-            createCell(dataRow, 3, row.usesClaude() ? "Sim" : "Não", null);
-            createCell(dataRow, 4, row.usesGitHub() ? "Sim" : "Não", null);
-            createCell(dataRow, 5, row.usesCursor() ? "Sim" : "Não", null);
-            createCell(dataRow, 6, row.totalTokens(), numberStyle);
-            createCell(dataRow, 7, row.linesSuggested(), numberStyle);
-            createCell(dataRow, 8, row.linesAccepted(), numberStyle);
-            createCell(dataRow, 9, row.totalCost(), currencyStyle);
+            sheet.cell(dataRow, 1, toolsStr, null);
+
+            sheet.cell(dataRow, 2, row.toolCount(), numberStyle);
+            sheet.cell(dataRow, 3, row.usesClaude() ? "Sim" : "Não", null);
+            sheet.cell(dataRow, 4, row.usesGitHub() ? "Sim" : "Não", null);
+            sheet.cell(dataRow, 5, row.usesCursor() ? "Sim" : "Não", null);
+            sheet.cell(dataRow, 6, row.totalTokens(), numberStyle);
+            sheet.cell(dataRow, 7, row.linesSuggested(), numberStyle);
+            sheet.cell(dataRow, 8, row.linesAccepted(), numberStyle);
+            sheet.cell(dataRow, 9, row.totalCost(), currencyStyle);
         }
 
-        // Auto-size columns
-        for (int i = 0; i < MULTI_TOOL_HEADERS.length; i++) {
-            sheet.autoSizeColumn(i);
-        }
+        sheet.finish();
     }
 
     /**
      * Writes a raw data sheet for debugging purposes.
      * Shows the original data as received from each API.
      */
-    private void writeRawDataSheet(Workbook workbook, String sheetName, List<UnifiedUsageRecord> records) {
-        Sheet sheet = workbook.createSheet(sheetName);
+    private void writeRawDataSheet(StreamingXlsxWriter xlsx, String sheetName, UsageRecordBatch records)
+            throws IOException {
+        Workbook workbook = xlsx.workbook();
 
-        CellStyle headerStyle = createHeaderStyle(workbook);
         CellStyle dateStyle = createDateStyle(workbook);
         CellStyle numberStyle = createNumberStyle(workbook);
 
-        // Headers
-        String[] headers = {
-            "Email", "Data", "Tokens Entrada", "Tokens Saída", "Tokens Cache",
-            "Linhas Sugeridas", "Linhas Aceitas", "Taxa Aceitação (%)",
-            "GitHub Login", "Metadata"
-        };
-
-        Row headerRow = sheet.createRow(0);
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(headerStyle);
-        }
+        StreamingXlsxWriter.SheetWriter sheet =
+            xlsx.sheet(sheetName, RAW_DATA_HEADERS, createHeaderStyle(workbook));
 
-        // Write data
-        int rowNum = 1;
-        for (UnifiedUsageRecord record : records) {
-            Row dataRow = sheet.createRow(rowNum++);
-
-            createCell(dataRow, 0, record.email(), null);
-            createCell(dataRow, 1, record.date(), dateStyle);
-            createCell(dataRow, 2, record.inputTokens(), numberStyle);
-            createCell(dataRow, 3, record.outputTokens(), numberStyle);
-            createCell(dataRow, 4, record.cacheReadTokens(), numberStyle);
-            createCell(dataRow, 5, record.linesSuggested(), numberStyle);
-            createCell(dataRow, 6, record.linesAccepted(), numberStyle);
-            createCell(dataRow, 7, record.acceptanceRate(), numberStyle);
+        // Write data straight from the columns, without materializing records
+        for (int i = 0; i < records.size(); i++) {
+            Row dataRow = sheet.nextRow();
+
+            sheet.cell(dataRow, 0, records.email(i), null);
+            sheet.cell(dataRow, 1, records.date(i), dateStyle);
+            sheet.cell(dataRow, 2, records.hasInputTokens(i) ? records.inputTokens(i) : null, numberStyle);
+            sheet.cell(dataRow, 3, records.hasOutputTokens(i) ? records.outputTokens(i) : null, numberStyle);
+            sheet.cell(dataRow, 4, records.hasCacheReadTokens(i) ? records.cacheReadTokens(i) : null, numberStyle);
+            sheet.cell(dataRow, 5, records.hasLinesSuggested(i) ? records.linesSuggested(i) : null, numberStyle);
+            sheet.cell(dataRow, 6, records.hasLinesAccepted(i) ? records.linesAccepted(i) : null, numberStyle);
+            sheet.cell(dataRow, 7, records.hasAcceptanceRate(i) ? records.acceptanceRate(i) : null, numberStyle);
 
             // Extract GitHub login from metadata if available
+            Map<String, Object> rawMetadata = records.rawMetadata(i);
             String githubLogin = "";
-            if (record.rawMetadata() != null && record.rawMetadata().containsKey("gitHubLogin")) {
-                githubLogin = String.valueOf(record.rawMetadata().get("gitHubLogin"));
+            if (rawMetadata.containsKey("gitHubLogin")) {
+                githubLogin = String.valueOf(rawMetadata.get("gitHubLogin"));
             }
-            createCell(dataRow, 8, githubLogin, null);
+            sheet.cell(dataRow, 8, githubLogin, null);
 
             // Serialize metadata for debugging
             String metadata = "";
-            if (record.rawMetadata() != null && !record.rawMetadata().isEmpty()) {
-                metadata = record.rawMetadata().entrySet().stream()
+            if (!rawMetadata.isEmpty()) {
+                metadata = rawMetadata.entrySet().stream()
                     .map(e -> e.getKey() + "=" + e.getValue())
                     .collect(Collectors.joining("; "));
             }
-            createCell(dataRow, 9, metadata, null);
+            sheet.cell(dataRow, 9, metadata, null);
         }
 
-        // Auto-size columns
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
+        sheet.finish();
+        if (sheet.totalRows() >= StreamingXlsxWriter.MAX_ROWS_PER_SHEET) {
+            log.info("Sheet '{}' split across several sheets: {} rows", sheetName, sheet.totalRows());
         }
     }
 
@@ -796,28 +573,4 @@ public class UnifiedSpendingService {
         style.setDataFormat(workbook.createDataFormat().getFormat("0.00"));
         return style;
     }
-
-    private void createCell(Row row, int column, Object value, CellStyle style) {
-        Cell cell = row.createCell(column);
-
-        if (value == null) {
-            cell.setBlank();
-        } else if (value instanceof String) {
-            cell.setCellValue((String) value);
-        } else if (value instanceof Integer) {
-            cell.setCellValue((Integer) value);
-        } else if (value instanceof Long) {
-            cell.setCellValue((Long) value);
-        } else if (value instanceof Double) {
-            cell.setCellValue((Double) value);
-        } else if (value instanceof BigDecimal) {
-            cell.setCellValue(((BigDecimal) value).doubleValue());
-        } else if (value instanceof LocalDate) {
-            cell.setCellValue(((LocalDate) value).toString());
-        }
-
-        if (style != null) {
-            cell.setCellStyle(style);
-        }
-    }
 }
@@ -0,0 +1,350 @@
+package com.bemobi.aicontrol.service;
+
+import com.bemobi.aicontrol.integration.common.ToolType;
+import com.bemobi.aicontrol.integration.common.UnifiedSpendingRecord;
+import com.bemobi.aicontrol.integration.common.UnifiedUsageRecord;
+import com.bemobi.aicontrol.integration.common.UsageRecordBatch;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single-pass aggregation of usage and spending records for the consolidated report.
+ *
+ * <p>Each record is visited once and folded into a mutable accumulator per (user, tool): metric
+ * sums, a bit per metric telling whether any record carried it, the last usage date and the cost
+ * in fixed-point micro-dollars. Users are interned to dense ids, so the accumulators live in an
+ * array indexed by {@code userId * tools + tool.ordinal()} instead of a map keyed by concatenated
+ * strings. The summary and the rows of sheets 1 to 3 are then derived from the accumulators
+ * without scanning the records again.</p>
+ *
+ * <p>Each spending record's cost is rounded HALF_UP to 6 decimal places before it is summed, and
+ * sums are reported with at least 2 decimal places ({@code 2} becomes {@code 2.00},
+ * {@code 0.1234567} becomes {@code 0.123457}).</p>
+ */
+final class UsageAggregator {
+
+    private static final ToolType[] TOOLS = ToolType.values();
+
+    // Costs are summed as longs with 6 decimal places
+    private static final int COST_SCALE = 6;
+
+    private static final int INPUT = 1;
+    private static final int OUTPUT = 1 << 1;
+    private static final int CACHE = 1 << 2;
+    private static final int SUGGESTED = 1 << 3;
+    private static final int ACCEPTED = 1 << 4;
+    private static final int COST = 1 << 5;
+
+    private final Map<String, Integer> userIds = new HashMap<>();
+    private final List<String> emails = new ArrayList<>();
+    private final List<UserTotals> users = new ArrayList<>();
+    private Accumulator[] cells = new Accumulator[64 * TOOLS.length];
+
+    private long totalInputTokens;
+    private long totalOutputTokens;
+    private long totalCostMicros;
+    private final long[] toolCostMicros = new long[TOOLS.length];
+    private final boolean[] toolHasCost = new boolean[TOOLS.length];
+    private int usageUsers;
+
+    private UsageAggregator() {
+    }
+
+    /**
+     * Aggregates usage and spending records in one pass over each list.
+     *
+     * <p>Usage records are read column by column from a {@link UsageRecordBatch}; any other list
+     * is converted to one first.</p>
+     */
+    static UsageAggregator aggregate(List<UnifiedUsageRecord> usageRecords,
+                                     List<UnifiedSpendingRecord> spendingRecords) {
+        UsageAggregator aggregator = new UsageAggregator();
+        aggregator.addUsage(UsageRecordBatch.of(usageRecords));
+        for (UnifiedSpendingRecord record : spendingRecords) {
+            aggregator.addSpending(record);
+        }
+        return aggregator;
+    }
+
+    private void addUsage(UsageRecordBatch batch) {
+        // Batch email id -> aggregator user id, so each distinct email is hashed once
+        int[] userOf = new int[batch.dictionarySize()];
+        Arrays.fill(userOf, -1);
+
+        for (int row = 0; row < batch.size(); row++) {
+            int emailId = batch.emailId(row);
+            if (userOf[emailId] < 0) {
+                userOf[emailId] = userId(batch.dictionaryEmail(emailId));
+            }
+            Accumulator acc = cell(userOf[emailId], batch.tool(row));
+            if (acc.usageRecords++ == 0 && !acc.user.hasUsage) {
+                acc.user.hasUsage = true;
+                usageUsers++;
+            }
+
+            if (batch.hasInputTokens(row)) {
+                acc.inputTokens += batch.inputTokens(row);
+                acc.present |= INPUT;
+                totalInputTokens += batch.inputTokens(row);
+            }
+            if (batch.hasOutputTokens(row)) {
+                acc.outputTokens += batch.outputTokens(row);
+                acc.present |= OUTPUT;
+                totalOutputTokens += batch.outputTokens(row);
+            }
+            if (batch.hasCacheReadTokens(row)) {
+                acc.cacheTokens += batch.cacheReadTokens(row);
+                acc.present |= CACHE;
+            }
+            if (batch.hasLinesSuggested(row)) {
+                acc.linesSuggested += batch.linesSuggested(row);
+                acc.present |= SUGGESTED;
+            }
+            if (batch.hasLinesAccepted(row)) {
+                acc.linesAccepted += batch.linesAccepted(row);
+                acc.present |= ACCEPTED;
+            }
+            LocalDate date = batch.date(row);
+            if (date != null && (acc.lastUsage == null || date.isAfter(acc.lastUsage))) {
+                acc.lastUsage = date;
+            }
+            if (acc.gitHubLogin == null && batch.rawMetadata(row).get("gitHubLogin") instanceof String login) {
+                acc.gitHubLogin = login;
+            }
+        }
+    }
+
+    private void addSpending(UnifiedSpendingRecord record) {
+        if (record.costUsd() == null) {
+            return;
+        }
+        long micros = record.costUsd().setScale(COST_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        Accumulator acc = cell(userId(record.email()), record.tool());
+        acc.costMicros += micros;
+        acc.present |= COST;
+        acc.user.costMicros += micros;
+
+        int tool = record.tool().ordinal();
+        toolCostMicros[tool] += micros;
+        toolHasCost[tool] = true;
+        totalCostMicros += micros;
+    }
+
+    private int userId(String email) {
+        Integer userId = userIds.get(email);
+        if (userId == null) {
+            userId = emails.size();
+            userIds.put(email, userId);
+            emails.add(email);
+            users.add(new UserTotals());
+        }
+        return userId;
+    }
+
+    private Accumulator cell(int userId, ToolType tool) {
+        int index = userId * TOOLS.length + tool.ordinal();
+        if (index >= cells.length) {
+            cells = Arrays.copyOf(cells, Math.max(cells.length * 2, index + TOOLS.length));
+        }
+        Accumulator acc = cells[index];
+        if (acc == null) {
+            acc = new Accumulator(emails.get(userId), tool, users.get(userId));
+            cells[index] = acc;
+        }
+        return acc;
+    }
+
+    /**
+     * Report totals: cost, tokens, distinct users with usage and cost per tool.
+     */
+    ReportSummary summary() {
+        Map<ToolType, BigDecimal> costByTool = new EnumMap<>(ToolType.class);
+        for (ToolType tool : TOOLS) {
+            if (toolHasCost[tool.ordinal()]) {
+                costByTool.put(tool, toCost(toolCostMicros[tool.ordinal()]));
+            }
+        }
+        return new ReportSummary(
+            toCost(totalCostMicros),
+            totalInputTokens,
+            totalOutputTokens,
+            usageUsers,
+            costByTool
+        );
+    }
+
+    /**
+     * Sheet 1: one row per (user, tool) with usage, sorted by email then tool.
+     *
+     * <p>A metric is empty when no record of the group carried it, and 0 when the records carried
+     * zeros.</p>
+     */
+    List<UserUsageRow> userUsageRows() {
+        List<UserUsageRow> rows = new ArrayList<>();
+        for (Accumulator acc : cells) {
+            if (acc == null || acc.usageRecords == 0) {
+                continue;
+            }
+            Integer linesSuggested = acc.has(SUGGESTED) ? toInt(acc.linesSuggested) : null;
+            Integer linesAccepted = acc.has(ACCEPTED) ? toInt(acc.linesAccepted) : null;
+
+            // Calculate acceptance rate
+            Double acceptanceRate = null;
+            if (linesSuggested != null && linesSuggested > 0 && linesAccepted != null) {
+                acceptanceRate = (linesAccepted.doubleValue() / linesSuggested.doubleValue()) * 100.0;
+            }
+
+            rows.add(new UserUsageRow(
+                acc.email,
+                acc.tool,
+                acc.lastUsage,
+                acc.has(INPUT) ? acc.inputTokens : null,
+                acc.has(OUTPUT) ? acc.outputTokens : null,
+                acc.has(CACHE) ? acc.cacheTokens : null,
+                linesSuggested,
+                linesAccepted,
+                acceptanceRate,
+                acc.has(COST) ? toCost(acc.costMicros) : null
+            ));
+        }
+
+        // Sort by email then tool (handle nulls)
+        rows.sort(Comparator.comparing(UserUsageRow::email, Comparator.nullsLast(String::compareTo))
+            .thenComparing(r -> r.tool().getId()));
+        return rows;
+    }
+
+    /**
+     * Sheet 3: users with usage in 2 or more tools, sorted by tool count (desc) then email.
+     *
+     * <p>Tokens and lines are summed over the user's tools; the cost covers all of the user's
+     * spending records.</p>
+     */
+    List<MultiToolUserRow> multiToolRows() {
+        List<MultiToolUserRow> rows = new ArrayList<>();
+        for (int userId = 0; userId < emails.size(); userId++) {
+            Set<ToolType> tools = EnumSet.noneOf(ToolType.class);
+            long totalTokens = 0;
+            long linesSuggested = 0;
+            long linesAccepted = 0;
+
+            for (ToolType tool : TOOLS) {
+                int index = userId * TOOLS.length + tool.ordinal();
+                Accumulator acc = index < cells.length ? cells[index] : null;
+                if (acc != null && acc.usageRecords > 0) {
+                    tools.add(tool);
+                    totalTokens += acc.inputTokens + acc.outputTokens + acc.cacheTokens;
+                    linesSuggested += acc.linesSuggested;
+                    linesAccepted += acc.linesAccepted;
+                }
+            }
+
+            if (tools.size() > 1) {
+                long costMicros = users.get(userId).costMicros;
+                rows.add(new MultiToolUserRow(
+                    emails.get(userId),
+                    tools,
+                    tools.size(),
+                    tools.contains(ToolType.CLAUDE),
+                    tools.contains(ToolType.GITHUB_COPILOT),
+                    tools.contains(ToolType.CURSOR),
+                    totalTokens > 0 ? totalTokens : null,
+                    linesSuggested > 0 ? toInt(linesSuggested) : null,
+                    linesAccepted > 0 ? toInt(linesAccepted) : null,
+                    costMicros > 0 ? toCost(costMicros) : null
+                ));
+            }
+        }
+
+        // Sort by tool count (desc) then email (asc)
+        rows.sort(Comparator.comparing(MultiToolUserRow::toolCount).reversed()
+            .thenComparing(MultiToolUserRow::email, Comparator.nullsLast(String::compareTo)));
+        return rows;
+    }
+
+    /**
+     * Per-user totals of one tool, for checks that need more than the sheet rows
+     * (e.g. the GitHub unregistered sheet).
+     */
+    List<ToolTotals> toolTotals(ToolType tool) {
+        List<ToolTotals> totals = new ArrayList<>();
+        for (int index = tool.ordinal(); index < cells.length; index += TOOLS.length) {
+            Accumulator acc = cells[index];
+            if (acc != null && acc.usageRecords > 0) {
+                totals.add(new ToolTotals(acc.email, acc.gitHubLogin, acc.lastUsage,
+                    toInt(acc.linesSuggested), toInt(acc.linesAccepted)));
+            }
+        }
+        return totals;
+    }
+
+    private static BigDecimal toCost(long micros) {
+        BigDecimal cost = BigDecimal.valueOf(micros, COST_SCALE);
+        return cost.setScale(Math.max(2, cost.stripTrailingZeros().scale()), RoundingMode.UNNECESSARY);
+    }
+
+    private static int toInt(long value) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+    }
+
+    /**
+     * Totals of one user in one tool.
+     *
+     * @param email user identifier of the records
+     * @param gitHubLogin first {@code gitHubLogin} found in the records' metadata, or null
+     * @param lastUsage most recent record date
+     * @param linesSuggested lines suggested (0 when not reported)
+     * @param linesAccepted lines accepted (0 when not reported)
+     */
+    record ToolTotals(String email, String gitHubLogin, LocalDate lastUsage, int linesSuggested,
+                      int linesAccepted) {
+    }
+
+    /**
+     * State shared by the accumulators of one user.
+     */
+    private static final class UserTotals {
+        private boolean hasUsage;
+        private long costMicros;
+    }
+
+    /**
+     * Mutable totals of one (user, tool).
+     */
+    private static final class Accumulator {
+        private final String email;
+        private final ToolType tool;
+        private final UserTotals user;
+        private int usageRecords;
+        private int present;
+        private long inputTokens;
+        private long outputTokens;
+        private long cacheTokens;
+        private long linesSuggested;
+        private long linesAccepted;
+        private long costMicros;
+        private LocalDate lastUsage;
+        private String gitHubLogin;
+
+        private Accumulator(String email, ToolType tool, UserTotals user) {
+            this.email = email;
+            this.tool = tool;
+            this.user = user;
+        }
+
+        private boolean has(int metric) {
+            return (present & metric) != 0;
+        }
+    }
+}
@@ -1,16 +1,27 @@
 package com.bemobi.aicontrol.service;
 
+import com.bemobi.aicontrol.config.CollectionProperties;
 import com.bemobi.aicontrol.integration.ToolApiClient;
+import com.bemobi.aicontrol.integration.common.MdcPropagation;
 import com.bemobi.aicontrol.integration.common.UserData;
+import com.bemobi.aicontrol.storage.RecordStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service responsible for collecting user data from all AI tool integrations.
@@ -24,26 +35,38 @@ public class UserCollectionService {
     private static final Logger log = LoggerFactory.getLogger(UserCollectionService.class);
 
     private final List<ToolApiClient> apiClients;
+    private final CollectionProperties collectionProperties;
+    private final RecordStore recordStore;
 
     /**
      * Constructs the UserCollectionService with all available API clients.
      *
      * @param apiClients List of ToolApiClient implementations injected by Spring
+     * @param collectionProperties Parallel mode, parallelism and deadline settings
+     * @param recordStore Local store the user snapshots are saved to (optional, ai-control.storage.enabled)
      */
-    public UserCollectionService(List<ToolApiClient> apiClients) {
+    public UserCollectionService(List<ToolApiClient> apiClients, CollectionProperties collectionProperties,
+                                 @Autowired(required = false) RecordStore recordStore) {
         this.apiClients = apiClients;
+        this.collectionProperties = collectionProperties;
+        this.recordStore = recordStore;
         log.info("UserCollectionService initialized with {} API clients", apiClients.size());
     }
 
     /**
      * Collects user data from all enabled AI tool integrations.
      *
-     * This method iterates through all registered API clients, collects data from enabled ones,
-     * and consolidates the results into a map keyed by tool name.
+     * This method collects data from all enabled API clients and consolidates the results into
+     * a map keyed by tool name. When {@code ai-control.collection.parallel-users} is enabled
+     * (default), clients are fetched concurrently; otherwise they are fetched one at a time.
      *
      * @return Map with tool names as keys and lists of UserData as values
      */
     public Map<String, List<UserData>> collectAllUsers() {
+        if (collectionProperties.isParallelUsers()) {
+            return collectAllUsersInParallel();
+        }
+
         log.info("Starting user collection from all integrations");
         Map<String, List<UserData>> results = new HashMap<>();
         int totalUsers = 0;
@@ -63,6 +86,7 @@ public class UserCollectionService {
                 List<UserData> users = client.fetchUsers();
                 results.put(toolName, users);
                 totalUsers += users.size();
+                storeSnapshot(toolName, users);
                 log.info("Successfully collected {} users from {}", users.size(), client.getDisplayName());
             } catch (Exception e) {
                 log.error("Error collecting users from {}: {}", client.getDisplayName(), e.getMessage(), e);
@@ -77,6 +101,90 @@ public class UserCollectionService {
         return results;
     }
 
+    /**
+     * Fetches all enabled clients concurrently, bounded by {@code ai-control.collection.parallelism}.
+     *
+     * The whole collection is limited by {@code ai-control.collection.users-deadline}: clients that
+     * have not finished by then are cancelled and reported with an empty list, while the results
+     * already completed are returned.
+     */
+    private Map<String, List<UserData>> collectAllUsersInParallel() {
+        int deadlineMs = collectionProperties.getUsersDeadline();
+        log.info("Starting parallel user collection from all integrations (deadline: {} ms)", deadlineMs);
+
+        Map<String, List<UserData>> results = new HashMap<>();
+        List<ToolApiClient> enabledClients = new ArrayList<>();
+
+        for (ToolApiClient client : apiClients) {
+            if (client.isEnabled()) {
+                enabledClients.add(client);
+            } else {
+                log.info("Skipping {} - integration is disabled", client.getToolName());
+                results.put(client.getToolName(), new ArrayList<>());
+            }
+        }
+
+        Map<ToolApiClient, List<UserData>> completed = new ConcurrentHashMap<>();
+        Flux.fromIterable(enabledClients)
+            .flatMap(client -> fetchUsersAsync(client).doOnNext(users -> completed.put(client, users)),
+                Math.max(1, collectionProperties.getParallelism()))
+            .take(Duration.ofMillis(deadlineMs))
+            .blockLast();
+
+        int totalUsers = 0;
+        for (ToolApiClient client : enabledClients) {
+            List<UserData> users = completed.get(client);
+            if (users == null) {
+                log.warn("{} did not finish within the {} ms deadline, reporting no users",
+                        client.getDisplayName(), deadlineMs);
+                users = new ArrayList<>();
+            }
+            results.put(client.getToolName(), users);
+            totalUsers += users.size();
+        }
+
+        log.info("User collection completed. Total users collected: {} from {} integrations",
+                totalUsers, apiClients.size());
+        return results;
+    }
+
+    /**
+     * Runs {@link ToolApiClient#fetchUsers()} on the bounded elastic scheduler with {@code toolName}
+     * in the MDC. Errors are logged and mapped to an empty list.
+     */
+    private Mono<List<UserData>> fetchUsersAsync(ToolApiClient client) {
+        String toolName = client.getToolName();
+        Callable<List<UserData>> task;
+        try (MDC.MDCCloseable ignored = MDC.putCloseable("toolName", toolName)) {
+            task = MdcPropagation.wrap(() -> {
+                log.info("Collecting users from {}...", client.getDisplayName());
+                List<UserData> users = client.fetchUsers();
+                log.info("Successfully collected {} users from {}", users.size(), client.getDisplayName());
+                storeSnapshot(toolName, users);
+                return users;
+            });
+        }
+
+        return Mono.fromCallable(task)
+            .subscribeOn(Schedulers.boundedElastic())
+            .onErrorResume(e -> {
+                try (MDC.MDCCloseable ignored = MDC.putCloseable("toolName", toolName)) {
+                    log.error("Error collecting users from {}: {}", client.getDisplayName(), e.getMessage(), e);
+                }
+                return Mono.just(new ArrayList<>());
+            });
+    }
+
+    /**
+     * Saves the users fetched from a tool as today's snapshot when the record store is enabled.
+     * Only successful fetches are stored, so a failing tool keeps its previous snapshot.
+     */
+    private void storeSnapshot(String toolName, List<UserData> users) {
+        if (recordStore != null) {
+            recordStore.saveUsers(toolName, LocalDate.now(), users);
+        }
+    }
+
     /**
      * Collects user data from a specific tool by name.
      *
@@ -0,0 +1,101 @@
+package com.bemobi.aicontrol.storage;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Manifest of the partitions in the record store, persisted as {@code index.json}.
+ *
+ * <p>For each partition (keyed by its path relative to the store root, e.g.
+ * {@code usage/cursor/2026-01-15.ndjson}) it keeps the record count, the set of lower-cased
+ * emails it contains and when it was written. Together with the tool/day layout this acts as
+ * the (email, tool, date) index: lookups by email only open the partitions that contain it.</p>
+ *
+ * <p>Not thread-safe; the store serializes access.</p>
+ */
+final class PartitionIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionIndex.class);
+
+    private static final TypeReference<TreeMap<String, PartitionInfo>> MANIFEST_TYPE = new TypeReference<>() {
+    };
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private final NavigableMap<String, PartitionInfo> partitions;
+
+    private PartitionIndex(Path file, ObjectMapper objectMapper, NavigableMap<String, PartitionInfo> partitions) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+        this.partitions = partitions;
+    }
+
+    /**
+     * Loads the manifest, or returns an empty index if it does not exist or cannot be read.
+     */
+    static PartitionIndex load(Path file, ObjectMapper objectMapper) {
+        if (Files.isRegularFile(file)) {
+            try {
+                return new PartitionIndex(file, objectMapper, objectMapper.readValue(file.toFile(), MANIFEST_TYPE));
+            } catch (IOException e) {
+                log.warn("Failed to read store index {}, starting empty: {}", file, e.getMessage());
+            }
+        }
+        return new PartitionIndex(file, objectMapper, new TreeMap<>());
+    }
+
+    PartitionInfo get(String partition) {
+        return partitions.get(partition);
+    }
+
+    void put(String partition, PartitionInfo info) {
+        partitions.put(partition, info);
+    }
+
+    void remove(String partition) {
+        partitions.remove(partition);
+    }
+
+    /**
+     * Returns the partitions whose key starts with the given prefix, in key order.
+     */
+    Map<String, PartitionInfo> withPrefix(String prefix) {
+        return partitions.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    int size() {
+        return partitions.size();
+    }
+
+    /**
+     * Writes the manifest atomically.
+     */
+    void save() throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "index", ".tmp");
+        objectMapper.writeValue(temp.toFile(), partitions);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Summary of one partition file.
+     *
+     * @param records number of records in the partition
+     * @param emails lower-cased emails present in the partition
+     * @param writtenAt when the partition was last written
+     */
+    record PartitionInfo(int records, Set<String> emails, Instant writtenAt) {
+    }
+}
@@ -0,0 +1,606 @@
+package com.bemobi.aicontrol.storage;
+
+import com.bemobi.aicontrol.config.StorageProperties;
+import com.bemobi.aicontrol.integration.common.ToolType;
+import com.bemobi.aicontrol.integration.common.UnifiedSpendingRecord;
+import com.bemobi.aicontrol.integration.common.UnifiedUsageRecord;
+import com.bemobi.aicontrol.integration.common.UsageCollection;
+import com.bemobi.aicontrol.integration.common.UsageRecordBatch;
+import com.bemobi.aicontrol.integration.common.UserData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Local store of collected usage, spending and user records.
+ *
+ * <p>Records are kept as NDJSON files partitioned by tool and day under {@code ai-control.storage.directory}:</p>
+ * <pre>
+ *   usage/{tool}/{yyyy-MM-dd}.ndjson      UnifiedUsageRecord, by record date
+ *   spending/{tool}/{period}.ndjson       UnifiedSpendingRecord, by daily or monthly period
+ *   users/{tool}/{yyyy-MM-dd}.ndjson      UserData snapshot, by snapshot date
+ *   index.json                            partition manifest (see {@link PartitionIndex})
+ * </pre>
+ *
+ * <p>Writes are idempotent upserts at partition level: saving a collected range replaces every
+ * partition of that tool in the range (days without records become empty partitions, so a
+ * re-collected day never keeps stale rows). Usage records without a date or dated outside the
+ * saved range are not stored. Each partition is written in one buffered pass to a
+ * temporary file and moved into place atomically; the manifest is written once per save.</p>
+ *
+ * <p>Write failures are logged and do not interrupt report generation; the usage saves return the
+ * days actually stored, so callers that track progress (the backfill) only record those. Methods
+ * are synchronized: the store has a single writer.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "ai-control.storage", name = "enabled", havingValue = "true")
+public class RecordStore {
+
+    private static final Logger log = LoggerFactory.getLogger(RecordStore.class);
+
+    private static final String USAGE = "usage";
+    private static final String SPENDING = "spending";
+    private static final String USERS = "users";
+    private static final String SUFFIX = ".ndjson";
+
+    private final Path root;
+    private final ObjectMapper objectMapper;
+    private final PartitionIndex index;
+
+    public RecordStore(StorageProperties properties, ObjectMapper objectMapper) {
+        this.root = Path.of(properties.getDirectory());
+        this.objectMapper = objectMapper;
+        this.index = PartitionIndex.load(root.resolve("index.json"), objectMapper);
+        if (index.size() == 0) {
+            rebuildIndex();
+        }
+        dropUnreadableSpending();
+        log.info("Record store enabled at {} ({} partitions)", root, index.size());
+    }
+
+    /**
+     * Saves the records collected from one tool for a date range, replacing what was stored for it.
+     *
+     * <p>Only what was actually fetched is replaced: usage partitions of the collection's failed
+     * days are neither written nor indexed, and spending is left untouched when it failed.</p>
+     *
+     * @param tool tool the records came from
+     * @param startDate first collected day (inclusive)
+     * @param endDate last collected day (inclusive)
+     * @param collection collected usage and spending records
+     * @return days whose usage was stored, empty if the spending or the manifest could not be written
+     */
+    public synchronized Set<LocalDate> saveCollection(ToolType tool, LocalDate startDate, LocalDate endDate,
+                                                      UsageCollection collection) {
+        try {
+            StoredUsage usage = writeUsage(tool, startDate, endDate, collection.usageRecords(),
+                collection.failedDays());
+            StoredSpending spending = collection.spendingFailed()
+                ? new StoredSpending(0, true)
+                : writeSpending(tool, startDate, endDate, collection.spendingRecords());
+            boolean indexed = saveIndex();
+            log.info("Stored {} usage and {} spending records of {} for {} to {}",
+                usage.records(), spending.records(), tool.getId(), startDate, endDate);
+            logSkipped(tool, collection.failedDays(), collection.spendingFailed());
+            return indexed && spending.complete() ? usage.days() : Set.of();
+        } catch (RuntimeException e) {
+            log.warn("Failed to store records of {} for {} to {}: {}", tool.getId(), startDate, endDate,
+                e.getMessage(), e);
+            return Set.of();
+        }
+    }
+
+    /**
+     * Saves the usage records collected from one tool for a date range, replacing the usage
+     * partition of every day in the range that was fetched. Spending records of the collection
+     * are ignored.
+     *
+     * @param tool tool the records came from
+     * @param startDate first collected day (inclusive)
+     * @param endDate last collected day (inclusive)
+     * @param collection collected usage records and the days that failed
+     * @return days whose usage was stored, empty if the manifest could not be written
+     */
+    public synchronized Set<LocalDate> saveUsage(ToolType tool, LocalDate startDate, LocalDate endDate,
+                                                 UsageCollection collection) {
+        try {
+            StoredUsage usage = writeUsage(tool, startDate, endDate, collection.usageRecords(),
+                collection.failedDays());
+            boolean indexed = saveIndex();
+            log.info("Stored {} usage records of {} for {} to {}", usage.records(), tool.getId(), startDate, endDate);
+            logSkipped(tool, collection.failedDays(), false);
+            return indexed ? usage.days() : Set.of();
+        } catch (RuntimeException e) {
+            log.warn("Failed to store usage of {} for {} to {}: {}", tool.getId(), startDate, endDate,
+                e.getMessage(), e);
+            return Set.of();
+        }
+    }
+
+    /**
+     * Saves the spending records collected from one tool for a date range, replacing the stored
+     * partitions of the same periods. Records whose period is neither a day nor a month are not
+     * stored, since they could not be loaded back.
+     *
+     * @param tool tool the records came from
+     * @param startDate first collected day (inclusive)
+     * @param endDate last collected day (inclusive)
+     * @param records collected spending records
+     */
+    public synchronized void saveSpending(ToolType tool, LocalDate startDate, LocalDate endDate,
+                                          List<UnifiedSpendingRecord> records) {
+        try {
+            StoredSpending spending = writeSpending(tool, startDate, endDate, records);
+            saveIndex();
+            log.info("Stored {} spending records of {} for {} to {}", spending.records(), tool.getId(),
+                startDate, endDate);
+        } catch (RuntimeException e) {
+            log.warn("Failed to store spending of {} for {} to {}: {}", tool.getId(), startDate, endDate,
+                e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Saves the users snapshot of a tool for a day, replacing any snapshot of the same day.
+     *
+     * @param toolName tool name as reported by the API client
+     * @param date snapshot date
+     * @param users users collected from the tool
+     */
+    public synchronized void saveUsers(String toolName, LocalDate date, List<UserData> users) {
+        try {
+            writePartition(partition(USERS, toolName, date.toString()), users,
+                objectMapper.writerFor(UserData.class), UserData::email);
+            saveIndex();
+            log.debug("Stored {} users of {} for {}", users.size(), toolName, date);
+        } catch (RuntimeException e) {
+            log.warn("Failed to store users of {} for {}: {}", toolName, date, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Loads the usage records of a tool for a date range, in date order.
+     *
+     * @param tool tool to read
+     * @param startDate first day (inclusive)
+     * @param endDate last day (inclusive)
+     * @return stored records as a columnar batch (days never stored contribute nothing)
+     */
+    public synchronized UsageRecordBatch loadUsage(ToolType tool, LocalDate startDate, LocalDate endDate) {
+        return loadUsage(tool, startDate.datesUntil(endDate.plusDays(1)).toList());
+    }
+
+    /**
+     * Loads the usage records of a tool for the given days, in the order of the days.
+     *
+     * @param tool tool to read
+     * @param days days to read
+     * @return stored records as a columnar batch (days never stored contribute nothing)
+     */
+    public synchronized UsageRecordBatch loadUsage(ToolType tool, Collection<LocalDate> days) {
+        ObjectReader reader = objectMapper.readerFor(UnifiedUsageRecord.class);
+        UsageRecordBatch records = new UsageRecordBatch();
+        for (LocalDate day : days) {
+            String partition = partition(USAGE, tool.getId(), day.toString());
+            if (index.get(partition) != null) {
+                records.addAll(readPartition(partition, reader));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Loads the daily spending records ({@code yyyy-MM-dd} periods) of a tool for the given days.
+     *
+     * @param tool tool to read
+     * @param days days to read
+     * @return stored records, in the order of the days
+     */
+    public synchronized List<UnifiedSpendingRecord> loadDailySpending(ToolType tool, Collection<LocalDate> days) {
+        ObjectReader reader = objectMapper.readerFor(UnifiedSpendingRecord.class);
+        List<UnifiedSpendingRecord> records = new ArrayList<>();
+        for (LocalDate day : days) {
+            String partition = partition(SPENDING, tool.getId(), day.toString());
+            if (index.get(partition) != null) {
+                records.addAll(readPartition(partition, reader));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Loads the usage records of one user for a tool and date range, opening only the
+     * partitions that contain the email.
+     *
+     * @param email user email (case-insensitive)
+     * @param tool tool to read
+     * @param startDate first day (inclusive)
+     * @param endDate last day (inclusive)
+     * @return stored records of the user, in date order
+     */
+    public synchronized List<UnifiedUsageRecord> findUsage(String email, ToolType tool,
+                                                           LocalDate startDate, LocalDate endDate) {
+        String key = normalize(email);
+        ObjectReader reader = objectMapper.readerFor(UnifiedUsageRecord.class);
+        List<UnifiedUsageRecord> records = new ArrayList<>();
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            String partition = partition(USAGE, tool.getId(), day.toString());
+            PartitionIndex.PartitionInfo info = index.get(partition);
+            if (info != null && info.emails().contains(key)) {
+                for (UnifiedUsageRecord record : this.<UnifiedUsageRecord>readPartition(partition, reader)) {
+                    if (key.equals(normalize(record.email()))) {
+                        records.add(record);
+                    }
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Loads the spending records of a tool whose period falls in a date range.
+     *
+     * <p>Daily periods ({@code yyyy-MM-dd}) are matched by day; monthly periods ({@code yyyy-MM})
+     * are included when the month overlaps the range.</p>
+     *
+     * @param tool tool to read
+     * @param startDate first day (inclusive)
+     * @param endDate last day (inclusive)
+     * @return stored records, in period order
+     */
+    public synchronized List<UnifiedSpendingRecord> loadSpending(ToolType tool, LocalDate startDate,
+                                                                 LocalDate endDate) {
+        ObjectReader reader = objectMapper.readerFor(UnifiedSpendingRecord.class);
+        String prefix = SPENDING + "/" + tool.getId() + "/";
+        List<UnifiedSpendingRecord> records = new ArrayList<>();
+        for (String partition : index.withPrefix(prefix).keySet()) {
+            String period = partition.substring(prefix.length(), partition.length() - SUFFIX.length());
+            if (periodOverlaps(period, startDate, endDate)) {
+                records.addAll(readPartition(partition, reader));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Loads the users snapshot of a tool for a day.
+     *
+     * @param toolName tool name as reported by the API client
+     * @param date snapshot date
+     * @return stored users, empty if no snapshot was stored for that day
+     */
+    public synchronized List<UserData> loadUsers(String toolName, LocalDate date) {
+        String partition = partition(USERS, toolName, date.toString());
+        if (index.get(partition) == null) {
+            return List.of();
+        }
+        return readPartition(partition, objectMapper.readerFor(UserData.class));
+    }
+
+    /**
+     * Returns the days for which usage of a tool has been stored, including days fetched without
+     * usage. Days whose fetch failed are never stored, so they are not returned.
+     *
+     * @param tool tool to inspect
+     * @return stored days, ascending
+     */
+    public synchronized NavigableSet<LocalDate> storedUsageDays(ToolType tool) {
+        String prefix = USAGE + "/" + tool.getId() + "/";
+        NavigableSet<LocalDate> days = new TreeSet<>();
+        for (String partition : index.withPrefix(prefix).keySet()) {
+            try {
+                days.add(LocalDate.parse(partition.substring(prefix.length(), partition.length() - SUFFIX.length())));
+            } catch (DateTimeParseException e) {
+                log.debug("Ignoring unexpected usage partition {}", partition);
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Returns the number of stored records per partition kind ({@code usage}, {@code spending}, {@code users}).
+     *
+     * @return record counts by kind
+     */
+    public synchronized Map<String, Integer> recordCounts() {
+        return Stream.of(USAGE, SPENDING, USERS).collect(Collectors.toMap(
+            Function.identity(),
+            kind -> index.withPrefix(kind + "/").values().stream()
+                .mapToInt(PartitionIndex.PartitionInfo::records)
+                .sum(),
+            (a, b) -> a,
+            TreeMap::new));
+    }
+
+    private StoredUsage writeUsage(ToolType tool, LocalDate startDate, LocalDate endDate,
+                                   List<UnifiedUsageRecord> records, Set<LocalDate> failedDays) {
+        // Failed days keep whatever was stored for them (or stay unindexed)
+        Map<String, List<UnifiedUsageRecord>> byDay = new TreeMap<>();
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            if (!failedDays.contains(day)) {
+                byDay.put(day.toString(), new ArrayList<>());
+            }
+        }
+        int undated = 0;
+        int outOfRange = 0;
+        for (UnifiedUsageRecord record : records) {
+            LocalDate date = record.date();
+            if (date == null) {
+                undated++;
+            } else if (date.isBefore(startDate) || date.isAfter(endDate)) {
+                // Only the partitions of the saved range are replaced
+                outOfRange++;
+            } else if (!failedDays.contains(date)) {
+                byDay.get(date.toString()).add(record);
+            }
+        }
+        if (undated > 0 || outOfRange > 0) {
+            log.warn("Usage of {} for {} to {}: {} records without date and {} outside the range not stored",
+                tool.getId(), startDate, endDate, undated, outOfRange);
+        }
+
+        ObjectWriter writer = objectMapper.writerFor(UnifiedUsageRecord.class);
+        Set<LocalDate> days = new TreeSet<>();
+        int written = 0;
+        for (Map.Entry<String, List<UnifiedUsageRecord>> day : byDay.entrySet()) {
+            if (writePartition(partition(USAGE, tool.getId(), day.getKey()), day.getValue(),
+                    writer, UnifiedUsageRecord::email)) {
+                days.add(LocalDate.parse(day.getKey()));
+                written += day.getValue().size();
+            }
+        }
+        return new StoredUsage(days, written);
+    }
+
+    private StoredSpending writeSpending(ToolType tool, LocalDate startDate, LocalDate endDate,
+                                         List<UnifiedSpendingRecord> records) {
+        Map<String, List<UnifiedSpendingRecord>> byPeriod = new TreeMap<>();
+        int unsupported = 0;
+        for (UnifiedSpendingRecord record : records) {
+            if (isStoredPeriod(record.period())) {
+                byPeriod.computeIfAbsent(record.period(), period -> new ArrayList<>()).add(record);
+            } else {
+                unsupported++;
+            }
+        }
+        if (unsupported > 0) {
+            // Range periods (start_end) could never be read back or replaced by a later range
+            log.info("Spending of {}: {} records without a daily or monthly period not stored",
+                tool.getId(), unsupported);
+        }
+        // Daily spending periods inside the range that came back empty replace the stored ones
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            if (index.get(partition(SPENDING, tool.getId(), day.toString())) != null) {
+                byPeriod.putIfAbsent(day.toString(), List.of());
+            }
+        }
+
+        ObjectWriter writer = objectMapper.writerFor(UnifiedSpendingRecord.class);
+        int written = 0;
+        boolean complete = true;
+        for (Map.Entry<String, List<UnifiedSpendingRecord>> period : byPeriod.entrySet()) {
+            if (writePartition(partition(SPENDING, tool.getId(), period.getKey()), period.getValue(),
+                    writer, UnifiedSpendingRecord::email)) {
+                written += period.getValue().size();
+            } else {
+                complete = false;
+            }
+        }
+        return new StoredSpending(written, complete);
+    }
+
+    private static void logSkipped(ToolType tool, Set<LocalDate> failedDays, boolean spendingFailed) {
+        if (!failedDays.isEmpty()) {
+            log.warn("Usage of {} not stored for failed days {}", tool.getId(), failedDays);
+        }
+        if (spendingFailed) {
+            log.warn("Spending of {} not stored: its collection failed", tool.getId());
+        }
+    }
+
+    /**
+     * Writes a partition and indexes it.
+     *
+     * @return true if the partition was written, false if the write failed (it is then left as it was)
+     */
+    private <T> boolean writePartition(String partition, Collection<T> records, ObjectWriter writer,
+                                       Function<T, String> emailOf) {
+        Path target = root.resolve(partition);
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            Set<String> emails = new HashSet<>();
+            try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (T record : records) {
+                    out.write(writer.writeValueAsString(record));
+                    out.newLine();
+                    String email = emailOf.apply(record);
+                    if (email != null) {
+                        emails.add(normalize(email));
+                    }
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            index.put(partition, new PartitionIndex.PartitionInfo(records.size(), emails, Instant.now()));
+            return true;
+        } catch (IOException e) {
+            log.warn("Failed to store partition {}: {}", partition, e.getMessage());
+            return false;
+        }
+    }
+
+    private <T> List<T> readPartition(String partition, ObjectReader reader) {
+        List<T> records = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(root.resolve(partition), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isBlank()) {
+                    records.add(reader.readValue(line));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to read partition {}: {}", partition, e.getMessage());
+        }
+        return records;
+    }
+
+    /**
+     * Writes the manifest. Partitions missing from a stale manifest are not loaded, so callers
+     * treat a failure here as nothing stored.
+     */
+    private boolean saveIndex() {
+        try {
+            index.save();
+            return true;
+        } catch (IOException e) {
+            log.warn("Failed to write store index under {}: {}", root, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Rebuilds the manifest from the partition files when it is missing.
+     */
+    private void rebuildIndex() {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(root)) {
+            List<Path> partitions = files.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).toList();
+            for (Path path : partitions) {
+                String partition = root.relativize(path).toString().replace('\\', '/');
+                Set<String> emails;
+                int count;
+                try (Stream<String> lines = Files.lines(path, StandardCharsets.UTF_8)) {
+                    List<String> nonBlank = lines.filter(line -> !line.isBlank()).toList();
+                    count = nonBlank.size();
+                    emails = new HashSet<>();
+                    for (String line : nonBlank) {
+                        String email = objectMapper.readTree(line).path("email").asText(null);
+                        if (email != null) {
+                            emails.add(normalize(email));
+                        }
+                    }
+                }
+                index.put(partition, new PartitionIndex.PartitionInfo(count, emails,
+                    Files.getLastModifiedTime(path).toInstant()));
+            }
+        } catch (IOException e) {
+            log.warn("Failed to rebuild store index under {}: {}", root, e.getMessage());
+            return;
+        }
+        if (index.size() > 0) {
+            log.info("Rebuilt store index from {} partitions", index.size());
+            saveIndex();
+        }
+    }
+
+    /**
+     * Drops spending partitions whose period is neither a day nor a month. Earlier versions
+     * stored range periods ({@code start_end}) that {@link #loadSpending} never reads.
+     */
+    private void dropUnreadableSpending() {
+        List<String> unreadable = index.withPrefix(SPENDING + "/").keySet().stream()
+            .filter(partition -> !isStoredPeriod(partition.substring(partition.lastIndexOf('/') + 1,
+                partition.length() - SUFFIX.length())))
+            .toList();
+        if (unreadable.isEmpty()) {
+            return;
+        }
+        for (String partition : unreadable) {
+            index.remove(partition);
+            try {
+                Files.deleteIfExists(root.resolve(partition));
+            } catch (IOException e) {
+                log.debug("Failed to delete partition {}: {}", partition, e.getMessage());
+            }
+        }
+        log.info("Dropped {} spending partitions without a daily or monthly period", unreadable.size());
+        saveIndex();
+    }
+
+    /**
+     * Whether a spending period can be stored and read back: a day ({@code yyyy-MM-dd}) or a
+     * month ({@code yyyy-MM}).
+     */
+    private static boolean isStoredPeriod(String period) {
+        if (period == null) {
+            return false;
+        }
+        try {
+            if (period.length() == 7) {
+                LocalDate.parse(period + "-01");
+            } else {
+                LocalDate.parse(period);
+            }
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static boolean periodOverlaps(String period, LocalDate startDate, LocalDate endDate) {
+        try {
+            if (period.length() == 7) {
+                LocalDate monthStart = LocalDate.parse(period + "-01");
+                return !monthStart.isAfter(endDate) && !monthStart.plusMonths(1).minusDays(1).isBefore(startDate);
+            }
+            LocalDate day = LocalDate.parse(period);
+            return !day.isBefore(startDate) && !day.isAfter(endDate);
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static String partition(String kind, String tool, String key) {
+        return kind + "/" + safeName(tool) + "/" + safeName(key) + SUFFIX;
+    }
+
+    private static String safeName(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Days whose usage partition was written, and how many records they hold.
+     */
+    private record StoredUsage(Set<LocalDate> days, int records) {
+    }
+
+    /**
+     * Spending records written, and whether every spending partition was written.
+     */
+    private record StoredSpending(int records, boolean complete) {
+    }
+}
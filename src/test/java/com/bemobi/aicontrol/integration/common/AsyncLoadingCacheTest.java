@@ -0,0 +1,179 @@
+package com.bemobi.aicontrol.integration.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link AsyncLoadingCache}.
+ */
+class AsyncLoadingCacheTest {
+
+    private static final Executor REJECTING = task -> fail("get() must not use the executor");
+
+    @Test
+    void get_loadsOnCallingThread() {
+        AtomicReference<Thread> loaderThread = new AtomicReference<>();
+        AsyncLoadingCache<String, String> cache = new AsyncLoadingCache<>(key -> {
+            loaderThread.set(Thread.currentThread());
+            return key.toUpperCase();
+        }, 10, REJECTING);
+
+        assertEquals("ALICE", cache.get("alice"));
+        assertSame(Thread.currentThread(), loaderThread.get());
+        assertEquals("ALICE", cache.get("alice"));
+        assertEquals(1, cache.stats().misses());
+        assertEquals(1, cache.stats().hits());
+    }
+
+    @Test
+    void get_sharesLoadInFlight() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        AsyncLoadingCache<String, String> cache = new AsyncLoadingCache<>(key -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "value";
+        }, 10, REJECTING);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> cache.get("key"));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> cache.get("key"));
+        release.countDown();
+
+        assertEquals("value", first.get(5, TimeUnit.SECONDS));
+        assertEquals("value", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_failedLoadReleasesCallerWaitingOnSameKey() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncLoadingCache<String, String> cache = new AsyncLoadingCache<>(key -> {
+            loading.countDown();
+            await(release);
+            throw new IllegalStateException("down");
+        }, 10, REJECTING);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> cache.get("bad"));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> cache.get("bad"));
+        awaitHits(cache, 1);
+        release.countDown();
+
+        ExecutionException firstError = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        ExecutionException secondError = assertThrows(ExecutionException.class,
+            () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, rootCause(firstError));
+        assertInstanceOf(IllegalStateException.class, rootCause(secondError));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_otherKeysProgressWhileLoadInFlight() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncLoadingCache<String, String> cache = new AsyncLoadingCache<>(key -> {
+            if (key.equals("slow")) {
+                loading.countDown();
+                await(release);
+            }
+            return key;
+        }, 10, REJECTING);
+        cache.put("cached", "cached");
+
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> cache.get("slow"));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        // A second caller waits on the slow key; other keys must not wait behind it
+        CompletableFuture<String> waiting = CompletableFuture.supplyAsync(() -> cache.get("slow"));
+        awaitHits(cache, 1);
+
+        CompletableFuture<String> other = CompletableFuture.supplyAsync(() -> {
+            cache.put("put", "put");
+            return cache.get("fast") + cache.getIfPresent("cached") + cache.getIfPresent("put");
+        });
+        assertEquals("fastcachedput", other.get(5, TimeUnit.SECONDS));
+        assertFalse(slow.isDone());
+
+        release.countDown();
+        assertEquals("slow", slow.get(5, TimeUnit.SECONDS));
+        assertEquals("slow", waiting.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void get_doesNotStoreFailures() {
+        AtomicInteger calls = new AtomicInteger();
+        AsyncLoadingCache<String, String> cache = new AsyncLoadingCache<>(key -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("down");
+            }
+            return "value";
+        }, 10, REJECTING);
+
+        assertThrows(CompletionException.class, () -> cache.get("key"));
+        assertNull(cache.getIfPresent("key"));
+        assertEquals("value", cache.get("key"));
+        assertEquals(1, cache.stats().loadFailures());
+    }
+
+    @Test
+    void getAsync_loadsOnExecutor() {
+        AtomicInteger scheduled = new AtomicInteger();
+        AsyncLoadingCache<String, String> cache = new AsyncLoadingCache<>(key -> "value", 10, task -> {
+            scheduled.incrementAndGet();
+            task.run();
+        });
+
+        assertEquals("value", cache.getAsync("key").join());
+        assertEquals(1, scheduled.get());
+    }
+
+    @Test
+    void put_evictsOldestCompletedEntries() {
+        AsyncLoadingCache<String, String> cache = new AsyncLoadingCache<>(key -> key, 2, REJECTING);
+
+        cache.put("a", "a");
+        cache.put("b", "b");
+        cache.put("c", "c");
+
+        assertNull(cache.getIfPresent("a"));
+        assertEquals("c", cache.getIfPresent("c"));
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    private static void awaitHits(AsyncLoadingCache<?, ?> cache, long hits) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.stats().hits() < hits && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(hits, cache.stats().hits());
+    }
+
+    private static Throwable rootCause(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.bemobi.aicontrol.integration.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the default fused {@link UsageDataCollector#collect}.
+ */
+class UsageDataCollectorTest {
+
+    private static final LocalDate START = LocalDate.of(2026, 1, 1);
+    private static final LocalDate END = LocalDate.of(2026, 1, 2);
+
+    @Test
+    void collect_keepsSpendingWhenUsageThrowsRuntimeException() throws Exception {
+        UsageDataCollector collector = new StubCollector() {
+            @Override
+            public List<UnifiedUsageRecord> collectUsageData(LocalDate startDate, LocalDate endDate) {
+                throw new IllegalStateException("unexpected payload");
+            }
+        };
+
+        UsageCollection collection = collector.collect(START, END);
+
+        assertTrue(collection.usageRecords().isEmpty());
+        assertEquals(Set.of(START, END), collection.failedDays());
+        assertEquals(1, collection.spendingRecords().size());
+        assertFalse(collection.spendingFailed());
+    }
+
+    @Test
+    void collect_keepsUsageWhenSpendingFails() throws Exception {
+        UsageDataCollector collector = new StubCollector() {
+            @Override
+            public List<UnifiedSpendingRecord> collectSpendingData(LocalDate startDate, LocalDate endDate)
+                    throws ApiClientException {
+                throw new ApiClientException("HTTP 500");
+            }
+        };
+
+        UsageCollection collection = collector.collect(START, END);
+
+        assertEquals(1, collection.usageRecords().size());
+        assertTrue(collection.spendingFailed());
+        assertTrue(collection.failedDays().isEmpty());
+    }
+
+    @Test
+    void collect_throwsUsageErrorWhenBothFail() {
+        UsageDataCollector collector = new StubCollector() {
+            @Override
+            public List<UnifiedUsageRecord> collectUsageData(LocalDate startDate, LocalDate endDate) {
+                throw new IllegalStateException("usage down");
+            }
+
+            @Override
+            public List<UnifiedSpendingRecord> collectSpendingData(LocalDate startDate, LocalDate endDate)
+                    throws ApiClientException {
+                throw new ApiClientException("spending down");
+            }
+        };
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> collector.collect(START, END));
+        assertEquals("usage down", error.getMessage());
+    }
+
+    @Test
+    void collect_cancelsSpendingWhenInterrupted() throws Exception {
+        CountDownLatch spendingStarted = new CountDownLatch(1);
+        CountDownLatch spendingInterrupted = new CountDownLatch(1);
+        UsageDataCollector collector = new StubCollector() {
+            @Override
+            public List<UnifiedSpendingRecord> collectSpendingData(LocalDate startDate, LocalDate endDate) {
+                spendingStarted.countDown();
+                try {
+                    Thread.sleep(60_000);
+                } catch (InterruptedException e) {
+                    spendingInterrupted.countDown();
+                }
+                return List.of();
+            }
+        };
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread caller = new Thread(() -> {
+            try {
+                collector.collect(START, END);
+            } catch (Throwable e) {
+                error.set(e);
+            }
+        });
+        caller.start();
+        assertTrue(spendingStarted.await(5, TimeUnit.SECONDS));
+        caller.interrupt();
+        caller.join(5_000);
+
+        assertInstanceOf(ApiClientException.class, error.get());
+        assertTrue(spendingInterrupted.await(5, TimeUnit.SECONDS), "spending fetch was not cancelled");
+    }
+
+    private static class StubCollector implements UsageDataCollector {
+
+        @Override
+        public List<UnifiedUsageRecord> collectUsageData(LocalDate startDate, LocalDate endDate)
+                throws ApiClientException {
+            return List.of(new UnifiedUsageRecord("alice@bemobi.com", ToolType.CLAUDE, startDate,
+                1L, 1L, 0L, null, null, null, Map.of()));
+        }
+
+        @Override
+        public List<UnifiedSpendingRecord> collectSpendingData(LocalDate startDate, LocalDate endDate)
+                throws ApiClientException {
+            return List.of(new UnifiedSpendingRecord("alice@bemobi.com", ToolType.CLAUDE, startDate.toString(),
+                BigDecimal.ONE, "USD", Map.of()));
+        }
+
+        @Override
+        public ToolType getToolType() {
+            return ToolType.CLAUDE;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.bemobi.aicontrol.integration.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link UsageRecordBatch}.
+ */
+class UsageRecordBatchTest {
+
+    private static final LocalDate DAY_1 = LocalDate.of(2026, 1, 14);
+    private static final LocalDate DAY_2 = LocalDate.of(2026, 1, 15);
+    private static final LocalDate DAY_3 = LocalDate.of(2026, 1, 16);
+
+    @Test
+    void get_roundTripsNullsAndZeros() {
+        UnifiedUsageRecord empty = new UnifiedUsageRecord("alice@bemobi.com", ToolType.CLAUDE, null,
+            null, null, null, null, null, null, null);
+        UnifiedUsageRecord zeros = new UnifiedUsageRecord("alice@bemobi.com", ToolType.CURSOR, DAY_1,
+            0L, 0L, 0L, 0, 0, 0.0, Map.of("key", "value"));
+        UsageRecordBatch batch = new UsageRecordBatch(1);
+
+        batch.add(empty);
+        batch.add(zeros);
+
+        assertEquals(empty, batch.get(0));
+        assertEquals(zeros, batch.get(1));
+        assertFalse(batch.hasInputTokens(0));
+        assertTrue(batch.hasInputTokens(1));
+        assertEquals(Integer.MIN_VALUE, batch.epochDay(0));
+        assertTrue(batch.rawMetadata(0).isEmpty());
+    }
+
+    @Test
+    void addAll_reusesDictionaryAndMetadataInstances() {
+        UsageRecordBatch first = batchOf(
+            record("alice@bemobi.com", DAY_1, 1L, Map.of("gitHubLogin", new String("alice-gh"))),
+            record("bob@bemobi.com", DAY_1, 2L, Map.of()));
+        UsageRecordBatch second = batchOf(
+            record("bob@bemobi.com", DAY_2, 3L, Map.of()),
+            record("carol@bemobi.com", DAY_2, null, Map.of("gitHubLogin", new String("alice-gh"))));
+
+        UsageRecordBatch merged = new UsageRecordBatch();
+        merged.addAll(first);
+        merged.addAll(second);
+        merged.addAll(List.of(record("alice@bemobi.com", DAY_3, 4L, Map.of())));
+
+        assertEquals(5, merged.size());
+        assertEquals(3, merged.dictionarySize());
+        assertEquals(merged.emailId(1), merged.emailId(2));
+        assertEquals(merged.emailId(0), merged.emailId(4));
+        assertEquals(List.of("alice@bemobi.com", "bob@bemobi.com", "bob@bemobi.com", "carol@bemobi.com",
+            "alice@bemobi.com"), merged.stream().map(UnifiedUsageRecord::email).toList());
+        assertFalse(merged.hasInputTokens(3));
+        // Equal metadata values from different batches end up as one instance
+        assertSame(merged.rawMetadata(0).get("gitHubLogin"), merged.rawMetadata(3).get("gitHubLogin"));
+        assertEquals(second.get(1), merged.get(3));
+    }
+
+    @Test
+    void add_doesNotRetainTheMetadataObject() {
+        Map<String, Object> metadata = Map.of("gitHubLogin", "octocat", "source", "seats");
+        UsageRecordBatch batch = batchOf(record("alice@bemobi.com", DAY_1, 1L, metadata));
+
+        Map<String, Object> stored = batch.rawMetadata(0);
+
+        assertNotSame(metadata, stored);
+        assertEquals(metadata, stored);
+        assertThrows(UnsupportedOperationException.class, () -> stored.put("x", "y"));
+    }
+
+    @Test
+    void sortByDate_keepsColumnsAndMetadataAligned() {
+        List<UnifiedUsageRecord> records = List.of(
+            record("carol@bemobi.com", DAY_3, 3L, Map.of("n", 3)),
+            record("alice@bemobi.com", DAY_1, 1L, Map.of("n", 1)),
+            record("undated@bemobi.com", null, null, Map.of("n", 0)),
+            record("bob@bemobi.com", DAY_2, null, Map.of("n", 2)),
+            record("alice@bemobi.com", DAY_1, 11L, Map.of("n", 11)));
+        UsageRecordBatch batch = batchOf(records.toArray(UnifiedUsageRecord[]::new));
+
+        batch.sortByDate();
+
+        List<UnifiedUsageRecord> expected = new ArrayList<>(List.of(
+            records.get(2), records.get(1), records.get(4), records.get(3), records.get(0)));
+        assertEquals(expected, new ArrayList<>(batch));
+        // Presence bits and metadata moved with their rows
+        assertEquals(List.of(false, true, true, false, true),
+            List.of(batch.hasInputTokens(0), batch.hasInputTokens(1), batch.hasInputTokens(2),
+                batch.hasInputTokens(3), batch.hasInputTokens(4)));
+        assertEquals(11, batch.rawMetadata(2).get("n"));
+        assertEquals(11L, batch.inputTokens(2));
+    }
+
+    @Test
+    void select_keepsColumnsAndMetadataAligned() {
+        UsageRecordBatch batch = batchOf(
+            record("alice@bemobi.com", DAY_1, 1L, Map.of("n", 1)),
+            new UnifiedUsageRecord("bob@bemobi.com", ToolType.CURSOR, DAY_1, null, 5L, null, 7, null, 0.5,
+                Map.of("n", 2)),
+            record("carol@bemobi.com", DAY_2, null, Map.of()),
+            new UnifiedUsageRecord("dave@bemobi.com", ToolType.CURSOR, DAY_2, 9L, null, 1L, null, 3, null,
+                Map.of("n", 4)));
+
+        UsageRecordBatch cursor = batch.select(row -> batch.tool(row) == ToolType.CURSOR);
+
+        assertEquals(List.of(batch.get(1), batch.get(3)), new ArrayList<>(cursor));
+        assertEquals(2, cursor.dictionarySize());
+        assertEquals(Map.of("n", 4), cursor.rawMetadata(1));
+        assertTrue(cursor.hasAcceptanceRate(0));
+        assertFalse(cursor.hasAcceptanceRate(1));
+    }
+
+    private static UsageRecordBatch batchOf(UnifiedUsageRecord... records) {
+        UsageRecordBatch batch = new UsageRecordBatch();
+        for (UnifiedUsageRecord record : records) {
+            batch.add(record);
+        }
+        return batch;
+    }
+
+    private static UnifiedUsageRecord record(String email, LocalDate date, Long inputTokens,
+                                             Map<String, Object> metadata) {
+        return new UnifiedUsageRecord(email, ToolType.CLAUDE, date, inputTokens, null, null, null, null, null,
+            metadata);
+    }
+}
@@ -0,0 +1,155 @@
+package com.bemobi.aicontrol.integration.cursor;
+
+import com.bemobi.aicontrol.integration.cursor.dto.DailyUsageRecord;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link DailyUsageStreamDecoder}, feeding the body in chunks of varying sizes.
+ */
+class DailyUsageStreamDecoderTest {
+
+    // Unknown properties are ignored, as with the Spring Boot mapper
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final String BODY = """
+        {"period":{"startDate":1,"endDate":2},
+         "data":[
+          {"email":"joão@example.com","date":"2026-01-14","lines_added":10,
+           "request_types":{"chat":3,"agent":1},
+           "most_used_models":["gpt-5","claude-4"],
+           "token_usage":[{"input_tokens":100,"output_tokens":20,"model":"gpt-5"}],
+           "extra":{"data":[{"email":"nested@example.com"}],"deep":[[1,2],{"a":{"b":[]}}]}},
+          42,
+          {"email":"maria@example.com","date":"2026-01-15","acceptance_rate":0.5}
+         ],
+         "trailer":{"data":[{"email":"ignored@example.com"}]}}
+        """;
+
+    @Test
+    void decode_returnsSameRecordsWhateverTheChunkSize() throws IOException {
+        for (int chunkSize : new int[] {1, 2, 7, 64, BODY.length()}) {
+            DailyUsageStreamDecoder decoder = new DailyUsageStreamDecoder(objectMapper);
+
+            List<DailyUsageRecord> records = decodeAll(decoder, BODY, chunkSize);
+
+            assertTrue(decoder.dataFound(), "chunk size " + chunkSize);
+            assertEquals(2, records.size(), "chunk size " + chunkSize);
+            DailyUsageRecord first = records.get(0);
+            assertEquals("joão@example.com", first.email());
+            assertEquals(10, first.linesAdded());
+            assertEquals(Map.of("chat", 3, "agent", 1), first.requestTypes());
+            assertEquals(List.of("gpt-5", "claude-4"), first.mostUsedModels());
+            assertEquals(100L, first.tokenUsage().get(0).inputTokens());
+            assertEquals("gpt-5", first.tokenUsage().get(0).model());
+            assertEquals("maria@example.com", records.get(1).email());
+            assertEquals(0.5, records.get(1).acceptanceRate());
+        }
+    }
+
+    @Test
+    void decode_emitsEachRecordAsSoonAsItCloses() throws IOException {
+        DailyUsageStreamDecoder decoder = new DailyUsageStreamDecoder(objectMapper);
+        String body = "{\"data\":[{\"email\":\"a@example.com\"},{\"email\":\"b@example.com\"}]}";
+        int split = body.indexOf("},{") + 1;
+
+        List<DailyUsageRecord> firstChunk = decoder.decode(wrap(body.substring(0, split)));
+        List<DailyUsageRecord> secondChunk = decoder.decode(wrap(body.substring(split)));
+
+        assertEquals(List.of("a@example.com"), firstChunk.stream().map(DailyUsageRecord::email).toList());
+        assertEquals(List.of("b@example.com"), secondChunk.stream().map(DailyUsageRecord::email).toList());
+        assertTrue(decoder.finish().isEmpty());
+    }
+
+    @Test
+    void decode_nullData_findsNoData() throws IOException {
+        DailyUsageStreamDecoder decoder = new DailyUsageStreamDecoder(objectMapper);
+
+        List<DailyUsageRecord> records = decodeAll(decoder, "{\"data\":null,\"other\":[{\"email\":\"x\"}]}", 3);
+
+        assertTrue(records.isEmpty());
+        assertFalse(decoder.dataFound());
+    }
+
+    @Test
+    void decode_objectData_findsNoData() throws IOException {
+        DailyUsageStreamDecoder decoder = new DailyUsageStreamDecoder(objectMapper);
+
+        List<DailyUsageRecord> records = decodeAll(decoder,
+            "{\"data\":{\"data\":[{\"email\":\"nested@example.com\"}]}}", 5);
+
+        assertTrue(records.isEmpty());
+        assertFalse(decoder.dataFound());
+    }
+
+    @Test
+    void decode_missingData_findsNoData() throws IOException {
+        DailyUsageStreamDecoder decoder = new DailyUsageStreamDecoder(objectMapper);
+
+        List<DailyUsageRecord> records = decodeAll(decoder, "{\"period\":{\"data\":[{\"email\":\"x\"}]}}", 4);
+
+        assertTrue(records.isEmpty());
+        assertFalse(decoder.dataFound());
+    }
+
+    @Test
+    void decode_emptyData_findsData() throws IOException {
+        DailyUsageStreamDecoder decoder = new DailyUsageStreamDecoder(objectMapper);
+
+        List<DailyUsageRecord> records = decodeAll(decoder, "{\"data\":[]}", 1);
+
+        assertTrue(records.isEmpty());
+        assertTrue(decoder.dataFound());
+    }
+
+    @Test
+    void finish_truncatedInsideRecord_throws() throws IOException {
+        DailyUsageStreamDecoder decoder = new DailyUsageStreamDecoder(objectMapper);
+        String body = "{\"data\":[{\"email\":\"a@example.com\"},{\"email\":\"b@exa";
+
+        List<DailyUsageRecord> records = decoder.decode(wrap(body));
+
+        // Records completed before the cut are still emitted
+        assertEquals(1, records.size());
+        assertThrows(IOException.class, decoder::finish);
+    }
+
+    @Test
+    void finish_truncatedBetweenRecords_throws() throws IOException {
+        DailyUsageStreamDecoder decoder = new DailyUsageStreamDecoder(objectMapper);
+
+        decoder.decode(wrap("{\"data\":[{\"email\":\"a@example.com\"},"));
+
+        assertThrows(IOException.class, decoder::finish);
+    }
+
+    private static List<DailyUsageRecord> decodeAll(DailyUsageStreamDecoder decoder, String body, int chunkSize)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        List<DailyUsageRecord> records = new ArrayList<>();
+        // Byte-sized chunks also split multi-byte characters
+        for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+            byte[] chunk = Arrays.copyOfRange(bytes, offset, Math.min(bytes.length, offset + chunkSize));
+            records.addAll(decoder.decode(DefaultDataBufferFactory.sharedInstance.wrap(chunk)));
+        }
+        records.addAll(decoder.finish());
+        return records;
+    }
+
+    private static DataBuffer wrap(String chunk) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8));
+    }
+}
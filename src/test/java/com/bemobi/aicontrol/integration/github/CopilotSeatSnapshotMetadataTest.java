@@ -0,0 +1,63 @@
+package com.bemobi.aicontrol.integration.github;
+
+import com.bemobi.aicontrol.integration.github.GitHubIdentityResolver.GitHubIdentity;
+import com.bemobi.aicontrol.integration.github.dto.GitHubCopilotSeat;
+import com.bemobi.aicontrol.integration.github.dto.GitHubUser;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CopilotSeatSnapshotMetadata}.
+ */
+class CopilotSeatSnapshotMetadataTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 1, 14);
+
+    @Test
+    void seatMetadata_followsSnapshotKeys() {
+        OffsetDateTime created = OffsetDateTime.parse("2025-06-01T10:00:00Z");
+        GitHubUser assignee = new GitHubUser("octocat", 42L, null, null, "User", false, null, null, null, null);
+        GitHubCopilotSeat seat = new GitHubCopilotSeat(created, null, null, null, "vscode", assignee, null);
+        CopilotSeatMetadata seatMetadata = new CopilotSeatMetadata(seat,
+            new GitHubIdentity("octocat", "octo@bemobi.com", null));
+
+        CopilotSeatSnapshotMetadata metadata = new CopilotSeatSnapshotMetadata("octocat", DAY, seatMetadata);
+
+        Map<String, Object> expected = new HashMap<>(seatMetadata);
+        expected.put("gitHubLogin", "octocat");
+        expected.put("source", "seats_snapshot");
+        expected.put("snapshot_date", "2026-01-14");
+        assertEquals(expected, metadata);
+        assertEquals(List.of("gitHubLogin", "source", "snapshot_date", "last_activity_editor"),
+            List.copyOf(metadata.keySet()).subList(0, 4));
+        assertEquals(created, metadata.get("created_at"));
+    }
+
+    @Test
+    void seatWithoutAssignee_hasOnlySnapshotKeys() {
+        GitHubCopilotSeat seat = new GitHubCopilotSeat(null, null, null, null, null, null, null);
+
+        CopilotSeatSnapshotMetadata metadata = new CopilotSeatSnapshotMetadata(null, DAY,
+            new CopilotSeatMetadata(seat, null));
+
+        assertEquals(List.of("gitHubLogin", "source", "snapshot_date"), List.copyOf(metadata.keySet()));
+        assertNull(metadata.get("gitHubLogin"));
+    }
+
+    @Test
+    void plainSeatMap_isReadThrough() {
+        CopilotSeatSnapshotMetadata metadata = new CopilotSeatSnapshotMetadata("octocat", DAY,
+            Map.of("github_login", "octocat", "source", "ignored"));
+
+        assertEquals(4, metadata.size());
+        assertEquals("seats_snapshot", metadata.get("source"));
+        assertEquals("octocat", metadata.get("github_login"));
+    }
+}
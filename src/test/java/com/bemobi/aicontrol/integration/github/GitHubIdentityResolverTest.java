@@ -0,0 +1,55 @@
+package com.bemobi.aicontrol.integration.github;
+
+import com.bemobi.aicontrol.integration.github.GitHubIdentityResolver.GitHubIdentity;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link GitHubIdentityResolver} without Google Workspace.
+ */
+class GitHubIdentityResolverTest {
+
+    private final GitHubIdentityResolver resolver = new GitHubIdentityResolver(null);
+
+    @Test
+    void resolve_fetchesProfileOncePerLoginPerRun() {
+        AtomicInteger fetches = new AtomicInteger();
+        Supplier<Mono<String>> profile = () -> Mono.fromCallable(() -> {
+            fetches.incrementAndGet();
+            return "Alice@Example.com";
+        });
+
+        GitHubIdentity first = resolver.resolve("alice", profile).block();
+        GitHubIdentity second = resolver.resolve("ALICE", profile).block();
+
+        assertEquals("alice@example.com", first.email());
+        assertEquals("real", second.emailType());
+        assertEquals(1, fetches.get());
+        assertEquals(1, resolver.getDeduplicatedLookups());
+
+        resolver.startRun();
+        resolver.resolve("alice", profile).block();
+        assertEquals(2, fetches.get());
+        assertEquals(0, resolver.getDeduplicatedLookups());
+    }
+
+    @Test
+    void resolve_withHeldEmailIsNotMemoized() {
+        assertEquals("bob@bemobi.com", resolver.resolve("bob", "bob@bemobi.com").corporateEmail());
+        assertEquals(GitHubIdentityResolver.UNREGISTERED_EMAIL, resolver.resolve("bob", (String) null).corporateEmail());
+        assertEquals(0, resolver.getDeduplicatedLookups());
+    }
+
+    @Test
+    void resolve_failedProfileCountsAsNoMatch() {
+        GitHubIdentity identity = resolver.resolve("carol",
+            () -> Mono.<String>error(new IllegalStateException("down"))).block();
+
+        assertEquals("not_found", identity.emailType());
+    }
+}
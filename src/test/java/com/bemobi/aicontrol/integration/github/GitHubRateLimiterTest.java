@@ -0,0 +1,92 @@
+package com.bemobi.aicontrol.integration.github;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link GitHubRateLimiter} budget accounting.
+ */
+class GitHubRateLimiterTest {
+
+    private GitHubRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        GitHubApiProperties properties = new GitHubApiProperties();
+        properties.getRateLimit().setReserve(2);
+        properties.getRateLimit().setPaceBelow(10);
+        rateLimiter = new GitHubRateLimiter(properties);
+    }
+
+    @Test
+    void acquire_doesNotWaitWhileBudgetIsUnknown() {
+        assertEquals(Duration.ZERO, rateLimiter.acquire(Instant.now()));
+        assertEquals(-1, rateLimiter.snapshot().remaining());
+    }
+
+    @Test
+    void acquire_keepsQueuedCallersWaitingOnceBudgetIsExhausted() {
+        Instant now = Instant.now();
+        Instant reset = now.plusSeconds(600);
+        respond(HttpStatus.OK, 2, reset);
+
+        // Far more callers than the reserve: none of them may be sent before the reset
+        for (int i = 0; i < 20; i++) {
+            Duration delay = rateLimiter.acquire(now);
+            assertTrue(delay.compareTo(Duration.ofSeconds(600)) >= 0, "caller " + i + " waited " + delay);
+        }
+        assertEquals(0, rateLimiter.snapshot().remaining());
+    }
+
+    @Test
+    void acquire_pacesRequestsBelowThreshold() {
+        Instant now = Instant.now();
+        respond(HttpStatus.OK, 7, now.plusSeconds(100));
+
+        assertEquals(Duration.ZERO, rateLimiter.acquire(now));
+        assertTrue(rateLimiter.acquire(now).compareTo(Duration.ZERO) > 0);
+    }
+
+    @Test
+    void acquire_forgetsBudgetWhenWindowRollsOver() {
+        Instant now = Instant.now();
+        respond(HttpStatus.OK, 0, now.plusSeconds(10));
+
+        assertEquals(Duration.ZERO, rateLimiter.acquire(now.plusSeconds(11)));
+        assertEquals(Duration.ZERO, rateLimiter.acquire(now.plusSeconds(11)));
+        assertEquals(-1, rateLimiter.snapshot().remaining());
+    }
+
+    @Test
+    void notModified_refundsTheUnit() {
+        Instant reset = Instant.now().plusSeconds(600);
+        respond(HttpStatus.OK, 100, reset);
+        rateLimiter.acquire(Instant.now());
+        assertEquals(99, rateLimiter.snapshot().remaining());
+
+        respond(HttpStatus.NOT_MODIFIED, 100, reset);
+
+        assertEquals(99, rateLimiter.snapshot().remaining());
+    }
+
+    private void respond(HttpStatus status, int remaining, Instant reset) {
+        ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("https://api.github.com/test")).build();
+        ClientResponse response = ClientResponse.create(status)
+            .header("X-RateLimit-Limit", "5000")
+            .header("X-RateLimit-Remaining", String.valueOf(remaining))
+            .header("X-RateLimit-Reset", String.valueOf(reset.getEpochSecond()))
+            .build();
+        rateLimiter.filter(request, ignored -> Mono.just(response)).block();
+    }
+}
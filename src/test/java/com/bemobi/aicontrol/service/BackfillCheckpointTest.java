@@ -0,0 +1,66 @@
+package com.bemobi.aicontrol.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link BackfillCheckpoint} and the window split of {@link BackfillService}.
+ */
+class BackfillCheckpointTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void complete_persistsDaysAcrossLoads() throws Exception {
+        Path file = directory.resolve("checkpoint.json");
+        BackfillCheckpoint checkpoint = BackfillCheckpoint.load(file, objectMapper);
+
+        checkpoint.complete("cursor", List.of(LocalDate.of(2026, 1, 14), LocalDate.of(2026, 1, 15)));
+
+        BackfillCheckpoint reloaded = BackfillCheckpoint.load(file, objectMapper);
+        assertTrue(reloaded.isCompleted("cursor", LocalDate.of(2026, 1, 14)));
+        assertTrue(reloaded.isCompleted("cursor", LocalDate.of(2026, 1, 15)));
+        assertFalse(reloaded.isCompleted("cursor", LocalDate.of(2026, 1, 16)));
+        assertFalse(reloaded.isCompleted("claude", LocalDate.of(2026, 1, 14)));
+    }
+
+    @Test
+    void load_expandsLegacyWindowKeys() throws Exception {
+        Path file = directory.resolve("checkpoint.json");
+        Files.writeString(file, "{\"cursor\":[\"2026-01-14/2026-01-16\",\"not-a-window/x\"]}");
+
+        BackfillCheckpoint checkpoint = BackfillCheckpoint.load(file, objectMapper);
+
+        assertTrue(checkpoint.isCompleted("cursor", LocalDate.of(2026, 1, 14)));
+        assertTrue(checkpoint.isCompleted("cursor", LocalDate.of(2026, 1, 16)));
+        assertFalse(checkpoint.isCompleted("cursor", LocalDate.of(2026, 1, 17)));
+    }
+
+    @Test
+    void splitRange_alignsWindowsRegardlessOfStartDate() {
+        List<BackfillService.UnitWindow> today = BackfillService.splitRange(
+            LocalDate.of(2026, 1, 10), LocalDate.of(2026, 2, 10), 7);
+        List<BackfillService.UnitWindow> tomorrow = BackfillService.splitRange(
+            LocalDate.of(2026, 1, 11), LocalDate.of(2026, 2, 11), 7);
+
+        assertEquals(LocalDate.of(2026, 1, 10), today.get(0).start());
+        assertEquals(LocalDate.of(2026, 2, 10), today.get(today.size() - 1).end());
+        // Interior windows are the same whatever the start date
+        assertEquals(today.get(1), tomorrow.get(1));
+        assertEquals(0, today.get(1).start().toEpochDay() % 7);
+        for (int i = 1; i < today.size(); i++) {
+            assertEquals(today.get(i - 1).end().plusDays(1), today.get(i).start());
+        }
+    }
+}
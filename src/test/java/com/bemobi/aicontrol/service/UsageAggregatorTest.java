@@ -0,0 +1,158 @@
+package com.bemobi.aicontrol.service;
+
+import com.bemobi.aicontrol.integration.common.ToolType;
+import com.bemobi.aicontrol.integration.common.UnifiedSpendingRecord;
+import com.bemobi.aicontrol.integration.common.UnifiedUsageRecord;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link UsageAggregator}.
+ */
+class UsageAggregatorTest {
+
+    private static final LocalDate DAY_1 = LocalDate.of(2026, 1, 14);
+    private static final LocalDate DAY_2 = LocalDate.of(2026, 1, 15);
+
+    @Test
+    void userUsageRows_distinguishAbsentFromZeroMetrics() {
+        UsageAggregator aggregator = UsageAggregator.aggregate(List.of(
+            usage("alice@bemobi.com", ToolType.CURSOR, DAY_1, 0L, null, null, 0, null),
+            usage("alice@bemobi.com", ToolType.CURSOR, DAY_2, 0L, null, null, null, null),
+            usage("bob@bemobi.com", ToolType.CURSOR, DAY_1, null, 5L, 2L, 10, 4)
+        ), List.of());
+
+        List<UserUsageRow> rows = aggregator.userUsageRows();
+
+        UserUsageRow alice = rows.get(0);
+        assertEquals(0L, alice.inputTokens());
+        assertNull(alice.outputTokens());
+        assertNull(alice.cacheReadTokens());
+        assertEquals(0, alice.linesSuggested());
+        assertNull(alice.linesAccepted());
+        assertNull(alice.acceptanceRate());
+        assertNull(alice.costUsd());
+        assertEquals(DAY_2, alice.lastUsage());
+
+        UserUsageRow bob = rows.get(1);
+        assertNull(bob.inputTokens());
+        assertEquals(5L, bob.outputTokens());
+        assertEquals(2L, bob.cacheReadTokens());
+        assertEquals(40.0, bob.acceptanceRate());
+    }
+
+    @Test
+    void costs_areSummedPerUserToolAndPerUser() {
+        UsageAggregator aggregator = UsageAggregator.aggregate(List.of(
+            usage("alice@bemobi.com", ToolType.CLAUDE, DAY_1, 10L, 1L, null, null, null),
+            usage("alice@bemobi.com", ToolType.CURSOR, DAY_1, 20L, 2L, null, null, null)
+        ), List.of(
+            spending("alice@bemobi.com", ToolType.CLAUDE, "1.25"),
+            spending("alice@bemobi.com", ToolType.CLAUDE, "0.75"),
+            spending("alice@bemobi.com", ToolType.CURSOR, "0.1234567"),
+            // Spending without usage counts in the totals but adds no sheet row
+            spending("carol@bemobi.com", ToolType.CURSOR, "3")
+        ));
+
+        List<UserUsageRow> rows = aggregator.userUsageRows();
+        assertEquals(2, rows.size());
+        assertEquals(new BigDecimal("2.00"), rows.get(0).costUsd());
+        // Costs are rounded HALF_UP to 6 decimals and shown with at least 2
+        assertEquals(new BigDecimal("0.123457"), rows.get(1).costUsd());
+
+        assertEquals(new BigDecimal("2.123457"), aggregator.multiToolRows().get(0).totalCost());
+
+        ReportSummary summary = aggregator.summary();
+        assertEquals(new BigDecimal("5.123457"), summary.totalCostUsd());
+        assertEquals(Map.of(ToolType.CLAUDE, new BigDecimal("2.00"), ToolType.CURSOR, new BigDecimal("3.123457")),
+            summary.costByTool());
+    }
+
+    @Test
+    void summary_countsUsersWithUsageAndSumsTokens() {
+        UsageAggregator aggregator = UsageAggregator.aggregate(List.of(
+            usage("alice@bemobi.com", ToolType.CLAUDE, DAY_1, 10L, 1L, null, null, null),
+            usage("alice@bemobi.com", ToolType.CURSOR, DAY_2, 5L, null, null, null, null),
+            usage("bob@bemobi.com", ToolType.CLAUDE, DAY_1, null, 4L, null, null, null)
+        ), List.of(spending("carol@bemobi.com", ToolType.CLAUDE, "1")));
+
+        ReportSummary summary = aggregator.summary();
+
+        assertEquals(2, summary.userCount());
+        assertEquals(15L, summary.totalInputTokens());
+        assertEquals(5L, summary.totalOutputTokens());
+        assertEquals(Map.of(ToolType.CLAUDE, new BigDecimal("1.00")), summary.costByTool());
+    }
+
+    @Test
+    void multiToolRows_keepUsersOfMoreThanOneToolSortedByToolCountThenEmail() {
+        UsageAggregator aggregator = UsageAggregator.aggregate(List.of(
+            usage("zed@bemobi.com", ToolType.CLAUDE, DAY_1, 1L, null, null, null, null),
+            usage("zed@bemobi.com", ToolType.CURSOR, DAY_1, 1L, null, null, null, null),
+            usage("zed@bemobi.com", ToolType.GITHUB_COPILOT, DAY_1, null, null, null, 3, 1),
+            usage("bob@bemobi.com", ToolType.CLAUDE, DAY_1, 2L, 3L, 4L, null, null),
+            usage("bob@bemobi.com", ToolType.CURSOR, DAY_1, null, null, null, null, null),
+            usage("amy@bemobi.com", ToolType.CLAUDE, DAY_1, 1L, null, null, null, null),
+            usage("ann@bemobi.com", ToolType.CLAUDE, DAY_1, 1L, null, null, null, null),
+            usage("ann@bemobi.com", ToolType.GITHUB_COPILOT, DAY_1, null, null, null, null, null)
+        ), List.of());
+
+        List<MultiToolUserRow> rows = aggregator.multiToolRows();
+
+        assertEquals(List.of("zed@bemobi.com", "ann@bemobi.com", "bob@bemobi.com"),
+            rows.stream().map(MultiToolUserRow::email).toList());
+        MultiToolUserRow zed = rows.get(0);
+        assertEquals(3, zed.toolCount());
+        assertEquals(Set.of(ToolType.CLAUDE, ToolType.CURSOR, ToolType.GITHUB_COPILOT), zed.tools());
+        assertEquals(2L, zed.totalTokens());
+        assertEquals(3, zed.linesSuggested());
+        assertEquals(1, zed.linesAccepted());
+        assertNull(zed.totalCost());
+
+        MultiToolUserRow bob = rows.get(2);
+        assertTrue(bob.usesClaude() && bob.usesCursor() && !bob.usesGitHub());
+        assertEquals(9L, bob.totalTokens());
+        assertNull(bob.linesSuggested());
+    }
+
+    @Test
+    void toolTotals_pickUpGitHubLoginFromMetadata() {
+        UsageAggregator aggregator = UsageAggregator.aggregate(List.of(
+            usage("[SEM-USR-GITHUB]", ToolType.GITHUB_COPILOT, DAY_1, null, null, null, 5, 2, Map.of()),
+            usage("[SEM-USR-GITHUB]", ToolType.GITHUB_COPILOT, DAY_2, null, null, null, 1, 1,
+                Map.of("gitHubLogin", "octocat")),
+            usage("alice@bemobi.com", ToolType.CLAUDE, DAY_1, 1L, null, null, null, null)
+        ), List.of());
+
+        List<UsageAggregator.ToolTotals> totals = aggregator.toolTotals(ToolType.GITHUB_COPILOT);
+
+        assertEquals(1, totals.size());
+        UsageAggregator.ToolTotals totalsOfLogin = totals.get(0);
+        assertEquals("octocat", totalsOfLogin.gitHubLogin());
+        assertEquals(DAY_2, totalsOfLogin.lastUsage());
+        assertEquals(6, totalsOfLogin.linesSuggested());
+        assertEquals(3, totalsOfLogin.linesAccepted());
+    }
+
+    private static UnifiedUsageRecord usage(String email, ToolType tool, LocalDate date, Long input, Long output,
+                                            Long cache, Integer suggested, Integer accepted) {
+        return usage(email, tool, date, input, output, cache, suggested, accepted, Map.of());
+    }
+
+    private static UnifiedUsageRecord usage(String email, ToolType tool, LocalDate date, Long input, Long output,
+                                            Long cache, Integer suggested, Integer accepted,
+                                            Map<String, Object> metadata) {
+        return new UnifiedUsageRecord(email, tool, date, input, output, cache, suggested, accepted, null, metadata);
+    }
+
+    private static UnifiedSpendingRecord spending(String email, ToolType tool, String cost) {
+        return new UnifiedSpendingRecord(email, tool, "2026-01", new BigDecimal(cost), "USD", Map.of());
+    }
+}
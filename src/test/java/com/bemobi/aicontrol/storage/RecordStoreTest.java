@@ -0,0 +1,233 @@
+package com.bemobi.aicontrol.storage;
+
+import com.bemobi.aicontrol.config.StorageProperties;
+import com.bemobi.aicontrol.integration.common.ToolType;
+import com.bemobi.aicontrol.integration.common.UnifiedSpendingRecord;
+import com.bemobi.aicontrol.integration.common.UnifiedUsageRecord;
+import com.bemobi.aicontrol.integration.common.UsageCollection;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RecordStore} on a temporary directory.
+ */
+class RecordStoreTest {
+
+    private static final LocalDate DAY_1 = LocalDate.of(2026, 1, 14);
+    private static final LocalDate DAY_2 = LocalDate.of(2026, 1, 15);
+    private static final LocalDate DAY_3 = LocalDate.of(2026, 1, 16);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void saveCollection_roundTripsUsageAndSpending() {
+        RecordStore store = newStore();
+
+        store.saveCollection(ToolType.CLAUDE, DAY_1, DAY_3, new UsageCollection(
+            List.of(usage("alice@bemobi.com", DAY_1, 100L), usage("bob@bemobi.com", DAY_3, 200L)),
+            List.of(spending("alice@bemobi.com", DAY_1, "1.50"))));
+
+        List<UnifiedUsageRecord> loaded = store.loadUsage(ToolType.CLAUDE, DAY_1, DAY_3);
+        assertEquals(2, loaded.size());
+        assertEquals("alice@bemobi.com", loaded.get(0).email());
+        assertEquals(DAY_1, loaded.get(0).date());
+        assertEquals(100L, loaded.get(0).inputTokens());
+        assertEquals(DAY_3, loaded.get(1).date());
+
+        // A fetched day without usage is stored too, as an empty partition
+        assertEquals(Set.of(DAY_1, DAY_2, DAY_3), store.storedUsageDays(ToolType.CLAUDE));
+
+        List<UnifiedSpendingRecord> spending = store.loadSpending(ToolType.CLAUDE, DAY_1, DAY_3);
+        assertEquals(1, spending.size());
+        assertEquals(0, new BigDecimal("1.50").compareTo(spending.get(0).costUsd()));
+        assertEquals(Map.of("usage", 2, "spending", 1, "users", 0), store.recordCounts());
+    }
+
+    @Test
+    void saveCollection_replacesStoredDaysOfTheRange() {
+        RecordStore store = newStore();
+        store.saveCollection(ToolType.CURSOR, DAY_1, DAY_2, new UsageCollection(
+            List.of(usage("alice@bemobi.com", DAY_1, 100L), usage("alice@bemobi.com", DAY_2, 100L)), List.of()));
+
+        store.saveCollection(ToolType.CURSOR, DAY_2, DAY_2, new UsageCollection(List.of(), List.of()));
+
+        List<UnifiedUsageRecord> loaded = store.loadUsage(ToolType.CURSOR, DAY_1, DAY_2);
+        assertEquals(1, loaded.size());
+        assertEquals(DAY_1, loaded.get(0).date());
+    }
+
+    @Test
+    void saveCollection_leavesFailedDaysUntouched() {
+        RecordStore store = newStore();
+        store.saveCollection(ToolType.GITHUB_COPILOT, DAY_1, DAY_2, new UsageCollection(
+            List.of(usage("alice@bemobi.com", DAY_1, null), usage("bob@bemobi.com", DAY_2, null)), List.of()));
+
+        // DAY_1 failed on the second run: its stored partition must survive
+        store.saveCollection(ToolType.GITHUB_COPILOT, DAY_1, DAY_2, new UsageCollection(
+            List.of(usage("carol@bemobi.com", DAY_2, null)), List.of(), Set.of(DAY_1), false));
+
+        List<UnifiedUsageRecord> loaded = store.loadUsage(ToolType.GITHUB_COPILOT, DAY_1, DAY_2);
+        assertEquals(List.of("alice@bemobi.com", "carol@bemobi.com"),
+            loaded.stream().map(UnifiedUsageRecord::email).toList());
+    }
+
+    @Test
+    void saveCollection_doesNotIndexFailedDaysNeverStored() {
+        RecordStore store = newStore();
+
+        store.saveCollection(ToolType.CLAUDE, DAY_1, DAY_2, new UsageCollection(
+            List.of(usage("alice@bemobi.com", DAY_2, 1L)), List.of(), Set.of(DAY_1), false));
+
+        assertEquals(Set.of(DAY_2), store.storedUsageDays(ToolType.CLAUDE));
+    }
+
+    @Test
+    void saveCollection_keepsStoredSpendingWhenSpendingFailed() {
+        RecordStore store = newStore();
+        store.saveCollection(ToolType.CLAUDE, DAY_1, DAY_1, new UsageCollection(
+            List.of(), List.of(spending("alice@bemobi.com", DAY_1, "2.00"))));
+
+        store.saveCollection(ToolType.CLAUDE, DAY_1, DAY_1, new UsageCollection(
+            List.of(usage("alice@bemobi.com", DAY_1, 10L)), List.of(), Set.of(), true));
+
+        List<UnifiedSpendingRecord> spending = store.loadSpending(ToolType.CLAUDE, DAY_1, DAY_1);
+        assertEquals(1, spending.size());
+        assertEquals(0, new BigDecimal("2.00").compareTo(spending.get(0).costUsd()));
+        assertEquals(1, store.loadUsage(ToolType.CLAUDE, DAY_1, DAY_1).size());
+    }
+
+    @Test
+    void saveCollection_returnsStoredDays() {
+        RecordStore store = newStore();
+
+        Set<LocalDate> stored = store.saveCollection(ToolType.CLAUDE, DAY_1, DAY_3, new UsageCollection(
+            List.of(usage("alice@bemobi.com", DAY_1, 10L)), List.of(), Set.of(DAY_2), false));
+
+        assertEquals(Set.of(DAY_1, DAY_3), stored);
+    }
+
+    @Test
+    void saveUsage_leavesUnwritableDaysOut() throws Exception {
+        RecordStore store = newStore();
+        // A non-empty directory where the partition file goes makes that write fail
+        Path blocked = directory.resolve("usage/claude-code/" + DAY_2 + ".ndjson");
+        Files.createDirectories(blocked);
+        Files.writeString(blocked.resolve("keep"), "x");
+
+        Set<LocalDate> stored = store.saveUsage(ToolType.CLAUDE, DAY_1, DAY_3, new UsageCollection(
+            List.of(usage("alice@bemobi.com", DAY_2, 10L)), List.of()));
+
+        assertEquals(Set.of(DAY_1, DAY_3), stored);
+        assertEquals(Set.of(DAY_1, DAY_3), store.storedUsageDays(ToolType.CLAUDE));
+    }
+
+    @Test
+    void saveSpending_skipsRangePeriods() {
+        RecordStore store = newStore();
+
+        store.saveSpending(ToolType.CURSOR, DAY_1, DAY_3, List.of(
+            new UnifiedSpendingRecord("alice@bemobi.com", ToolType.CURSOR, DAY_1 + "_" + DAY_3, BigDecimal.TEN,
+                "USD", Map.of()),
+            new UnifiedSpendingRecord("alice@bemobi.com", ToolType.CURSOR, "2026-01", BigDecimal.ONE,
+                "USD", Map.of())));
+
+        List<UnifiedSpendingRecord> spending = store.loadSpending(ToolType.CURSOR, DAY_1, DAY_3);
+        assertEquals(List.of("2026-01"), spending.stream().map(UnifiedSpendingRecord::period).toList());
+        assertEquals(1, store.recordCounts().get("spending"));
+    }
+
+    @Test
+    void constructor_dropsStoredRangePeriods() throws Exception {
+        newStore().saveCollection(ToolType.CLAUDE, DAY_1, DAY_1, new UsageCollection(
+            List.of(), List.of(spending("alice@bemobi.com", DAY_1, "1.00"))));
+        Path legacy = directory.resolve("spending/cursor/2026-01-14_2026-01-16.ndjson");
+        Files.createDirectories(legacy.getParent());
+        Files.writeString(legacy, "{\"email\":\"alice@bemobi.com\",\"period\":\"2026-01-14_2026-01-16\"}\n");
+        Files.delete(directory.resolve("index.json"));
+
+        RecordStore reopened = newStore();
+
+        assertFalse(Files.exists(legacy));
+        assertEquals(1, reopened.recordCounts().get("spending"));
+    }
+
+    @Test
+    void saveCollection_skipsUndatedAndOutOfRangeRecords() {
+        RecordStore store = newStore();
+        store.saveCollection(ToolType.CURSOR, DAY_3, DAY_3, new UsageCollection(
+            List.of(usage("alice@bemobi.com", DAY_3, 1L)), List.of()));
+
+        assertDoesNotThrow(() -> store.saveCollection(ToolType.CURSOR, DAY_1, DAY_2, new UsageCollection(
+            List.of(usage("bob@bemobi.com", null, 2L),
+                usage("bob@bemobi.com", DAY_2, 3L),
+                usage("carol@bemobi.com", DAY_3, 4L)),
+            List.of())));
+
+        assertEquals(Set.of(DAY_1, DAY_2, DAY_3), store.storedUsageDays(ToolType.CURSOR));
+        List<UnifiedUsageRecord> loaded = store.loadUsage(ToolType.CURSOR, DAY_1, DAY_3);
+        assertEquals(List.of("bob@bemobi.com", "alice@bemobi.com"),
+            loaded.stream().map(UnifiedUsageRecord::email).toList());
+    }
+
+    @Test
+    void findUsage_returnsOnlyRecordsOfTheEmail() {
+        RecordStore store = newStore();
+        store.saveCollection(ToolType.CURSOR, DAY_1, DAY_2, new UsageCollection(List.of(
+            usage("alice@bemobi.com", DAY_1, 1L),
+            usage("bob@bemobi.com", DAY_1, 2L),
+            usage("Alice@Bemobi.com", DAY_2, 3L)), List.of()));
+
+        List<UnifiedUsageRecord> alice = store.findUsage("ALICE@bemobi.com", ToolType.CURSOR, DAY_1, DAY_2);
+        assertEquals(List.of(1L, 3L), alice.stream().map(UnifiedUsageRecord::inputTokens).toList());
+
+        assertTrue(store.findUsage("nobody@bemobi.com", ToolType.CURSOR, DAY_1, DAY_2).isEmpty());
+        assertTrue(store.findUsage("alice@bemobi.com", ToolType.CLAUDE, DAY_1, DAY_2).isEmpty());
+    }
+
+    @Test
+    void constructor_rebuildsMissingIndexFromPartitionFiles() throws Exception {
+        RecordStore store = newStore();
+        store.saveCollection(ToolType.CLAUDE, DAY_1, DAY_2, new UsageCollection(
+            List.of(usage("alice@bemobi.com", DAY_1, 1L), usage("bob@bemobi.com", DAY_2, 2L)),
+            List.of(spending("alice@bemobi.com", DAY_1, "1.00"))));
+        Files.delete(directory.resolve("index.json"));
+
+        RecordStore reopened = newStore();
+
+        assertTrue(Files.exists(directory.resolve("index.json")));
+        assertEquals(Set.of(DAY_1, DAY_2), reopened.storedUsageDays(ToolType.CLAUDE));
+        assertEquals(Map.of("usage", 2, "spending", 1, "users", 0), reopened.recordCounts());
+        assertEquals(1, reopened.findUsage("bob@bemobi.com", ToolType.CLAUDE, DAY_1, DAY_2).size());
+    }
+
+    private RecordStore newStore() {
+        StorageProperties properties = new StorageProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        return new RecordStore(properties, objectMapper);
+    }
+
+    private static UnifiedUsageRecord usage(String email, LocalDate date, Long inputTokens) {
+        return new UnifiedUsageRecord(email, ToolType.CLAUDE, date, inputTokens, null, null, null, null, null,
+            Map.of());
+    }
+
+    private static UnifiedSpendingRecord spending(String email, LocalDate day, String cost) {
+        return new UnifiedSpendingRecord(email, ToolType.CLAUDE, day.toString(), new BigDecimal(cost), "USD",
+            Map.of());
+    }
+}